@@ -14,8 +14,14 @@
 
 # Uncomment this to preserve the line number information for
 # debugging stack traces.
-#-keepattributes SourceFile,LineNumberTable
+-keepattributes SourceFile,LineNumberTable
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+-renamesourcefileattribute SourceFile
+
+# JSONの変換について
+# HeartRails のレスポンスは HeartRailsResponseJsonAdapter、Open-Meteo のレスポンスは MeteoHourlyParser で
+# フィールド名を直接照合して変換するため、モデルクラスの名前が変わっても問題ありません。
+# Moshi のリフレクションで変換するクラスを追加する場合は、次のようにフィールドを残してください。
+#-keep class jp.ac.meijou.android.mobileapp2025_a_final.XxxResponse** { <fields>; }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.os.Trace;
+
+/**
+ * {@link MetricsRegistry} で計測した区間を android.os.Trace に出力するクラス
+ * Perfetto や Android Studio のプロファイラで、アプリの区間として表示されます。
+ * トレースを記録していないときの呼び出しはほとんど負荷になりません。
+ */
+public class AndroidTracer implements MetricsRegistry.Tracer {
+
+    @Override
+    public void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @Override
+    public void endSection() {
+        Trace.endSection();
+    }
+
+    @Override
+    public void beginAsyncSection(String name, int cookie) {
+        Trace.beginAsyncSection(name, cookie);
+    }
+
+    @Override
+    public void endAsyncSection(String name, int cookie) {
+        Trace.endAsyncSection(name, cookie);
+    }
+}
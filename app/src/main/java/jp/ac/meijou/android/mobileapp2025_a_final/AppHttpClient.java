@@ -0,0 +1,256 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.brotli.BrotliInterceptor;
+
+/**
+ * アプリ全体で共有するHTTPクライアントを提供するクラス
+ * 画面ごとにクライアントを作ると接続プールやスレッドが毎回作り直されるため、
+ * プロセス内で1つのクライアントを使い回します。
+ *
+ * ■ 設定内容
+ * - ディスクキャッシュ: サーバーのキャッシュヘッダーに従って保存 (ヘッダーがない場合はAPIごとの既定値)
+ * - 圧縮: gzip / brotli に対応
+ * - 接続プール: HTTP/2 の接続を再利用
+ * - 同時リクエスト数の上限を設定
+ * - APIごとのタイムアウト・再試行・サーキットブレーカー ({@link ResilienceInterceptor})
+ */
+public final class AppHttpClient {
+
+    private static final String CACHE_DIRECTORY_NAME = "http_cache";
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024; // 10MB
+
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+
+    // サーバーがキャッシュヘッダーを返さない場合の保存期間 (秒)
+    private static final int DEFAULT_FORECAST_MAX_AGE_SECONDS = 15 * 60;      // 天気予報: 15分
+    private static final int DEFAULT_POSTAL_MAX_AGE_SECONDS = 24 * 60 * 60;   // 郵便番号: 1日
+
+    private static OkHttpClient client;
+    private static final Stats stats = new Stats();
+    private static final ResilienceInterceptor resilience = new ResilienceInterceptor(
+            Arrays.asList(EndpointPolicy.OPEN_METEO, EndpointPolicy.HEARTRAILS));
+
+    private AppHttpClient() {
+    }
+
+    /**
+     * 共有のHTTPクライアントを取得します
+     * 初回呼び出し時にキャッシュディレクトリを設定して生成します。
+     */
+    public static synchronized OkHttpClient get(Context context) {
+        if (client == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIRECTORY_NAME);
+            client = create(cacheDir, stats, resilience);
+        }
+        return client;
+    }
+
+    /**
+     * 接続再利用率やキャッシュヒット率などの統計情報を取得します
+     */
+    public static Stats getStats() {
+        return stats;
+    }
+
+    /**
+     * APIごとの処理時間の分布や、再試行・サーキットブレーカーの状態を取得します
+     */
+    public static ResilienceInterceptor getResilience() {
+        return resilience;
+    }
+
+    /**
+     * 設定済みのHTTPクライアントを生成します (テストからも使用)
+     *
+     * @param cacheDir キャッシュの保存先
+     * @param stats    統計情報の記録先
+     */
+    static OkHttpClient create(File cacheDir, Stats stats) {
+        return create(cacheDir, stats, new ResilienceInterceptor(
+                Arrays.asList(EndpointPolicy.OPEN_METEO, EndpointPolicy.HEARTRAILS)));
+    }
+
+    /**
+     * 設定済みのHTTPクライアントを生成します
+     *
+     * @param cacheDir   キャッシュの保存先
+     * @param stats      統計情報の記録先
+     * @param resilience APIごとのタイムアウト・再試行・サーキットブレーカー
+     */
+    static OkHttpClient create(File cacheDir, Stats stats, ResilienceInterceptor resilience) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        return new OkHttpClient.Builder()
+                .cache(new Cache(cacheDir, CACHE_SIZE_BYTES))
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                // 再試行やキャッシュへの切り替えを行うため、キャッシュより外側に登録する
+                .addInterceptor(resilience)
+                // brotli / gzip の両方を受け付けて展開する
+                .addInterceptor(BrotliInterceptor.INSTANCE)
+                .addNetworkInterceptor(new DefaultCacheControlInterceptor())
+                .eventListener(new StatsEventListener(stats))
+                .build();
+    }
+
+    /**
+     * サーバーがキャッシュヘッダーを返さない場合に、APIごとの既定の保存期間を付与するインターセプター
+     * サーバーが Cache-Control を返している場合はそちらを優先します。
+     */
+    static class DefaultCacheControlInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Response response = chain.proceed(chain.request());
+            if (!chain.request().method().equals("GET")
+                    || !response.isSuccessful()
+                    || response.header("Cache-Control") != null
+                    || response.header("Expires") != null) {
+                return response;
+            }
+
+            String host = chain.request().url().host();
+            int maxAge = host.endsWith("heartrails.com")
+                    ? DEFAULT_POSTAL_MAX_AGE_SECONDS
+                    : DEFAULT_FORECAST_MAX_AGE_SECONDS;
+            return response.newBuilder()
+                    .header("Cache-Control", "public, max-age=" + maxAge)
+                    .build();
+        }
+    }
+
+    /**
+     * 接続とキャッシュの利用状況を記録するイベントリスナー
+     */
+    static class StatsEventListener extends EventListener {
+        private final Stats stats;
+
+        StatsEventListener(Stats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            stats.calls.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            stats.newConnections.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            stats.connectionsAcquired.incrementAndGet();
+        }
+
+        @Override
+        public void cacheHit(Call call, Response response) {
+            // 条件付きリクエストで 304 が返った場合も呼ばれる (ネットワークのレスポンスを持つ)
+            if (response.networkResponse() != null) {
+                stats.notModifiedHits.incrementAndGet();
+            } else {
+                stats.cacheHits.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void cacheConditionalHit(Call call, Response cachedResponse) {
+            stats.conditionalCacheHits.incrementAndGet();
+        }
+
+        @Override
+        public void cacheMiss(Call call) {
+            stats.cacheMisses.incrementAndGet();
+        }
+    }
+
+    /**
+     * HTTPクライアントの統計情報
+     */
+    public static class Stats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong newConnections = new AtomicLong();
+        final AtomicLong connectionsAcquired = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();          // 通信せずにキャッシュから返した数
+        final AtomicLong conditionalCacheHits = new AtomicLong(); // キャッシュを元に条件付きリクエストを送った数
+        final AtomicLong notModifiedHits = new AtomicLong();    // 条件付きリクエストで 304 が返った数
+        final AtomicLong cacheMisses = new AtomicLong();
+
+        /**
+         * 既存の接続を再利用した割合 (0.0〜1.0)
+         */
+        public double getConnectionReuseRate() {
+            long acquired = connectionsAcquired.get();
+            if (acquired == 0) return 0;
+            long reused = Math.max(0, acquired - newConnections.get());
+            return (double) reused / acquired;
+        }
+
+        /**
+         * キャッシュの内容をレスポンスとして返した割合 (0.0〜1.0)
+         * 条件付きリクエストで 304 が返った場合もキャッシュヒットに含めます。
+         */
+        public double getCacheHitRate() {
+            long total = calls.get();
+            if (total == 0) return 0;
+            return (double) (cacheHits.get() + notModifiedHits.get()) / total;
+        }
+
+        public long getNewConnectionCount() {
+            return newConnections.get();
+        }
+
+        /**
+         * 通信せずにキャッシュから返した数 (304 は含みません)
+         */
+        public long getCacheHitCount() {
+            return cacheHits.get();
+        }
+
+        /**
+         * 条件付きリクエストで 304 が返り、キャッシュの内容を返した数
+         */
+        public long getNotModifiedCount() {
+            return notModifiedHits.get();
+        }
+
+        public long getCacheMissCount() {
+            return cacheMisses.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "calls=%d connections=%d reuse=%.0f%% cacheHit=%.0f%% (hit=%d cond=%d 304=%d miss=%d)",
+                    calls.get(), newConnections.get(), getConnectionReuseRate() * 100, getCacheHitRate() * 100,
+                    cacheHits.get(), conditionalCacheHits.get(), notModifiedHits.get(), cacheMisses.get());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 失敗が続いている接続先へのリクエストを一時的に止めるサーキットブレーカー
+ *
+ * ■ 状態
+ * - CLOSED: 通常どおりリクエストを送る。連続して失敗した回数が上限に達したら OPEN にする
+ * - OPEN: リクエストを送らない。一定時間たったら HALF_OPEN にする
+ * - HALF_OPEN: 試しに1件だけ送り、成功したら CLOSED、失敗したら再び OPEN にする
+ *
+ * 応答しないサーバーに毎回タイムアウトまで待たされるのを防ぎ、サーバーの回復も妨げないようにします。
+ */
+public final class CircuitBreaker {
+
+    /**
+     * ブレーカーの状態
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clockMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAtMillis;
+    private boolean trialInFlight = false;
+    private int openCount = 0;
+
+    /**
+     * @param failureThreshold OPEN にする連続失敗回数
+     * @param openMillis       OPEN を続ける時間 (ミリ秒)
+     * @param clockMillis      現在時刻 (ミリ秒) を返す関数 (経過時間の計算にのみ使用)
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clockMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clockMillis = clockMillis;
+    }
+
+    /**
+     * リクエストを送ってよいかを判定します
+     * true を返した場合は、結果に応じて {@link #onSuccess()} / {@link #onFailure()} / {@link #onCancel()}
+     * のいずれかを必ず呼び出してください。
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clockMillis.getAsLong() - openedAtMillis < openMillis) {
+                    return false;
+                }
+                // 一定時間たったので、試しに1件だけ送る
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * リクエストが成功した (サーバーが応答した) ことを記録します
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * リクエストが失敗したことを記録します
+     */
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * リクエストが取り消された (成功とも失敗とも言えない) ことを記録します
+     */
+    public synchronized void onCancel() {
+        trialInFlight = false;
+    }
+
+    /**
+     * 現在の状態 (OPEN の時間が過ぎていても、次のリクエストまでは OPEN のまま)
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * OPEN になった回数
+     */
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMillis = clockMillis.getAsLong();
+        consecutiveFailures = 0;
+        openCount++;
+    }
+}
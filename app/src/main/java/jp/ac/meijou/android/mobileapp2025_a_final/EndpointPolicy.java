@@ -0,0 +1,68 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * 接続先 (API) ごとの通信の方針をまとめたクラス
+ * タイムアウト・再試行・サーキットブレーカーの設定を持ち、{@link ResilienceInterceptor} が使用します。
+ */
+public final class EndpointPolicy {
+
+    /**
+     * Open-Meteo (天気予報)
+     * レスポンスが大きく、応答に時間がかかることがあるため、読み込みのタイムアウトを長めにします。
+     */
+    public static final EndpointPolicy OPEN_METEO = new EndpointPolicy("open-meteo", "open-meteo.com",
+            5_000, 10_000, 20_000, 2, 250, 2_000, 5, 30_000);
+
+    /**
+     * HeartRails Express (郵便番号検索)
+     * 入力中の検索にも使うため、遅い応答は早めに打ち切ります。
+     */
+    public static final EndpointPolicy HEARTRAILS = new EndpointPolicy("heartrails", "heartrails.com",
+            3_000, 5_000, 10_000, 2, 200, 1_000, 5, 30_000);
+
+    public final String name;                   // ログ表示用の名前
+    public final String host;                   // 接続先のホスト (サブドメインも含む)
+    public final int connectTimeoutMillis;      // 接続のタイムアウト
+    public final int readTimeoutMillis;         // 読み込み・書き込みのタイムアウト
+    public final long totalBudgetMillis;        // 再試行を含めた全体の制限時間 (超える場合は再試行しない)
+    public final int maxRetries;                // 再試行の最大回数
+    public final long baseBackoffMillis;        // 1回目の再試行までの待ち時間の上限
+    public final long maxBackoffMillis;         // 再試行までの待ち時間の上限
+    public final int failureThreshold;          // サーキットブレーカーを開く連続失敗回数
+    public final long openMillis;               // サーキットブレーカーを開いておく時間
+
+    public EndpointPolicy(String name, String host, int connectTimeoutMillis, int readTimeoutMillis,
+                          long totalBudgetMillis, int maxRetries, long baseBackoffMillis, long maxBackoffMillis,
+                          int failureThreshold, long openMillis) {
+        this.name = name;
+        this.host = host;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.totalBudgetMillis = totalBudgetMillis;
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 指定したホストがこの接続先に該当するかを判定します
+     */
+    public boolean matches(String requestHost) {
+        return requestHost.equals(host) || requestHost.endsWith("." + host);
+    }
+
+    /**
+     * 再試行までの待ち時間を計算します (指数関数的に増やし、ランダムにばらつかせる "full jitter")
+     * 複数の端末が同時に失敗しても、再試行のタイミングが揃ってサーバーに集中しないようにします。
+     *
+     * @param attempt 何回目の再試行か (0始まり)
+     * @param random  0以上1未満の乱数
+     */
+    public long backoffMillis(int attempt, double random) {
+        long cap = baseBackoffMillis << Math.min(attempt, 20);
+        cap = Math.min(maxBackoffMillis, cap);
+        return (long) (cap * random);
+    }
+}
@@ -0,0 +1,405 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Open-Meteo APIのレスポンスを端末内に保存するキャッシュクラス
+ * 緯度・経度を丸めたグリッドと予報日数をキーにして、取得済みの予報データを列形式のバイナリで保持します。
+ *
+ * ■ 有効期限
+ * 予報モデルは1時間ごとに更新されるため、取得した時刻と同じ「時」の間は新しいデータとして扱います。
+ * 時をまたいだデータは「古いデータ」として即時表示に使い、裏で再取得します (stale-while-revalidate)。
+ * 取得から {@link #MAX_STALE_MILLIS} を過ぎたデータは破棄し、ファイルも削除します。
+ *
+ * ■ スレッド
+ * メモリには最近使った {@link #MEMORY_CAPACITY} 件だけを LRU で保持します。
+ * ファイルの読み書きは専用のスレッドで行うため、UIスレッドからは {@link #read(String, Consumer)} を使います。
+ */
+public class ForecastCache {
+
+    private static final String TAG = "ForecastCache";
+
+    // 緯度・経度を丸める単位 (0.01度 ≒ 1km)
+    private static final double GRID_SCALE = 100.0;
+
+    // 予報モデルの更新間隔 (1時間)
+    private static final long MODEL_UPDATE_INTERVAL_MILLIS = 60 * 60 * 1000L;
+
+    // 古いデータとして表示に使ってよい最大の経過時間 (これを超えたら破棄)
+    private static final long MAX_STALE_MILLIS = 24 * MODEL_UPDATE_INTERVAL_MILLIS;
+
+    // メモリに保持する件数 (地点 × 予報日数・ページ)
+    private static final int MEMORY_CAPACITY = 32;
+
+    private static final String DIRECTORY_NAME = "forecast_cache";
+
+    private static ForecastCache instance;
+
+    private final File directory;
+    // ファイルの読み書きを行うスレッド (書き込みの順番を保つため1本)
+    private final Executor diskExecutor;
+    private final LongSupplier clockMillis;
+
+    // 最近使った順に並ぶ LRU (アクセス順の LinkedHashMap)
+    private final Map<String, Entry> memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MEMORY_CAPACITY;
+        }
+    };
+
+    // キャッシュの利用状況を表すカウンター
+    private final AtomicInteger freshHits = new AtomicInteger();
+    private final AtomicInteger staleHits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private volatile long lastHitAgeMillis = -1;
+
+    /**
+     * キャッシュに保存された1件分のデータ
+     */
+    public static class Entry {
+        public final HourlyColumns columns;  // 予報データ
+        public final long fetchedAtMillis;   // 取得時刻 (エポックミリ秒)
+
+        Entry(HourlyColumns columns, long fetchedAtMillis) {
+            this.columns = columns;
+            this.fetchedAtMillis = fetchedAtMillis;
+        }
+
+        /**
+         * 取得から現在までの経過時間を返します
+         */
+        public long ageMillis(long nowMillis) {
+            return Math.max(0, nowMillis - fetchedAtMillis);
+        }
+
+        /**
+         * 予報モデルの更新をまたいでいないか (再取得が不要か) を判定します
+         */
+        public boolean isFresh(long nowMillis) {
+            return fetchedAtMillis / MODEL_UPDATE_INTERVAL_MILLIS == nowMillis / MODEL_UPDATE_INTERVAL_MILLIS
+                    && ageMillis(nowMillis) < MODEL_UPDATE_INTERVAL_MILLIS;
+        }
+    }
+
+    // ファイルの読み書きを呼び出したスレッドで行う (テスト用)
+    ForecastCache(File directory) {
+        this(directory, Runnable::run, System::currentTimeMillis);
+    }
+
+    ForecastCache(File directory, Executor diskExecutor, LongSupplier clockMillis) {
+        this.directory = directory;
+        this.diskExecutor = diskExecutor;
+        this.clockMillis = clockMillis;
+    }
+
+    /**
+     * アプリ全体で共有するキャッシュを取得します
+     * 初回の呼び出しで、期限切れのファイルの削除をバックグラウンドで始めます。
+     */
+    public static synchronized ForecastCache getInstance(Context context) {
+        if (instance == null) {
+            Executor executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "forecast-cache");
+                thread.setDaemon(true);
+                return thread;
+            });
+            instance = new ForecastCache(new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME),
+                    executor, System::currentTimeMillis);
+            executor.execute(instance::deleteExpiredFiles);
+        }
+        return instance;
+    }
+
+    /**
+     * キャッシュのキーを生成します
+     * 近い地点は同じ予報グリッドになるため、緯度・経度を0.01度単位に丸めます。
+     *
+     * @param latitude     緯度
+     * @param longitude    経度
+     * @param forecastDays 予報日数
+     * @return キー文字列 (ファイル名としても使用)
+     */
+    public static String key(double latitude, double longitude, int forecastDays) {
+        return String.format(Locale.US, "%d_%d_%d",
+                Math.round(latitude * GRID_SCALE),
+                Math.round(longitude * GRID_SCALE),
+                forecastDays);
+    }
+
+    /**
+     * 3日目以降をページ単位で取得したデータのキーを生成します
+     *
+     * @param latitude  緯度
+     * @param longitude 経度
+     * @param startDate ページの最初の日
+     * @param days      ページの日数
+     * @return キー文字列 (ファイル名としても使用)
+     */
+    public static String pageKey(double latitude, double longitude, LocalDate startDate, int days) {
+        return String.format(Locale.US, "%d_%d_%d_%d",
+                Math.round(latitude * GRID_SCALE),
+                Math.round(longitude * GRID_SCALE),
+                startDate.toEpochDay(),
+                days);
+    }
+
+    /**
+     * キャッシュからデータを取得します
+     * メモリにない場合はファイルを読むため、UIスレッドからは呼び出さないでください。
+     *
+     * @param key {@link #key(double, double, int)} で生成したキー
+     * @return 保存されたデータ。存在しない、または古すぎる場合は null
+     */
+    public Entry get(String key) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry == null) {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                synchronized (memory) {
+                    // 読み込み中に保存された新しいデータは上書きしない
+                    Entry newer = memory.get(key);
+                    if (newer != null && newer.fetchedAtMillis >= entry.fetchedAtMillis) {
+                        entry = newer;
+                    } else {
+                        memory.put(key, entry);
+                    }
+                }
+            }
+        }
+        return count(key, entry);
+    }
+
+    /**
+     * キャッシュからデータを取得し、コールバックに渡します
+     * メモリにある場合は呼び出したスレッドで、ファイルを読む場合はバックグラウンドスレッドで呼ばれます。
+     *
+     * @param key      {@link #key(double, double, int)} で生成したキー
+     * @param callback 保存されたデータを受け取るコールバック (存在しない、または古すぎる場合は null)
+     */
+    public void read(String key, Consumer<Entry> callback) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry != null) {
+            callback.accept(count(key, entry));
+        } else {
+            diskExecutor.execute(() -> callback.accept(get(key)));
+        }
+    }
+
+    /**
+     * 複数のキーのデータをまとめて取得し、コールバックに渡します
+     * すべてメモリにある場合は呼び出したスレッドで、ファイルを読む場合はバックグラウンドスレッドで呼ばれます。
+     *
+     * @param keys     キー
+     * @param callback キーと同じ順番に並んだデータを受け取るコールバック (存在しない、または古すぎるキーは null)
+     */
+    public void readAll(String[] keys, Consumer<Entry[]> callback) {
+        boolean inMemory = true;
+        synchronized (memory) {
+            for (String key : keys) {
+                if (!memory.containsKey(key)) {
+                    inMemory = false;
+                    break;
+                }
+            }
+        }
+        Runnable task = () -> {
+            Entry[] entries = new Entry[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                entries[i] = get(keys[i]);
+            }
+            callback.accept(entries);
+        };
+        if (inMemory) {
+            task.run();
+        } else {
+            diskExecutor.execute(task);
+        }
+    }
+
+    /**
+     * 取得したデータをキャッシュに保存します
+     * メモリにはすぐに反映し、ファイルへの書き込みはバックグラウンドで行います。
+     *
+     * @param key     キー
+     * @param columns 予報データ
+     */
+    public void put(String key, HourlyColumns columns) {
+        Entry entry = new Entry(columns, clockMillis.getAsLong());
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        diskExecutor.execute(() -> writeToDisk(key, entry));
+    }
+
+    /**
+     * 期限切れのファイルと、書き込み途中で残った一時ファイルを削除します
+     * ファイルを読むため、UIスレッドからは呼び出さないでください。
+     *
+     * @return 削除したファイルの数
+     */
+    int deleteExpiredFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long now = clockMillis.getAsLong();
+        int deleted = 0;
+        for (File file : files) {
+            String name = file.getName();
+            boolean expired;
+            if (name.endsWith(".bin")) {
+                long fetchedAt = readFetchedAt(file);
+                expired = fetchedAt < 0 || now - fetchedAt > MAX_STALE_MILLIS;
+            } else {
+                // 一時ファイルや、知らない形式のファイル
+                expired = true;
+            }
+            if (expired && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // 利用状況を数え、期限切れのデータは破棄する
+    private Entry count(String key, Entry entry) {
+        long now = clockMillis.getAsLong();
+        if (entry == null || entry.ageMillis(now) > MAX_STALE_MILLIS) {
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.remove(key);
+                }
+                diskExecutor.execute(() -> deleteIfExpired(key));
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (entry.isFresh(now)) {
+            freshHits.incrementAndGet();
+        } else {
+            staleHits.incrementAndGet();
+        }
+        lastHitAgeMillis = entry.ageMillis(now);
+        return entry;
+    }
+
+    /**
+     * 再取得が不要だった (ネットワーク通信を省略できた) 回数
+     */
+    public int getFreshHitCount() {
+        return freshHits.get();
+    }
+
+    /**
+     * 古いデータを即時表示に使った回数
+     */
+    public int getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    /**
+     * キャッシュに存在しなかった回数
+     */
+    public int getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * 直近でヒットしたデータの経過時間 (ミリ秒)。まだヒットしていない場合は -1
+     */
+    public long getLastHitAgeMillis() {
+        return lastHitAgeMillis;
+    }
+
+    /**
+     * 利用状況をまとめた文字列を返します (ログ出力用)
+     */
+    public String getStatsSummary() {
+        return String.format(Locale.US, "fresh=%d stale=%d miss=%d lastAge=%ds",
+                getFreshHitCount(), getStaleHitCount(), getMissCount(), lastHitAgeMillis / 1000);
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + ".bin");
+    }
+
+    // 期限切れのファイルを削除する (削除までに新しいデータを書き込んだ場合は残す)
+    private void deleteIfExpired(String key) {
+        File file = fileFor(key);
+        long fetchedAt = readFetchedAt(file);
+        if (fetchedAt >= 0 && clockMillis.getAsLong() - fetchedAt > MAX_STALE_MILLIS) {
+            file.delete();
+        }
+    }
+
+    // ファイルの先頭の取得時刻を読む (読めない場合は -1)
+    private static long readFetchedAt(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readLong();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // ファイル形式: 取得時刻 (long) に続けて HourlyColumns のバイナリ
+    private Entry readFromDisk(String key) {
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            long fetchedAt = in.readLong();
+            return new Entry(HourlyColumns.readFrom(in), fetchedAt);
+        } catch (IOException e) {
+            // 壊れたファイルは削除して、キャッシュなしとして扱う
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        // 書き込み途中のファイルを読まないよう、一時ファイルに書いてから置き換える
+        File tmp = new File(directory, key + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeLong(entry.fetchedAtMillis);
+            entry.columns.writeTo(out);
+        } catch (IOException e) {
+            tmp.delete();
+            Log.w(TAG, "cache write failed: " + key, e);
+            return;
+        }
+        if (!tmp.renameTo(fileFor(key))) {
+            tmp.delete();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 取得した1時間ごとの予報を、地点 (緯度・経度のグリッド) ごとに蓄積するデータベース (SQLite)
+ * {@link ForecastCache} は最新の取得結果だけを保持しますが、こちらは取得のたびに内容を積み重ねるため、
+ * キャッシュが切れた起動直後の表示や、過去の予報の振り返りに使えます。
+ *
+ * ■ 書き込み
+ * 同じ地点・同じ時間帯の保存済みの行と比べ、新しい行と値が変わった行だけを書き込みます (upsert)。
+ * 予報は1時間ごとに更新されますが、多くの時間は値が変わらないため、書き込む行数を減らせます。
+ *
+ * ■ 保存形式
+ * (グリッド, エポック時) を主キーとした WITHOUT ROWID テーブルに、値を整数で保存します ({@link ForecastHistoryRows})。
+ */
+public class ForecastHistoryStore extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "forecast_history.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_HOURLY = "hourly";
+
+    // 緯度・経度を丸める単位 (ForecastCache と同じ 0.01度 ≒ 1km)
+    private static final double GRID_SCALE = 100.0;
+    // 経度方向のグリッド数 (-180.00 〜 180.00)
+    private static final long LONGITUDE_CELLS = 36_001;
+
+    // 保存しておく期間 (これより古い時刻の行は削除する)
+    private static final int RETENTION_HOURS = 90 * 24;
+
+    private static ForecastHistoryStore instance;
+
+    private final File databaseFile;
+
+    // 書き込みの計測値
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsUnchanged = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    ForecastHistoryStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.databaseFile = context.getDatabasePath(DATABASE_NAME);
+    }
+
+    /**
+     * アプリ全体で共有するデータベースを取得します
+     */
+    public static synchronized ForecastHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ForecastHistoryStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_HOURLY + " ("
+                + "cell INTEGER NOT NULL, "
+                + "hour INTEGER NOT NULL, "
+                + "temperature INTEGER, "
+                + "apparent_temperature INTEGER, "
+                + "humidity INTEGER NOT NULL, "
+                + "precipitation_probability INTEGER NOT NULL, "
+                + "wind_speed INTEGER, "
+                + "updated_at INTEGER NOT NULL, "
+                + "PRIMARY KEY (cell, hour)) WITHOUT ROWID");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 履歴はAPIから再取得できるため、形式を変えたときは作り直す
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_HOURLY);
+        onCreate(db);
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        // 開くたびに保存期間を過ぎた行を削除する
+        if (!db.isReadOnly()) {
+            int oldest = ForecastHistoryRows.toHour(System.currentTimeMillis() / 1000) - RETENTION_HOURS;
+            db.delete(TABLE_HOURLY, "hour < ?", new String[]{Integer.toString(oldest)});
+        }
+    }
+
+    /**
+     * 緯度・経度をグリッドの番号に変換します
+     */
+    static long cell(double latitude, double longitude) {
+        long lat = Math.round(latitude * GRID_SCALE) + 9_000;
+        long lon = Math.round(longitude * GRID_SCALE) + 18_000;
+        return lat * LONGITUDE_CELLS + lon;
+    }
+
+    /**
+     * 取得した予報を保存します (新しい行と値が変わった行だけを書き込みます)
+     * ディスクに書き込むため、UIスレッドからは呼び出さないでください。
+     *
+     * @return 書き込んだ行数
+     */
+    public int record(double latitude, double longitude, HourlyColumns columns) {
+        if (columns.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long cell = cell(latitude, longitude);
+        ForecastHistoryRows rows = ForecastHistoryRows.encode(columns);
+
+        SQLiteDatabase db = getWritableDatabase();
+        int[] changed;
+        db.beginTransaction();
+        try {
+            ForecastHistoryRows existing = queryRows(db, cell, rows.hour[0], rows.hour[rows.size - 1]);
+            changed = rows.changedIndices(existing);
+            if (changed.length > 0) {
+                try (SQLiteStatement upsert = db.compileStatement("INSERT INTO " + TABLE_HOURLY
+                        + " (cell, hour, temperature, apparent_temperature, humidity,"
+                        + " precipitation_probability, wind_speed, updated_at)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)"
+                        + " ON CONFLICT (cell, hour) DO UPDATE SET"
+                        + " temperature = excluded.temperature,"
+                        + " apparent_temperature = excluded.apparent_temperature,"
+                        + " humidity = excluded.humidity,"
+                        + " precipitation_probability = excluded.precipitation_probability,"
+                        + " wind_speed = excluded.wind_speed,"
+                        + " updated_at = excluded.updated_at")) {
+                    long now = System.currentTimeMillis() / 1000;
+                    for (int i : changed) {
+                        upsert.bindLong(1, cell);
+                        upsert.bindLong(2, rows.hour[i]);
+                        bindValue(upsert, 3, rows.temperature[i]);
+                        bindValue(upsert, 4, rows.apparentTemperature[i]);
+                        upsert.bindLong(5, rows.humidity[i]);
+                        upsert.bindLong(6, rows.precipitationProbability[i]);
+                        bindValue(upsert, 7, rows.windSpeed[i]);
+                        upsert.bindLong(8, now);
+                        upsert.executeInsert();
+                    }
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        rowsWritten.addAndGet(changed.length);
+        rowsUnchanged.addAndGet(rows.size - changed.length);
+        writeNanos.addAndGet(System.nanoTime() - start);
+        return changed.length;
+    }
+
+    /**
+     * 指定した時間帯の予報を読み込みます
+     * ディスクから読み込むため、UIスレッドからは呼び出さないでください。
+     *
+     * @param fromEpochSeconds 開始時刻 (エポック秒、この時刻を含む)
+     * @param toEpochSeconds   終了時刻 (エポック秒、この時刻を含む)
+     * @return 保存されている時間だけを昇順に並べた予報データ (なければ空)
+     */
+    public HourlyColumns query(double latitude, double longitude, long fromEpochSeconds, long toEpochSeconds) {
+        ForecastHistoryRows rows = queryRows(getReadableDatabase(), cell(latitude, longitude),
+                ForecastHistoryRows.toHour(fromEpochSeconds), ForecastHistoryRows.toHour(toEpochSeconds));
+        return rows.size == 0 ? HourlyColumns.EMPTY : rows.decode(OpenMeteoApi.UTC_OFFSET_SECONDS);
+    }
+
+    /**
+     * 書き込んだ行数
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    /**
+     * 値が変わらなかったため書き込みを省略した行数
+     */
+    public long getRowsUnchanged() {
+        return rowsUnchanged.get();
+    }
+
+    /**
+     * 書き込み速度 (1秒あたりに処理した行数、省略した行を含む)。まだ書き込んでいない場合は 0
+     */
+    public double getRowsPerSecond() {
+        long nanos = writeNanos.get();
+        if (nanos == 0) {
+            return 0;
+        }
+        return (rowsWritten.get() + rowsUnchanged.get()) * 1e9 / nanos;
+    }
+
+    /**
+     * データベースファイルの大きさ (バイト、WALファイルを含む)
+     */
+    public long getDatabaseSizeBytes() {
+        File wal = new File(databaseFile.getPath() + "-wal");
+        return databaseFile.length() + wal.length();
+    }
+
+    /**
+     * 利用状況をまとめた文字列を返します (ログ出力用)
+     */
+    public String getStatsSummary() {
+        return String.format(Locale.US, "written=%d unchanged=%d %.0f rows/s size=%dKB",
+                getRowsWritten(), getRowsUnchanged(), getRowsPerSecond(), getDatabaseSizeBytes() / 1024);
+    }
+
+    // 1地点の指定した時間帯の行を時刻の昇順に読み込む
+    private static ForecastHistoryRows queryRows(SQLiteDatabase db, long cell, int fromHour, int toHour) {
+        try (Cursor cursor = db.rawQuery("SELECT hour, temperature, apparent_temperature, humidity,"
+                        + " precipitation_probability, wind_speed FROM " + TABLE_HOURLY
+                        + " WHERE cell = ? AND hour BETWEEN ? AND ? ORDER BY hour",
+                new String[]{Long.toString(cell), Integer.toString(fromHour), Integer.toString(toHour)})) {
+            int n = cursor.getCount();
+            int[] hour = new int[n];
+            int[] temperature = new int[n];
+            int[] apparent = new int[n];
+            int[] humidity = new int[n];
+            int[] precipitation = new int[n];
+            int[] wind = new int[n];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                hour[i] = cursor.getInt(0);
+                temperature[i] = readValue(cursor, 1);
+                apparent[i] = readValue(cursor, 2);
+                humidity[i] = cursor.getInt(3);
+                precipitation[i] = cursor.getInt(4);
+                wind[i] = readValue(cursor, 5);
+            }
+            return new ForecastHistoryRows(hour, temperature, apparent, humidity, precipitation, wind);
+        }
+    }
+
+    private static void bindValue(SQLiteStatement statement, int index, int value) {
+        if (value == ForecastHistoryRows.MISSING) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value);
+        }
+    }
+
+    private static int readValue(Cursor cursor, int column) {
+        return cursor.isNull(column) ? ForecastHistoryRows.MISSING : cursor.getInt(column);
+    }
+}
@@ -0,0 +1,315 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 3日目以降の予報を、リストのスクロールに合わせてページ単位で取得・分析するクラス
+ *
+ * 最初の表示 (今日・明日) はこれまでどおり2日分だけを取得・分析し、予報の日数の設定に関係なく
+ * 同じ時間で表示します。それ以降の日は、リストの末尾に近づいたときに {@link #PAGE_DAYS} 日ずつ取得し、
+ * バックグラウンドでスコアと表示文字列を作成してから末尾に追加します。
+ * スクロールしない限り3日目以降は取得しないため、日数を増やしてもメモリと通信量は増えません。
+ *
+ * 各ページの最初の日は、表示中の最初のページ (今日・明日) の翌日から数えます。
+ * 日付が変わった後に最初のページを作り直した場合に重なる日は、表示するときに取り除きます。
+ *
+ * UIスレッドから呼び出してください。結果も UIスレッドで {@link Callback} に通知します。
+ */
+public class ForecastPager {
+
+    // 1回に読み込む日数
+    public static final int PAGE_DAYS = 3;
+
+    // リストの末尾まで残り何項目になったら次のページを読み込むか
+    private static final int LOAD_AHEAD_ITEMS = 24;
+
+    /**
+     * ページの更新を受け取るコールバック (UIスレッドで呼ばれます)
+     */
+    public interface Callback {
+        /**
+         * リストに表示するページが変わったときに呼ばれます
+         */
+        void onPages(ForecastPageList pages);
+
+        /**
+         * 3日目以降の読み込み、または分析に失敗したときに呼ばれます (次に地点・日数を変えるまで自動では読み込みません)
+         */
+        void onPageFailure(String message);
+    }
+
+    // 読み込みを始めた1ページ分の状態
+    private static final class PageSlot {
+        final long startEpochDay;   // 最初の日 (1970-01-01からの日数)
+        final int days;             // 日数
+        HourlyColumns columns;      // 予報データ (取得前は null)
+        ForecastPage scored;        // 分析済みのページ (まだ一度も分析していない場合は null)
+        boolean dirty;              // 分析し直す必要があるか (再分析までは前の結果を表示する)
+
+        PageSlot(long startEpochDay, int days) {
+            this.startEpochDay = startEpochDay;
+            this.days = days;
+        }
+
+        long endEpochDay() {
+            return startEpochDay + days;
+        }
+    }
+
+    private final ForecastRepository repository;
+    private final Callback callback;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 追加したページの分析 (最初の2日分の分析とは別に、新しい依頼で古い依頼を取り消す)
+    private final ForecastPipeline pipeline = new ForecastPipeline();
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    private double latitude;
+    private double longitude;
+    private int horizonDays = OpenMeteoApi.FORECAST_DAYS;
+    private ScoringEngine scoringEngine;
+
+    // 最初の2日分のページ (分析結果から作成)
+    private ForecastPage firstPage;
+    // 読み込みを始めたページ (日付順)
+    private final List<PageSlot> slots = new ArrayList<>();
+
+    // 完了していないページの取得
+    private final List<ForecastRepository.Handle> pageLoads = new ArrayList<>();
+    private boolean loading = false;
+    private boolean failed = false;
+    // 地点・日数を変えるたびに増やし、古い取得の結果を破棄する
+    private int generation = 0;
+
+    public ForecastPager(ForecastRepository repository, Callback callback) {
+        this.repository = repository;
+        this.callback = callback;
+    }
+
+    /**
+     * 新しい地点の表示を始めます (読み込み済みのページは破棄します)
+     *
+     * @param horizonDays   予報の日数 (今日を含む)
+     * @param scoringEngine スコアの計算に使うエンジン
+     */
+    public void reset(double latitude, double longitude, int horizonDays, ScoringEngine scoringEngine) {
+        clearPages();
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.horizonDays = horizonDays;
+        this.scoringEngine = scoringEngine;
+        this.firstPage = null;
+    }
+
+    /**
+     * 予報の日数を変更します
+     * 減らした場合は範囲外のページを取り除き、増やした場合は以降のスクロールで読み込みます。
+     */
+    public void setHorizonDays(int horizonDays) {
+        this.horizonDays = horizonDays;
+        // 取得中のページは日数が変わる場合があるため、取り消して読み込み直す
+        cancelLoads();
+        if (firstPage != null) {
+            // 範囲に収まり、新しい日数でも同じ期間を取得するページだけを残す
+            long end = horizonEndEpochDay();
+            int keep = 0;
+            while (keep < slots.size()) {
+                PageSlot slot = slots.get(keep);
+                boolean sameRange = slot.days == PAGE_DAYS || slot.endEpochDay() == end;
+                if (slot.columns == null || slot.endEpochDay() > end || !sameRange) {
+                    break;
+                }
+                keep++;
+            }
+            slots.subList(keep, slots.size()).clear();
+        }
+        failed = false;
+        scoreNow();
+    }
+
+    /**
+     * 採点基準を変更し、読み込み済みのページを再分析します
+     */
+    public void setScoringEngine(ScoringEngine scoringEngine) {
+        this.scoringEngine = scoringEngine;
+        for (PageSlot slot : slots) {
+            slot.dirty = slot.columns != null;
+        }
+        scoreNow();
+    }
+
+    /**
+     * 最初の2日分の分析結果を反映します (追加済みのページはそのまま残します)
+     */
+    public void setFirstPage(ForecastResult result) {
+        firstPage = ForecastPage.fromResult(result);
+        publish();
+    }
+
+    /**
+     * リストがスクロールされたときに呼び出し、末尾に近づいていれば次のページを読み込みます
+     *
+     * @param lastVisiblePosition 表示中の最後の項目の位置
+     * @param itemCount           リストの項目の総数
+     */
+    public void onScrolled(int lastVisiblePosition, int itemCount) {
+        if (firstPage == null || firstPage.getDayCount() == 0 || loading || failed
+                || nextStartEpochDay() >= horizonEndEpochDay()) {
+            return;
+        }
+        if (itemCount - 1 - lastVisiblePosition > LOAD_AHEAD_ITEMS) {
+            return;
+        }
+        loadNextPage();
+    }
+
+    /**
+     * 取得と分析を取り消します (画面の終了時に呼び出す)
+     */
+    public void shutdown() {
+        cancelLoads();
+        pipeline.shutdown();
+    }
+
+    // 次に読み込むページの最初の日 (最初のページ、または最後に読み込みを始めたページの翌日)
+    private long nextStartEpochDay() {
+        return slots.isEmpty() ? firstPage.getEndEpochDay() : slots.get(slots.size() - 1).endEpochDay();
+    }
+
+    // 予報の日数の最後の日の翌日 (最初のページの最初の日 = 今日から数える)
+    private long horizonEndEpochDay() {
+        return firstPage.getStartEpochDay() + Math.min(horizonDays, OpenMeteoApi.MAX_FORECAST_DAYS);
+    }
+
+    private void loadNextPage() {
+        long startDay = nextStartEpochDay();
+        final PageSlot slot = new PageSlot(startDay, (int) Math.min(PAGE_DAYS, horizonEndEpochDay() - startDay));
+        final int requestGeneration = generation;
+        slots.add(slot);
+        loading = true;
+        metrics.increment("pager.page_load");
+        pageLoads.add(repository.loadDays(latitude, longitude, LocalDate.ofEpochDay(slot.startEpochDay), slot.days,
+                new ForecastRepository.Listener() {
+                    @Override
+                    public void onForecast(HourlyColumns hourly, boolean fromCache) {
+                        // キャッシュが古い場合は、キャッシュと最新のデータで2回届く (2回目で置き換える)
+                        mainHandler.post(() -> {
+                            pruneFinishedLoads();
+                            if (requestGeneration != generation || !slots.contains(slot)) {
+                                return;
+                            }
+                            if (slot.columns == null) {
+                                loading = false;
+                            }
+                            slot.columns = hourly;
+                            slot.dirty = true;
+                            scoreNow();
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(String message) {
+                        mainHandler.post(() -> {
+                            pruneFinishedLoads();
+                            if (requestGeneration != generation || !slots.contains(slot)) {
+                                return;
+                            }
+                            // キャッシュを表示済みのページは、そのまま残す
+                            if (slot.columns == null) {
+                                slots.remove(slot);
+                                loading = false;
+                                failed = true;
+                                callback.onPageFailure(message);
+                            }
+                        });
+                    }
+                }));
+    }
+
+    // 分析していないページをまとめてバックグラウンドで分析する
+    // 新しい依頼は古い依頼を取り消すが、その時点で未分析のページをすべて含めるため取りこぼさない
+    private void scoreNow() {
+        final List<PageSlot> targets = new ArrayList<>();
+        final List<HourlyColumns> columns = new ArrayList<>();
+        for (PageSlot slot : slots) {
+            if (slot.dirty && slot.columns != null) {
+                targets.add(slot);
+                columns.add(slot.columns);
+            }
+        }
+        if (targets.isEmpty()) {
+            publish();
+            return;
+        }
+        final ScoringEngine engine = scoringEngine;
+        final int requestGeneration = generation;
+        pipeline.submit(() -> {
+            ForecastPage[] pages = new ForecastPage[columns.size()];
+            MetricsRegistry.Span scoreSpan = metrics.startSpan(MetricsRegistry.STAGE_SCORE);
+            try {
+                for (int j = 0; j < pages.length; j++) {
+                    pages[j] = ForecastPage.score(columns.get(j), engine);
+                }
+            } finally {
+                scoreSpan.close();
+            }
+            return pages;
+        }, pages -> {
+            if (requestGeneration != generation || engine != scoringEngine) {
+                return;
+            }
+            for (int j = 0; j < pages.length; j++) {
+                PageSlot slot = targets.get(j);
+                // 分析中に置き換わったページは、次の依頼の結果を使う
+                if (slot.columns == columns.get(j)) {
+                    slot.scored = pages[j];
+                    slot.dirty = false;
+                }
+            }
+            publish();
+        }, message -> {
+            if (requestGeneration == generation) {
+                callback.onPageFailure(message);
+            }
+        });
+    }
+
+    // 最初の2日分と、続けて分析済みのページを、日付が重ならないようにリストにして通知する
+    private void publish() {
+        if (firstPage == null) {
+            return;
+        }
+        List<ForecastPage> pages = new ArrayList<>(slots.size());
+        for (PageSlot slot : slots) {
+            pages.add(slot.scored);
+        }
+        callback.onPages(ForecastPageList.contiguous(firstPage, pages));
+    }
+
+    // 完了した取得のハンドルを取り除く
+    private void pruneFinishedLoads() {
+        pageLoads.removeIf(ForecastRepository.Handle::isDone);
+    }
+
+    private void clearPages() {
+        cancelLoads();
+        pipeline.cancel();
+        slots.clear();
+        failed = false;
+    }
+
+    private void cancelLoads() {
+        generation++;
+        for (ForecastRepository.Handle handle : pageLoads) {
+            handle.cancel();
+        }
+        pageLoads.clear();
+        // 取得中だったページは取り除く (次のスクロールで読み込み直す)
+        slots.removeIf(slot -> slot.columns == null);
+        loading = false;
+    }
+}
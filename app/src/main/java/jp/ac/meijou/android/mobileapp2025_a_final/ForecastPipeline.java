@@ -0,0 +1,117 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 天気予報の分析 (スコア計算・ランキング・文章作成) をバックグラウンドで行うクラス
+ * UIスレッドには表示の準備ができた {@link ForecastResult} だけを渡します。
+ *
+ * 新しい分析を依頼すると、実行中または待機中の古い分析は取り消され、結果は破棄されます。
+ * 分析中に例外が発生した場合は、スタックトレースを出力してから UIスレッドで失敗を通知します。
+ * 画面の終了時は {@link #shutdown()} を呼び出してください。
+ */
+public class ForecastPipeline {
+
+    private static final String TAG = "ForecastPipeline";
+
+    // 分析に失敗したときに画面に表示するメッセージ
+    public static final String FAILURE_MESSAGE = "予報の分析に失敗しました";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "forecast-pipeline");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    // 最新の依頼を識別する番号 (UIスレッドからのみ更新)
+    private int generation = 0;
+    private Future<?> pending;
+    private boolean shutdown = false;
+
+    /**
+     * 予報データの分析を依頼します (UIスレッドから呼び出す)
+     *
+     * @param hourly   分析する予報データ
+     * @param analyzer 分析に使う採点基準を設定済みのアナライザー
+     * @param callback UIスレッドで結果を受け取る処理。取り消された場合は呼ばれません
+     * @param failure  UIスレッドで失敗のメッセージを受け取る処理。取り消された場合は呼ばれません
+     */
+    public void submit(HourlyColumns hourly, ForecastAnalyzer analyzer, Consumer<ForecastResult> callback,
+                       Consumer<String> failure) {
+        submit(() -> analyzer.analyze(hourly, System.currentTimeMillis() / 1000), callback, failure);
+    }
+
+    /**
+     * 任意の分析処理を依頼します (UIスレッドから呼び出す)
+     * 複数地点の比較など、{@link ForecastResult} 以外の結果を返す分析に使います。
+     * 他の依頼と同じく、新しい依頼が来ると取り消されます。
+     *
+     * @param task     バックグラウンドで実行する処理
+     * @param callback UIスレッドで結果を受け取る処理。取り消された場合は呼ばれません
+     * @param failure  UIスレッドで失敗のメッセージを受け取る処理。取り消された場合は呼ばれません
+     */
+    public <T> void submit(Supplier<T> task, Consumer<T> callback, Consumer<String> failure) {
+        if (shutdown) {
+            return;
+        }
+        cancel();
+        final int requestGeneration = generation;
+        pending = executor.submit(() -> {
+            T result;
+            try {
+                result = task.get();
+            } catch (RuntimeException e) {
+                // Future に閉じ込められた例外は誰にも見えないため、ここで出力して画面に通知する
+                Log.w(TAG, "analysis failed", e);
+                metrics.increment("pipeline.failure");
+                deliver(requestGeneration, () -> failure.accept(FAILURE_MESSAGE));
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            deliver(requestGeneration, () -> callback.accept(result));
+        });
+    }
+
+    // UIスレッドで通知する (待っている間に新しい依頼が来た、または画面が終了した場合は破棄)
+    private void deliver(int requestGeneration, Runnable notify) {
+        mainHandler.post(() -> {
+            if (!shutdown && requestGeneration == generation) {
+                pending = null;
+                notify.run();
+            }
+        });
+    }
+
+    /**
+     * 実行中・待機中の分析を取り消します (UIスレッドから呼び出す)
+     */
+    public void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    /**
+     * 分析を取り消し、バックグラウンドスレッドを終了します (画面の終了時に呼び出す)
+     */
+    public void shutdown() {
+        cancel();
+        shutdown = true;
+        mainHandler.removeCallbacksAndMessages(null);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,156 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最後に使った地点と保存した地点の天気予報を、バックグラウンドで定期的に先読みするワーカー
+ * 取得したデータは {@link ForecastCache} に保存するため、アプリを開いたときに通信を待たずに表示できます。
+ *
+ * ■ 実行間隔
+ * 予報モデルは1時間ごとに更新されるため、毎時の少し後 (更新の反映を待つため5分後) に合わせて1時間ごとに実行します。
+ * 電池残量が少ないときや、従量制のネットワークの場合は実行しません。
+ */
+public class ForecastPrefetchWorker extends Worker {
+
+    private static final String TAG = "ForecastPrefetchWorker";
+    private static final String UNIQUE_WORK_NAME = "forecast_prefetch";
+
+    private static final long INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    // 毎時の何分後に実行するか
+    private static final long OFFSET_AFTER_HOUR_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    // 最後に使った地点と、先読みの実行結果の保存先
+    private static final String PREFS_PREFETCH = "forecast_prefetch";
+    private static final String KEY_LAST_LATITUDE = "last_latitude";
+    private static final String KEY_LAST_LONGITUDE = "last_longitude";
+    private static final String KEY_LAST_REFRESH_MILLIS = "last_refresh_millis";
+    private static final String KEY_LAST_DURATION_MILLIS = "last_duration_millis";
+    private static final String KEY_LAST_FETCHED_COUNT = "last_fetched_count";
+
+    public ForecastPrefetchWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * 定期的な先読みを登録します
+     * 既に登録済みの場合は何もしません (次回の実行時刻は変わりません)。
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        // 最初の実行を次の「毎時5分」に合わせる
+        long now = System.currentTimeMillis();
+        long nextRun = (now / INTERVAL_MILLIS + 1) * INTERVAL_MILLIS + OFFSET_AFTER_HOUR_MILLIS;
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                ForecastPrefetchWorker.class, INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                .setConstraints(constraints)
+                .setInitialDelay(nextRun - now, TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * 最後に使った地点を記録します (次回以降の先読みの対象になります)
+     */
+    public static void rememberLastLocation(Context context, double latitude, double longitude) {
+        prefs(context).edit()
+                .putString(KEY_LAST_LATITUDE, Double.toString(latitude))
+                .putString(KEY_LAST_LONGITUDE, Double.toString(longitude))
+                .apply();
+    }
+
+    /**
+     * 最後に先読みが完了してからの経過時間 (ミリ秒)。まだ完了していない場合は -1
+     */
+    public static long getLastRefreshAgeMillis(Context context) {
+        long last = prefs(context).getLong(KEY_LAST_REFRESH_MILLIS, -1);
+        return last < 0 ? -1 : Math.max(0, System.currentTimeMillis() - last);
+    }
+
+    /**
+     * 最後の先読みにかかった時間 (ミリ秒)。まだ完了していない場合は -1
+     */
+    public static long getLastRefreshDurationMillis(Context context) {
+        return prefs(context).getLong(KEY_LAST_DURATION_MILLIS, -1);
+    }
+
+    /**
+     * 先読みの実行結果をまとめた文字列を返します (ログ出力用)
+     */
+    public static String getStatsSummary(Context context) {
+        return String.format(Locale.US, "lastRefreshAge=%ds duration=%dms fetched=%d",
+                getLastRefreshAgeMillis(context) / 1000, getLastRefreshDurationMillis(context),
+                prefs(context).getInt(KEY_LAST_FETCHED_COUNT, 0));
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        long startMillis = System.currentTimeMillis();
+
+        // 対象の地点 (最後に使った地点と保存した地点)
+        List<SavedLocation> targets = new ArrayList<>();
+        SharedPreferences prefs = prefs(context);
+        String lastLatitude = prefs.getString(KEY_LAST_LATITUDE, null);
+        String lastLongitude = prefs.getString(KEY_LAST_LONGITUDE, null);
+        if (lastLatitude != null && lastLongitude != null) {
+            targets.add(new SavedLocation("", Double.parseDouble(lastLatitude), Double.parseDouble(lastLongitude)));
+        }
+        targets.addAll(new SavedLocationStore(context).getAll());
+
+        double[] latitudes = new double[targets.size()];
+        double[] longitudes = new double[targets.size()];
+        for (int i = 0; i < targets.size(); i++) {
+            latitudes[i] = targets.get(i).latitude;
+            longitudes[i] = targets.get(i).longitude;
+        }
+
+        // キャッシュが最新でない地点だけを、1回のリクエストでまとめて取得する
+        int fetchedCount;
+        try {
+            fetchedCount = ForecastRepository.getInstance(context).refreshAll(latitudes, longitudes);
+        } catch (IOException e) {
+            Log.w(TAG, "prefetch failed", e);
+            return Result.retry();
+        }
+
+        long endMillis = System.currentTimeMillis();
+        prefs.edit()
+                .putLong(KEY_LAST_REFRESH_MILLIS, endMillis)
+                .putLong(KEY_LAST_DURATION_MILLIS, endMillis - startMillis)
+                .putInt(KEY_LAST_FETCHED_COUNT, fetchedCount)
+                .apply();
+        // ログは出さず、他の段階と同じく計測結果として残す
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        metrics.histogram("prefetch.run").record(endMillis - startMillis);
+        metrics.add("prefetch.fetched", fetchedCount);
+        return Result.success();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_PREFETCH, Context.MODE_PRIVATE);
+    }
+}
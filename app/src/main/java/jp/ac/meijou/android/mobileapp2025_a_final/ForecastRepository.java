@@ -0,0 +1,774 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.squareup.moshi.JsonDataException;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+/**
+ * 天気予報データの取得を画面から切り離して管理するクラス (アプリ全体で共有)
+ * キャッシュの確認・Open-Meteo APIへのリクエスト・キャッシュへの保存をまとめて行います。
+ *
+ * 位置が決まった時点で {@link #prefetch(double, double)} を呼ぶと、画面の遷移を待たずに取得を始めます。
+ * その後 {@link #load(double, double, Listener)} を呼ぶと、実行中の取得に合流するか、
+ * 取得済みのデータをそのまま受け取れます。
+ * 3日目以降の予報は {@link #loadDays(double, double, LocalDate, int, Listener)} で期間を指定して取得します。
+ *
+ * ■ 同じ地点の取得の共有 (single-flight)
+ * 取得は (緯度・経度のグリッド, 予報日数または期間) のキーごとに1つだけ実行し、同じキーの取得はその結果を共有します。
+ * リクエストの条件 (取得する項目など) は {@link OpenMeteoApi} で固定のため、キーには含めません。
+ * 画面が待つのをやめて誰も待っていない取得は通信を取り消します (先読みで始めた取得はキャッシュのため続けます)。
+ * 取得には開始順の番号を付け、古い取得の結果が新しい取得の結果をキャッシュ上で上書きしないようにします。
+ *
+ * キャッシュが古いために再取得する場合は、HTTPキャッシュの保存期間 (サーバーのヘッダーがない場合は15分) に
+ * 関係なくサーバーに確認し ({@link #REVALIDATE})、同じ古いレスポンスを受け取らないようにします。
+ *
+ * 取得したデータは {@link ForecastHistoryStore} にも蓄積し、キャッシュが切れていても
+ * 通信を待つ間は蓄積済みの予報を表示できるようにします。
+ */
+public class ForecastRepository {
+
+    private static final String TAG = "ForecastRepository";
+
+    private static ForecastRepository instance;
+
+    // 古いキャッシュを取り直すときに、HTTPキャッシュの保存期間内でもサーバーに確認させる指定
+    private static final CacheControl REVALIDATE = new CacheControl.Builder().noCache().build();
+
+    private final OkHttpClient client;
+    private final ForecastCache cache;
+    private final int forecastDays;
+    // 予報の履歴 (null の場合は蓄積しない)
+    private final ForecastHistoryStore history;
+    // 履歴の読み書きを行うスレッド
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+
+    // 取得中の地点 (キャッシュのキー) と、その結果を待っているリスナー
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+
+    // 取得の開始順の番号 (synchronized の中で更新)
+    private long nextVersion = 0;
+    // キーごとの、キャッシュに保存した結果の番号
+    private final Map<String, Long> storedVersions = new HashMap<>();
+
+    // 処理時間の記録先
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    // 利用状況を表すカウンター
+    private final AtomicInteger prefetchStarts = new AtomicInteger();
+    private final AtomicInteger networkCalls = new AtomicInteger();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private final AtomicInteger staleDropped = new AtomicInteger();
+
+    /**
+     * 1地点の取得結果を受け取るリスナー
+     * メモリ上のキャッシュのデータは呼び出したスレッドで、キャッシュのファイル・履歴のデータと通信の結果は
+     * バックグラウンドスレッドで呼ばれます。
+     */
+    public interface Listener {
+        /**
+         * 予報データを取得したときに呼ばれます
+         * キャッシュが古い場合は、キャッシュのデータと最新のデータで2回呼ばれます。
+         *
+         * @param hourly    予報データ
+         * @param fromCache キャッシュ (または履歴) のデータの場合は true
+         */
+        void onForecast(HourlyColumns hourly, boolean fromCache);
+
+        /**
+         * 最新のデータを取得できなかったときに呼ばれます
+         *
+         * @param message 画面に表示するメッセージ
+         */
+        void onFailure(String message);
+    }
+
+    /**
+     * 複数地点の取得結果を受け取るリスナー (バックグラウンドスレッドまたは呼び出したスレッドで呼ばれます)
+     */
+    public interface MultiListener {
+        /**
+         * @param locations 指定した順番に並んだ地点ごとの予報データ
+         */
+        void onForecasts(HourlyColumns[] locations);
+
+        void onFailure(String message);
+    }
+
+    /**
+     * 取得を待つのをやめるためのハンドル
+     */
+    public static final class Handle {
+        private final Runnable onCancel;
+        private final BooleanSupplier done;
+
+        Handle(Runnable onCancel, BooleanSupplier done) {
+            this.onCancel = onCancel;
+            this.done = done;
+        }
+
+        /**
+         * 結果を受け取らないようにします
+         * 他に待っている画面がなければ通信も取り消します (先読みした結果はキャッシュには保存されます)。
+         */
+        public void cancel() {
+            onCancel.run();
+        }
+
+        /**
+         * 取得が完了した (最後の通知を送った) か、取り消したかを返します
+         */
+        public boolean isDone() {
+            return done.getAsBoolean();
+        }
+    }
+
+    private static final Handle COMPLETED = new Handle(() -> {
+    }, () -> true);
+
+    // 1地点の取得中の状態
+    private static class InFlight {
+        final long version;         // 開始順の番号
+        final boolean speculative;  // 先読みで始めた取得か
+        final List<Listener> listeners = new ArrayList<>();
+        Call call;
+        boolean completed = false;
+
+        InFlight(long version, boolean speculative) {
+            this.version = version;
+            this.speculative = speculative;
+        }
+    }
+
+    ForecastRepository(OkHttpClient client, ForecastCache cache, int forecastDays) {
+        this(client, cache, forecastDays, null);
+    }
+
+    ForecastRepository(OkHttpClient client, ForecastCache cache, int forecastDays, ForecastHistoryStore history) {
+        this.client = client;
+        this.cache = cache;
+        this.forecastDays = forecastDays;
+        this.history = history;
+    }
+
+    /**
+     * アプリ全体で共有するリポジトリを取得します
+     */
+    public static synchronized ForecastRepository getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new ForecastRepository(AppHttpClient.get(app), ForecastCache.getInstance(app),
+                    OpenMeteoApi.FORECAST_DAYS, ForecastHistoryStore.getInstance(app));
+        }
+        return instance;
+    }
+
+    /**
+     * 画面の表示を待たずに、指定した地点の予報の取得を始めます
+     * キャッシュが最新の場合や、既に取得中の場合は何もしません。
+     */
+    public void prefetch(double latitude, double longitude) {
+        String key = ForecastCache.key(latitude, longitude, forecastDays);
+        cache.read(key, cached -> {
+            if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+                return;
+            }
+            synchronized (this) {
+                if (inFlight.containsKey(key)) {
+                    coalesced.incrementAndGet();
+                    return;
+                }
+                prefetchStarts.incrementAndGet();
+                start(key, forecastUrl(latitude, longitude), latitude, longitude, true, cached != null);
+            }
+        });
+    }
+
+    /**
+     * 指定した地点の予報を取得します
+     * キャッシュがあればすぐに通知し、古い (または存在しない) 場合は最新のデータを取得します。
+     * キャッシュがない場合は、通信を待つ間に履歴に蓄積済みの予報があれば先に通知します。
+     * 先読みなどで取得中の場合は、新しいリクエストを送らずにその結果を待ちます。
+     *
+     * @return 結果を受け取るのをやめるためのハンドル
+     */
+    public Handle load(double latitude, double longitude, Listener listener) {
+        return load(ForecastCache.key(latitude, longitude, forecastDays), forecastUrl(latitude, longitude),
+                latitude, longitude, true, listener);
+    }
+
+    /**
+     * 指定した地点の、指定した期間の予報を取得します (3日目以降をページ単位で読み込む場合に使用)
+     * キャッシュ・取得中のリクエストへの合流は {@link #load(double, double, Listener)} と同じです。
+     * 履歴からの先行表示は行いません。
+     *
+     * @param startDate 最初の日 (日本時間)
+     * @param days      日数
+     * @return 結果を受け取るのをやめるためのハンドル
+     */
+    public Handle loadDays(double latitude, double longitude, LocalDate startDate, int days, Listener listener) {
+        String url = OpenMeteoApi.forecastUrl(Double.toString(latitude), Double.toString(longitude),
+                startDate, startDate.plusDays(days - 1));
+        return load(ForecastCache.pageKey(latitude, longitude, startDate, days), url,
+                latitude, longitude, false, listener);
+    }
+
+    private Handle load(String key, String url, double latitude, double longitude, boolean useHistory,
+                        Listener listener) {
+        // キャッシュのファイルはバックグラウンドで読み、読み終えてから取得を始める
+        AtomicReference<Handle> started = new AtomicReference<>();
+        AtomicBoolean cancelledBeforeStart = new AtomicBoolean();
+        cache.read(key, cached -> {
+            if (cancelledBeforeStart.get()) {
+                return;
+            }
+            Handle handle = load(key, url, latitude, longitude, useHistory, listener, cached);
+            started.set(handle);
+            if (cancelledBeforeStart.get()) {
+                handle.cancel();
+            }
+        });
+        return new Handle(() -> {
+            cancelledBeforeStart.set(true);
+            Handle handle = started.get();
+            if (handle != null) {
+                handle.cancel();
+            }
+        }, () -> {
+            Handle handle = started.get();
+            return handle != null ? handle.isDone() : cancelledBeforeStart.get();
+        });
+    }
+
+    private Handle load(String key, String url, double latitude, double longitude, boolean useHistory,
+                        Listener listener, ForecastCache.Entry cached) {
+        // キャッシュがあれば通信を待たずにすぐ通知する
+        if (cached != null) {
+            listener.onForecast(cached.columns, true);
+            // 最新のデータであれば再取得は不要
+            if (cached.isFresh(System.currentTimeMillis())) {
+                metrics.increment("forecast.cache_fresh");
+                return COMPLETED;
+            }
+            metrics.increment("forecast.cache_stale");
+        } else {
+            metrics.increment("forecast.cache_miss");
+        }
+
+        InFlight flight;
+        synchronized (this) {
+            flight = inFlight.get(key);
+            if (flight != null) {
+                // 先読みなどで取得中のリクエストに合流する
+                coalesced.incrementAndGet();
+            } else {
+                flight = start(key, url, latitude, longitude, false, cached != null);
+            }
+            flight.listeners.add(listener);
+        }
+        final InFlight joined = flight;
+        if (cached == null && useHistory && history != null) {
+            loadFromHistory(latitude, longitude, joined, listener);
+        }
+        return new Handle(() -> detach(key, joined, listener), () -> {
+            synchronized (this) {
+                return joined.completed || !joined.listeners.contains(listener);
+            }
+        });
+    }
+
+    /**
+     * 複数地点の予報を取得します
+     * キャッシュが最新の地点はそのまま使い、それ以外の地点は1回のリクエストにまとめて取得します。
+     *
+     * @return 結果を受け取るのをやめるためのハンドル
+     */
+    public Handle loadAll(double[] latitudes, double[] longitudes, MultiListener listener) {
+        int count = latitudes.length;
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ForecastCache.key(latitudes[i], longitudes[i], forecastDays);
+        }
+        // 結果を通知したか、取り消したか (先に決まった方だけが有効)
+        AtomicBoolean finished = new AtomicBoolean();
+        AtomicReference<Call> started = new AtomicReference<>();
+        // キャッシュのファイルはバックグラウンドで読み、読み終えてから通信する
+        cache.readAll(keys, entries -> {
+            if (finished.get()) {
+                return;
+            }
+            HourlyColumns[] columns = new HourlyColumns[count];
+            List<Integer> missing = new ArrayList<>();
+            boolean revalidate = false;
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                if (entries[i] != null && entries[i].isFresh(now)) {
+                    columns[i] = entries[i].columns;
+                } else {
+                    missing.add(i);
+                    revalidate |= entries[i] != null;
+                }
+            }
+            if (missing.isEmpty()) {
+                if (finished.compareAndSet(false, true)) {
+                    listener.onForecasts(columns);
+                }
+                return;
+            }
+            Call call = fetchAll(latitudes, longitudes, keys, columns, missing, revalidate, finished, listener);
+            started.set(call);
+            if (finished.get()) {
+                // 通信を始める前に取り消された
+                call.cancel();
+            }
+        });
+        return new Handle(() -> {
+            // 完了済みの取得は取り消しとして数えない
+            if (finished.compareAndSet(false, true)) {
+                Call call = started.get();
+                if (call != null) {
+                    call.cancel();
+                }
+                cancelled.incrementAndGet();
+            }
+        }, finished::get);
+    }
+
+    // キャッシュが最新でない地点を1回のリクエストにまとめて取得する
+    private Call fetchAll(double[] latitudes, double[] longitudes, String[] keys, HourlyColumns[] columns,
+                          List<Integer> missing, boolean revalidate, AtomicBoolean finished, MultiListener listener) {
+        long version = nextVersion();
+        Call call = client.newCall(batchRequest(latitudes, longitudes, missing, revalidate));
+        networkCalls.incrementAndGet();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (finished.compareAndSet(false, true)) {
+                    listener.onFailure(failureMessage(e));
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!finished.compareAndSet(false, true)) {
+                    // 取り消した後に届いた結果は通知しない
+                    response.close();
+                    return;
+                }
+                try (Response r = response) {
+                    if (!r.isSuccessful()) {
+                        listener.onFailure("正常に取得できず");
+                        return;
+                    }
+                    HourlyColumns[] fetched = readBatch(r, missing.size());
+                    // サーバーに接続できず古いレスポンスを返した場合は、表示だけに使い保存しない
+                    boolean fallback = ResilienceInterceptor.isFallback(r);
+                    for (int j = 0; j < fetched.length; j++) {
+                        int i = missing.get(j);
+                        columns[i] = fetched[j];
+                        if (!fallback) {
+                            store(keys[i], version, fetched[j]);
+                        }
+                    }
+                    listener.onForecasts(columns);
+                    if (fallback) {
+                        return;
+                    }
+                    for (int j = 0; j < fetched.length; j++) {
+                        int i = missing.get(j);
+                        recordHistory(latitudes[i], longitudes[i], fetched[j]);
+                    }
+                } catch (IOException | JsonDataException e) {
+                    listener.onFailure("データの解析に失敗しました");
+                    Log.w(TAG, "batch parse failed", e);
+                }
+            }
+        });
+        return call;
+    }
+
+    /**
+     * 複数地点のうち、キャッシュが最新でない地点を取得してキャッシュに保存します (バックグラウンドの先読み用)
+     * 呼び出したスレッドで通信するため、UIスレッドからは呼び出さないでください。
+     * 既に取得中の地点は取得せず、取得する地点は {@link #load(double, double, Listener)} が合流できるよう登録します。
+     *
+     * @return 取得した地点の数
+     * @throws IOException 通信・解析に失敗した場合
+     */
+    public int refreshAll(double[] latitudes, double[] longitudes) throws IOException {
+        List<Integer> missing = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        boolean revalidate = false;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < latitudes.length; i++) {
+            String key = ForecastCache.key(latitudes[i], longitudes[i], forecastDays);
+            ForecastCache.Entry cached = cache.get(key);
+            if ((cached != null && cached.isFresh(now)) || keys.contains(key)) {
+                continue;
+            }
+            keys.add(key);
+            missing.add(i);
+            revalidate |= cached != null;
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        // 取得中の地点はその取得に任せ、残りの地点を取得中として登録する
+        // (登録している間に画面から読み込んだ場合は、新しいリクエストを送らずにこの取得に合流する)
+        List<Integer> targets = new ArrayList<>();
+        List<String> targetKeys = new ArrayList<>();
+        List<InFlight> flights = new ArrayList<>();
+        Call call;
+        synchronized (this) {
+            long version = ++nextVersion;
+            for (int j = 0; j < missing.size(); j++) {
+                String key = keys.get(j);
+                if (inFlight.containsKey(key)) {
+                    coalesced.incrementAndGet();
+                    continue;
+                }
+                // 先読みと同じく、画面が待つのをやめても取り消さない
+                InFlight flight = new InFlight(version, true);
+                inFlight.put(key, flight);
+                targets.add(missing.get(j));
+                targetKeys.add(key);
+                flights.add(flight);
+            }
+            if (flights.isEmpty()) {
+                return 0;
+            }
+            call = client.newCall(batchRequest(latitudes, longitudes, targets, revalidate));
+            for (InFlight flight : flights) {
+                flight.call = call;
+            }
+        }
+
+        networkCalls.incrementAndGet();
+        String errorMessage = null;
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful()) {
+                errorMessage = "正常に取得できず";
+                throw new IOException("HTTP " + response.code());
+            }
+            if (ResilienceInterceptor.isFallback(response)) {
+                // 古いレスポンスで上書きしないよう、次回の実行で取り直す
+                throw new ResilienceInterceptor.CircuitOpenException(EndpointPolicy.OPEN_METEO.name);
+            }
+            HourlyColumns[] fetched = readBatch(response, targets.size());
+            for (int j = 0; j < fetched.length; j++) {
+                InFlight flight = flights.get(j);
+                store(targetKeys.get(j), flight.version, fetched[j]);
+                complete(targetKeys.get(j), flight, fetched[j], false, null);
+                if (history != null) {
+                    // 呼び出し元がバックグラウンドスレッドなので、そのまま書き込む
+                    history.record(latitudes[targets.get(j)], longitudes[targets.get(j)], fetched[j]);
+                }
+            }
+        } catch (JsonDataException e) {
+            errorMessage = "データの解析に失敗しました";
+            throw new IOException(e);
+        } catch (IOException e) {
+            if (errorMessage == null) {
+                errorMessage = failureMessage(e);
+            }
+            throw e;
+        } finally {
+            // 失敗した場合も、合流した画面に通知して取得中の登録を外す (完了済みの取得は何もしない)
+            for (int j = 0; j < flights.size(); j++) {
+                complete(targetKeys.get(j), flights.get(j), null, false,
+                        errorMessage != null ? errorMessage : "通信に失敗");
+            }
+        }
+        return targets.size();
+    }
+
+    /**
+     * 先読みを始めた回数
+     */
+    public int getPrefetchStartCount() {
+        return prefetchStarts.get();
+    }
+
+    /**
+     * 送信したリクエストの数
+     */
+    public int getNetworkCallCount() {
+        return networkCalls.get();
+    }
+
+    /**
+     * 新しいリクエストを送らずに、取得中のリクエストに合流した回数
+     */
+    public int getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * 待っている画面がなくなったため、通信を取り消した回数
+     */
+    public int getCancelledCount() {
+        return cancelled.get();
+    }
+
+    /**
+     * より新しい取得の結果が保存済みだったため、キャッシュに保存しなかった回数
+     */
+    public int getStaleDroppedCount() {
+        return staleDropped.get();
+    }
+
+    /**
+     * 利用状況をまとめた文字列を返します (ログ出力用)
+     */
+    public String getStatsSummary() {
+        return String.format(Locale.US, "calls=%d prefetchStarts=%d coalesced=%d cancelled=%d staleDropped=%d",
+                getNetworkCallCount(), getPrefetchStartCount(), getCoalescedCount(), getCancelledCount(),
+                getStaleDroppedCount());
+    }
+
+    private synchronized long nextVersion() {
+        return ++nextVersion;
+    }
+
+    // 1地点の取得を始める (synchronized の中から呼び出す)
+    // revalidate: 古いキャッシュを取り直す場合は true (HTTPキャッシュの保存期間内でもサーバーに確認する)
+    private InFlight start(String key, String url, double latitude, double longitude, boolean speculative,
+                           boolean revalidate) {
+        InFlight flight = new InFlight(++nextVersion, speculative);
+        inFlight.put(key, flight);
+
+        flight.call = client.newCall(request(url, revalidate));
+        networkCalls.incrementAndGet();
+        // 失敗した通信の時間は記録しない (接続先ごとの時間は ResilienceInterceptor が失敗も含めて記録する)
+        MetricsRegistry.Span networkSpan = metrics.startAsyncSpan(MetricsRegistry.STAGE_NETWORK);
+        flight.call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                networkSpan.cancel();
+                // 待っている画面がなくなって取り消した場合は、何も通知しない
+                if (call.isCanceled()) {
+                    return;
+                }
+                complete(key, flight, null, false, failureMessage(e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                networkSpan.close();
+                try (Response r = response) {
+                    // レスポンスコードを確認 (200 OK以外はエラー扱い)
+                    if (!r.isSuccessful()) {
+                        complete(key, flight, null, false, "正常に取得できず");
+                        return;
+                    }
+                    // 受信と解析の時間を分けて計測するため、ボディを先にすべて受信する
+                    // (受信したデータは文字列にせずバッファのまま解析に渡す)
+                    BufferedSource source = r.body().source();
+                    MetricsRegistry.Span readSpan = metrics.startSpan(MetricsRegistry.STAGE_BODY_READ);
+                    try {
+                        source.request(Long.MAX_VALUE);
+                    } finally {
+                        readSpan.close();
+                    }
+                    // ストリームから直接列形式のデータに変換
+                    HourlyColumns hourly;
+                    MetricsRegistry.Span parseSpan = metrics.startSpan(MetricsRegistry.STAGE_PARSE);
+                    try {
+                        hourly = MeteoHourlyParser.parse(source);
+                    } finally {
+                        parseSpan.close();
+                    }
+
+                    if (ResilienceInterceptor.isFallback(r)) {
+                        // サーバーに接続できず古いレスポンスを返した場合は、保存済みのデータとして表示し、
+                        // キャッシュは古いままにして次回に取り直す
+                        complete(key, flight, hourly, true, ResilienceInterceptor.CIRCUIT_OPEN_MESSAGE);
+                        return;
+                    }
+
+                    // 次回すぐに表示できるようキャッシュに保存
+                    store(key, flight.version, hourly);
+                    complete(key, flight, hourly, false, null);
+                    recordHistory(latitude, longitude, hourly);
+                } catch (IOException | JsonDataException e) {
+                    complete(key, flight, null, false, "データの解析に失敗しました");
+                    Log.w(TAG, "parse failed", e);
+                }
+            }
+        });
+        return flight;
+    }
+
+    // 1地点の予報日数分の予報を取得するURL
+    private String forecastUrl(double latitude, double longitude) {
+        return OpenMeteoApi.forecastUrl(Double.toString(latitude), Double.toString(longitude), forecastDays);
+    }
+
+    // 取得の結果をキャッシュに保存する (より新しく始めた取得の結果が保存済みの場合は保存しない)
+    private void store(String key, long version, HourlyColumns hourly) {
+        synchronized (this) {
+            Long stored = storedVersions.get(key);
+            if (stored != null && stored > version) {
+                staleDropped.incrementAndGet();
+                return;
+            }
+            storedVersions.put(key, version);
+        }
+        cache.put(key, hourly);
+    }
+
+    // 画面が結果を待つのをやめる。誰も待っていない取得は通信を取り消す (先読みは除く)
+    private void detach(String key, InFlight flight, Listener listener) {
+        Call toCancel = null;
+        synchronized (this) {
+            if (!flight.listeners.remove(listener)) {
+                return;
+            }
+            if (flight.listeners.isEmpty() && !flight.speculative && !flight.completed) {
+                if (inFlight.get(key) == flight) {
+                    inFlight.remove(key);
+                }
+                flight.completed = true;
+                toCancel = flight.call;
+            }
+        }
+        if (toCancel != null) {
+            toCancel.cancel();
+            cancelled.incrementAndGet();
+        }
+    }
+
+    // 待っているリスナーすべてに結果を通知する (データとエラーの両方がある場合は、データを通知してからエラーを通知する)
+    private void complete(String key, InFlight flight, HourlyColumns hourly, boolean fromCache, String errorMessage) {
+        List<Listener> listeners;
+        synchronized (this) {
+            // 取り消し済みの取得が、同じキーの新しい取得を取り除かないようにする
+            if (inFlight.get(key) == flight) {
+                inFlight.remove(key);
+            }
+            if (flight.completed) {
+                return;
+            }
+            flight.completed = true;
+            listeners = new ArrayList<>(flight.listeners);
+        }
+        // 履歴のデータの通知と順番が入れ替わらないよう、この取得のロックの中で通知する
+        synchronized (flight) {
+            for (Listener listener : listeners) {
+                if (hourly != null) {
+                    listener.onForecast(hourly, fromCache);
+                }
+                if (errorMessage != null) {
+                    listener.onFailure(errorMessage);
+                }
+            }
+        }
+    }
+
+    // 通信の失敗を画面に表示するメッセージに変換する
+    private static String failureMessage(IOException e) {
+        return e instanceof ResilienceInterceptor.CircuitOpenException
+                ? ResilienceInterceptor.CIRCUIT_OPEN_MESSAGE
+                : "通信に失敗";
+    }
+
+    // 通信を待つ間に表示できるよう、蓄積済みの予報を読み込んで通知する
+    private void loadFromHistory(double latitude, double longitude, InFlight flight, Listener listener) {
+        diskExecutor.execute(() -> {
+            long now = System.currentTimeMillis() / 1000;
+            // 現在の時刻 (時の始まり) から予報日数分を読み込む
+            long from = now - now % 3600;
+            HourlyColumns stored;
+            try {
+                stored = history.query(latitude, longitude, from, from + forecastDays * 24L * 3600);
+            } catch (RuntimeException e) {
+                // 履歴が読めなくても通信の結果は表示できるので、そのまま続ける
+                Log.w(TAG, "history query failed", e);
+                return;
+            }
+            if (stored.isEmpty()) {
+                return;
+            }
+            // リポジトリのロックは確認の間だけ持ち、リスナーはロックを外してから呼び出す
+            // 通信の結果の通知 (complete) とは、この取得のロックで順番を保つ
+            synchronized (flight) {
+                synchronized (this) {
+                    // 通信の結果が先に届いた場合や、取り消された場合は通知しない
+                    if (flight.completed || !flight.listeners.contains(listener)) {
+                        return;
+                    }
+                }
+                listener.onForecast(stored, true);
+            }
+        });
+    }
+
+    // 取得した予報を履歴に蓄積する (通知を遅らせないよう別スレッドで書き込む)
+    private void recordHistory(double latitude, double longitude, HourlyColumns hourly) {
+        if (history == null) {
+            return;
+        }
+        diskExecutor.execute(() -> {
+            try {
+                history.record(latitude, longitude, hourly);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "history record failed", e);
+            }
+        });
+    }
+
+    private Request batchRequest(double[] latitudes, double[] longitudes, List<Integer> indices, boolean revalidate) {
+        StringBuilder lat = new StringBuilder();
+        StringBuilder lon = new StringBuilder();
+        for (int j = 0; j < indices.size(); j++) {
+            if (j > 0) {
+                lat.append(',');
+                lon.append(',');
+            }
+            lat.append(latitudes[indices.get(j)]);
+            lon.append(longitudes[indices.get(j)]);
+        }
+        return request(OpenMeteoApi.forecastUrl(lat.toString(), lon.toString(), forecastDays), revalidate);
+    }
+
+    private static Request request(String url, boolean revalidate) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (revalidate) {
+            builder.cacheControl(REVALIDATE);
+        }
+        return builder.build();
+    }
+
+    // 地点ごとのオブジェクトの配列を1回の読み込みで変換する
+    private static HourlyColumns[] readBatch(Response response, int expected) throws IOException {
+        HourlyColumns[] fetched = MeteoHourlyParser.parseAll(response.body().source());
+        if (fetched.length != expected) {
+            throw new JsonDataException("地点の数が一致しません: " + fetched.length);
+        }
+        return fetched;
+    }
+}
@@ -1,77 +1,295 @@
 package jp.ac.meijou.android.mobileapp2025_a_final;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * 1時間ごとの天気予報リストを表示するためのアダプタークラス
- * RecyclerViewを使用して、各時間の天気情報と運動適性スコアを表示します。
+ * RecyclerViewを使用して、各時間の天気情報と運動適性スコアを、日ごとの見出しで区切って表示します。
+ *
+ * 表示するデータはページ ({@link ForecastPageList}) 単位で受け取ります。
+ * ページを末尾に追加しただけの更新は追加した範囲だけを通知し、それ以外の更新では
+ * 前回のデータとの差分をバックグラウンドで計算し、変わった行・変わった項目だけを更新します。
  */
-public class HourlyForecastAdapter extends RecyclerView.Adapter<HourlyForecastAdapter.ViewHolder> {
+public class HourlyForecastAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
-    private List<HourlyItem> hourlyItems = new ArrayList<>();
+    // 項目の種類
+    static final int TYPE_HOUR = 0;
+    static final int TYPE_DAY_HEADER = 1;
+
+    // 部分更新で書き換える項目 (ペイロードのビット)
+    static final int CHANGED_SCORE = 1;
+    static final int CHANGED_TEMPERATURE = 1 << 1;
+    static final int CHANGED_PRECIPITATION = 1 << 2;
+    static final int CHANGED_HUMIDITY = 1 << 3;
+    static final int CHANGED_WIND = 1 << 4;
+
+    // 差分計算用のスレッド (全アダプターで共有)
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "forecast-diff");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 処理時間の記録先
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    // 表示するページ
+    private ForecastPageList pages = ForecastPageList.EMPTY;
+
+    // 最新の更新依頼を識別する番号 (古い差分計算の結果を破棄するため)
+    private int generation = 0;
+
+    // 更新ごとの行の再描画回数 (描画のたびに記録先へ書き込まないよう、次の更新時にまとめて記録する)
+    private int fullBindCount = 0;
+    private int partialBindCount = 0;
+
+    public HourlyForecastAdapter() {
+        // 行のIDに予報の時刻を使い、同じ時刻の行は同じビューを再利用する
+        setHasStableIds(true);
+    }
 
     /**
-     * リストの各行に表示するデータモデル
+     * 表示するデータを更新します (UIスレッドから呼び出す)
+     * 差分はバックグラウンドで計算し、完了後に変わった行だけを更新します。
+     *
+     * @param newPages 表示するページ (各ページは予報データ・表示範囲・各行の表示文字列を持つ)
      */
-    public static class HourlyItem {
-        public String time;                     // 表示時刻
-        public double temperature;              // 気温 (℃)
-        public int precipitationProbability;    // 降水確率 (%)
-        public int humidity;                    // 湿度 (%)
-        public double windSpeed;                // 風速 (km/h)
-        public double score;                    // 運動適性スコア (0-100)
+    public void submitPages(ForecastPageList newPages) {
+        final int requestGeneration = ++generation;
+        publishBindCounts();
+        resetBindCounts();
 
-        public HourlyItem(String time, double temperature, int precipitationProbability, int humidity, double windSpeed, double score) {
-            this.time = time;
-            this.temperature = temperature;
-            this.precipitationProbability = precipitationProbability;
-            this.humidity = humidity;
-            this.windSpeed = windSpeed;
-            this.score = score;
+        if (pages.size() == 0 || newPages.size() == 0) {
+            // 比較対象がない場合は差分計算を省略する
+            pages = newPages;
+            notifyDataSetChanged();
+            return;
         }
+
+        if (newPages.startsWith(pages)) {
+            // 末尾にページを追加しただけの場合は、追加した範囲だけを通知する
+            int oldSize = pages.size();
+            pages = newPages;
+            if (newPages.size() > oldSize) {
+                notifyItemRangeInserted(oldSize, newPages.size() - oldSize);
+            }
+            return;
+        }
+
+        final ForecastPageList oldPages = pages;
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult diff;
+            MetricsRegistry.Span diffSpan = metrics.startSpan(MetricsRegistry.STAGE_DIFF);
+            try {
+                diff = DiffUtil.calculateDiff(new ForecastDiffCallback(oldPages, newPages));
+            } finally {
+                diffSpan.close();
+            }
+            mainHandler.post(() -> {
+                // 計算中に新しい更新が依頼された場合は破棄
+                if (requestGeneration != generation) {
+                    return;
+                }
+                pages = newPages;
+                diff.dispatchUpdatesTo(this);
+            });
+        });
+    }
+
+    /**
+     * 直近の更新で行全体を描画した回数
+     */
+    public int getFullBindCount() {
+        return fullBindCount;
     }
 
     /**
-     * 表示するデータリストを更新します
-     * @param items 新しいデータのリスト
+     * 直近の更新で一部の項目だけを描画した回数
      */
-    public void setHourlyItems(List<HourlyItem> items) {
-        this.hourlyItems = items;
-        notifyDataSetChanged();
+    public int getPartialBindCount() {
+        return partialBindCount;
+    }
+
+    // 直近の更新で数えた描画回数をカウンターに加える
+    private void publishBindCounts() {
+        metrics.add("adapter.bind_full", fullBindCount);
+        metrics.add("adapter.bind_partial", partialBindCount);
+    }
+
+    private void resetBindCounts() {
+        fullBindCount = 0;
+        partialBindCount = 0;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return pages.itemId(position);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return pages.isHeader(position) ? TYPE_DAY_HEADER : TYPE_HOUR;
     }
 
     @NonNull
     @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_hourly_forecast, parent, false);
-        return new ViewHolder(view);
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == TYPE_DAY_HEADER) {
+            return new HeaderViewHolder(inflater.inflate(R.layout.item_day_header, parent, false));
+        }
+        return new ViewHolder(inflater.inflate(R.layout.item_hourly_forecast, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        fullBindCount++;
+        if (holder instanceof HeaderViewHolder) {
+            ((HeaderViewHolder) holder).textDay.setText(pages.headerText(position));
+            return;
+        }
+        ViewHolder row = (ViewHolder) holder;
+        ForecastRowTexts rowTexts = pages.getPage(pages.pageAt(position)).rowTexts;
+        int i = pages.indexAt(position);
+        row.textTime.setText(rowTexts.time(i));
+        bindFields(row, rowTexts, i, CHANGED_SCORE | CHANGED_TEMPERATURE | CHANGED_PRECIPITATION
+                | CHANGED_HUMIDITY | CHANGED_WIND);
     }
 
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        HourlyItem item = hourlyItems.get(position);
-        
-        holder.textTime.setText(item.time);
-        holder.textScore.setText(String.format("%.0f点", item.score)); 
-        holder.textTemp.setText(String.format("%.1f℃", item.temperature));
-        holder.textPrecip.setText(String.format("%d%%", item.precipitationProbability));
-        holder.textHumidity.setText(String.format("%d%%", item.humidity));
-        holder.textWind.setText(String.format("%.1fkm/h", item.windSpeed));
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || holder instanceof HeaderViewHolder) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // 変わった項目だけを書き換える
+        int changed = 0;
+        for (Object payload : payloads) {
+            changed |= (Integer) payload;
+        }
+        partialBindCount++;
+        bindFields((ViewHolder) holder, pages.getPage(pages.pageAt(position)).rowTexts,
+                pages.indexAt(position), changed);
+    }
+
+    // 作成済みの文字列を設定するだけで、描画時には書式変換を行わない
+    private void bindFields(ViewHolder holder, ForecastRowTexts rowTexts, int i, int fields) {
+        if ((fields & CHANGED_SCORE) != 0) {
+            holder.textScore.setText(rowTexts.score(i));
+        }
+        if ((fields & CHANGED_TEMPERATURE) != 0) {
+            holder.textTemp.setText(rowTexts.temperature(i));
+        }
+        if ((fields & CHANGED_PRECIPITATION) != 0) {
+            holder.textPrecip.setText(rowTexts.precipitation(i));
+        }
+        if ((fields & CHANGED_HUMIDITY) != 0) {
+            holder.textHumidity.setText(rowTexts.humidity(i));
+        }
+        if ((fields & CHANGED_WIND) != 0) {
+            holder.textWind.setText(rowTexts.wind(i));
+        }
     }
 
     @Override
     public int getItemCount() {
-        return hourlyItems.size();
+        return pages.size();
+    }
+
+    /**
+     * 前回と今回の予報データを時刻 (見出しは日付) で対応づけて比較するコールバック
+     */
+    static class ForecastDiffCallback extends DiffUtil.Callback {
+        private final ForecastPageList oldPages;
+        private final ForecastPageList newPages;
+
+        ForecastDiffCallback(ForecastPageList oldPages, ForecastPageList newPages) {
+            this.oldPages = oldPages;
+            this.newPages = newPages;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldPages.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newPages.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            // 見出しのIDは負の値のため、行と同じになることはない
+            return oldPages.itemId(oldItemPosition) == newPages.itemId(newItemPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            if (oldPages.isHeader(oldItemPosition)) {
+                return oldPages.headerText(oldItemPosition).equals(newPages.headerText(newItemPosition));
+            }
+            return changedFields(oldItemPosition, newItemPosition) == 0;
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            // 見出しは行全体を描画し直す
+            if (oldPages.isHeader(oldItemPosition)) {
+                return null;
+            }
+            return changedFields(oldItemPosition, newItemPosition);
+        }
+
+        private int changedFields(int oldItemPosition, int newItemPosition) {
+            ForecastFrame oldFrame = oldPages.getPage(oldPages.pageAt(oldItemPosition)).frame;
+            ForecastFrame newFrame = newPages.getPage(newPages.pageAt(newItemPosition)).frame;
+            int o = oldPages.indexAt(oldItemPosition);
+            int n = newPages.indexAt(newItemPosition);
+            int changed = 0;
+            if (Float.compare(oldFrame.score(o), newFrame.score(n)) != 0) {
+                changed |= CHANGED_SCORE;
+            }
+            if (Float.compare(oldFrame.temperature(o), newFrame.temperature(n)) != 0) {
+                changed |= CHANGED_TEMPERATURE;
+            }
+            if (oldFrame.precipitationProbability(o) != newFrame.precipitationProbability(n)) {
+                changed |= CHANGED_PRECIPITATION;
+            }
+            if (oldFrame.humidity(o) != newFrame.humidity(n)) {
+                changed |= CHANGED_HUMIDITY;
+            }
+            if (Float.compare(oldFrame.windSpeed(o), newFrame.windSpeed(n)) != 0) {
+                changed |= CHANGED_WIND;
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * 日の見出しのビューを保持するホルダー
+     */
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        TextView textDay;
+
+        public HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textDay = itemView.findViewById(R.id.textDay);
+        }
     }
 
     /**
@@ -79,7 +297,7 @@ public class HourlyForecastAdapter extends RecyclerView.Adapter<HourlyForecastAd
      */
     static class ViewHolder extends RecyclerView.ViewHolder {
         TextView textTime;
-        TextView textScore; 
+        TextView textScore;
         TextView textTemp;
         TextView textPrecip;
         TextView textHumidity;
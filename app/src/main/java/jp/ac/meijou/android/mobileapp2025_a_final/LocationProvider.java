@@ -0,0 +1,308 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.location.CurrentLocationRequest;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.CancellationTokenSource;
+
+import java.util.Locale;
+
+/**
+ * 現在地をできるだけ早く取得するクラス
+ *
+ * 1. 前回取得した位置 (端末内に保存) があれば、すぐに通知する
+ * 2. 最終測位位置 (getLastLocation) と、新しい測位 (getCurrentLocation, 省電力寄りの精度) を同時に要求する
+ * 3. 新しい測位の結果、またはタイムアウトで確定する
+ *
+ * 緯度・経度が (0, 0) や範囲外の位置は無効として扱い、通知しません。
+ * リスナーはすべてUIスレッドで呼ばれます。
+ */
+public class LocationProvider {
+
+    private static final String TAG = "LocationProvider";
+
+    // 新しい測位を待つ最大時間
+    private static final long CURRENT_LOCATION_TIMEOUT_MILLIS = 10_000;
+    // 新しい測位として扱ってよい位置の古さ (これより新しいキャッシュがあれば測位を省略できる)
+    private static final long CURRENT_LOCATION_MAX_AGE_MILLIS = 60_000;
+    // 保存した位置をすぐに表示に使ってよい古さ
+    private static final long STORED_FIX_MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final String PREFS_LOCATION = "location_cache";
+    private static final String KEY_LATITUDE = "latitude";
+    private static final String KEY_LONGITUDE = "longitude";
+    private static final String KEY_TIME_MILLIS = "time_millis";
+
+    /**
+     * 位置の取得元
+     */
+    public enum Source {
+        STORED,     // 前回取得して端末内に保存した位置
+        LAST_KNOWN, // 端末の最終測位位置
+        CURRENT     // 新しい測位
+    }
+
+    /**
+     * 取得した位置
+     */
+    public static final class Fix {
+        public final double latitude;
+        public final double longitude;
+        public final long timeMillis;   // 測位した時刻 (エポックミリ秒)
+        public final Source source;
+
+        Fix(double latitude, double longitude, long timeMillis, Source source) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timeMillis = timeMillis;
+            this.source = source;
+        }
+    }
+
+    /**
+     * 位置の取得結果を受け取るリスナー
+     */
+    public interface Listener {
+        /**
+         * 位置を取得したときに呼ばれます (より新しい位置が得られるたびに複数回呼ばれます)
+         *
+         * @param fix     取得した位置
+         * @param isFinal これ以上新しい位置が通知されない場合は true
+         */
+        void onLocation(Fix fix, boolean isFinal);
+
+        /**
+         * 有効な位置を1つも取得できずに終了したときに呼ばれます
+         */
+        void onUnavailable();
+    }
+
+    private final Context context;
+    private final FusedLocationProviderClient fusedLocationClient;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 実行中の要求 (新しい要求を始めると前の要求は取り消される)
+    private Request current;
+
+    // 直近の要求で、最初の有効な位置を通知するまでにかかった時間
+    private long lastTimeToFirstFixMillis = -1;
+    private Source lastFirstFixSource;
+
+    public LocationProvider(Context context) {
+        this.context = context.getApplicationContext();
+        this.fusedLocationClient = LocationServices.getFusedLocationProviderClient(this.context);
+    }
+
+    /**
+     * 現在地の取得を始めます (UIスレッドから呼び出す)
+     * 位置情報の権限がない場合は、保存した位置だけを通知して終了します。
+     */
+    public void request(Listener listener) {
+        cancel();
+        Request request = new Request(listener);
+        current = request;
+        request.start();
+    }
+
+    /**
+     * 実行中の取得を取り消します。取り消した後はリスナーが呼ばれません
+     */
+    public void cancel() {
+        if (current != null) {
+            current.cancel();
+            current = null;
+        }
+    }
+
+    /**
+     * 直近の要求で、最初の有効な位置を通知するまでにかかった時間 (ミリ秒)。まだない場合は -1
+     */
+    public long getLastTimeToFirstFixMillis() {
+        return lastTimeToFirstFixMillis;
+    }
+
+    /**
+     * 直近の要求で、最初に通知した位置の取得元
+     */
+    public Source getLastFirstFixSource() {
+        return lastFirstFixSource;
+    }
+
+    /**
+     * 緯度・経度が有効か (範囲内で、初期値の (0, 0) ではないか) を判定します
+     */
+    static boolean isValid(double latitude, double longitude) {
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return false;
+        }
+        if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            return false;
+        }
+        return latitude != 0 || longitude != 0;
+    }
+
+    private SharedPreferences prefs() {
+        return context.getSharedPreferences(PREFS_LOCATION, Context.MODE_PRIVATE);
+    }
+
+    private Fix readStoredFix() {
+        SharedPreferences prefs = prefs();
+        if (!prefs.contains(KEY_TIME_MILLIS)) {
+            return null;
+        }
+        double latitude = Double.longBitsToDouble(prefs.getLong(KEY_LATITUDE, 0));
+        double longitude = Double.longBitsToDouble(prefs.getLong(KEY_LONGITUDE, 0));
+        long timeMillis = prefs.getLong(KEY_TIME_MILLIS, 0);
+        if (!isValid(latitude, longitude)
+                || System.currentTimeMillis() - timeMillis > STORED_FIX_MAX_AGE_MILLIS) {
+            return null;
+        }
+        return new Fix(latitude, longitude, timeMillis, Source.STORED);
+    }
+
+    private void storeFix(Fix fix) {
+        prefs().edit()
+                .putLong(KEY_LATITUDE, Double.doubleToRawLongBits(fix.latitude))
+                .putLong(KEY_LONGITUDE, Double.doubleToRawLongBits(fix.longitude))
+                .putLong(KEY_TIME_MILLIS, fix.timeMillis)
+                .apply();
+    }
+
+    /**
+     * 1回分の取得処理
+     */
+    private class Request {
+        private final Listener listener;
+        private final CancellationTokenSource cancellation = new CancellationTokenSource();
+        private final long startElapsed = SystemClock.elapsedRealtime();
+
+        private Fix best;           // これまでに通知した最も新しい位置
+        private boolean firstFixRecorded = false;
+        private boolean finished = false;
+
+        Request(Listener listener) {
+            this.listener = listener;
+        }
+
+        void start() {
+            // 1. 保存した位置をすぐに通知する
+            Fix stored = readStoredFix();
+            if (stored != null) {
+                offer(stored);
+            }
+
+            // 2. 最終測位位置と新しい測位を同時に要求する
+            try {
+                fusedLocationClient.getLastLocation()
+                        .addOnSuccessListener(location -> onLastKnown(location))
+                        .addOnFailureListener(e -> onLastKnown(null));
+
+                CurrentLocationRequest currentRequest = new CurrentLocationRequest.Builder()
+                        .setPriority(Priority.PRIORITY_BALANCED_POWER_ACCURACY)
+                        .setDurationMillis(CURRENT_LOCATION_TIMEOUT_MILLIS)
+                        .setMaxUpdateAgeMillis(CURRENT_LOCATION_MAX_AGE_MILLIS)
+                        .build();
+                fusedLocationClient.getCurrentLocation(currentRequest, cancellation.getToken())
+                        .addOnSuccessListener(location -> onCurrent(location))
+                        .addOnFailureListener(e -> onCurrent(null));
+            } catch (SecurityException e) {
+                // 権限がない場合は保存した位置だけで終了する
+                Log.w(TAG, "location permission is not granted", e);
+                finish();
+            }
+        }
+
+        void cancel() {
+            finished = true;
+            cancellation.cancel();
+        }
+
+        private void onLastKnown(Location location) {
+            if (finished) {
+                return;
+            }
+            if (location != null) {
+                Fix fix = new Fix(location.getLatitude(), location.getLongitude(), location.getTime(), Source.LAST_KNOWN);
+                // 保存した位置より古い最終測位位置は使わない
+                if (best == null || fix.timeMillis > best.timeMillis) {
+                    offer(fix);
+                }
+            }
+        }
+
+        private void onCurrent(Location location) {
+            if (finished) {
+                return;
+            }
+            if (location != null) {
+                Fix fix = new Fix(location.getLatitude(), location.getLongitude(), location.getTime(), Source.CURRENT);
+                if (isValid(fix.latitude, fix.longitude)) {
+                    best = fix;
+                    recordFirstFix(fix);
+                    storeFix(fix);
+                }
+            }
+            // 新しい測位が完了 (またはタイムアウト) したので確定する
+            finish();
+        }
+
+        // 新しい位置を途中経過として通知する
+        private void offer(Fix fix) {
+            if (!isValid(fix.latitude, fix.longitude)) {
+                return;
+            }
+            best = fix;
+            recordFirstFix(fix);
+            if (fix.source != Source.STORED) {
+                storeFix(fix);
+            }
+            mainHandler.post(() -> {
+                if (!finished) {
+                    listener.onLocation(fix, false);
+                }
+            });
+        }
+
+        private void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            Fix result = best;
+            mainHandler.post(() -> {
+                if (current != this) {
+                    return; // 取り消された
+                }
+                current = null;
+                if (result != null) {
+                    listener.onLocation(result, true);
+                } else {
+                    listener.onUnavailable();
+                }
+            });
+        }
+
+        // 最初の有効な位置を得るまでの時間を記録する
+        private void recordFirstFix(Fix fix) {
+            if (firstFixRecorded) {
+                return;
+            }
+            firstFixRecorded = true;
+            lastTimeToFirstFixMillis = SystemClock.elapsedRealtime() - startElapsed;
+            lastFirstFixSource = fix.source;
+            // 測位までの時間と、最初に使えた位置の種類はデバッグ表示・書き出しで確認する
+            MetricsRegistry metrics = MetricsRegistry.getDefault();
+            metrics.histogram(MetricsRegistry.STAGE_FIRST_FIX).record(lastTimeToFirstFixMillis);
+            metrics.increment(MetricsRegistry.STAGE_FIRST_FIX + "." + fix.source.name().toLowerCase(Locale.US));
+        }
+    }
+}
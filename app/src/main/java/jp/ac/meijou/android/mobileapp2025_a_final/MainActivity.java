@@ -1,11 +1,19 @@
 package jp.ac.meijou.android.mobileapp2025_a_final;
 
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
@@ -13,23 +21,12 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-
+import java.io.File;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 import jp.ac.meijou.android.mobileapp2025_a_final.databinding.ActivityMainBinding;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 
 /**
  * アプリのメイン画面用のアクティビティ
@@ -37,6 +34,16 @@ import okhttp3.Response;
  */
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
+
+    // 設定の保存先
+    private static final String PREFS_SETTINGS = "settings";
+    private static final String KEY_SCORING_PROFILE = "scoring_profile";
+    private static final String KEY_FORECAST_HORIZON = "forecast_horizon";
+
+    // 選べる予報の日数 (今日を含む)
+    private static final int[] HORIZON_CHOICES = {OpenMeteoApi.FORECAST_DAYS, 7, OpenMeteoApi.MAX_FORECAST_DAYS};
+
     // 東京駅周辺の緯度・経度を定数として設定 (デフォルト位置)
     private static String TOKYO_LATITUDE = "35.6895";
     private static String TOKYO_LONGITUDE = "139.6917";
@@ -45,11 +52,38 @@ public class MainActivity extends AppCompatActivity {
     private String latitude = TOKYO_LATITUDE;
     private String longitude = TOKYO_LONGITUDE;
 
-    // API通信用クライアント
-    private final OkHttpClient client = new OkHttpClient();
+    // 天気予報データの取得 (場所変更画面と共有し、先読みした結果を受け取る)
+    private ForecastRepository forecastRepository;
+
+    // 天気予報の分析をバックグラウンドで行うパイプライン
+    private final ForecastPipeline forecastPipeline = new ForecastPipeline();
+
+    // 選択中の運動の種類と、その採点基準で分析するアナライザー
+    private ScoringProfile scoringProfile = ScoringProfile.RUNNING;
+    private ScoringEngine scoringEngine;
+    private ForecastAnalyzer forecastAnalyzer;
 
-    // JSONパース用インスタンス
-    private final Moshi moshi = new Moshi.Builder().build();
+    // 予報の日数と、3日目以降をスクロールに合わせて読み込むページャー
+    private int horizonDays = OpenMeteoApi.FORECAST_DAYS;
+    private ForecastPager forecastPager;
+
+    // 最後に表示した予報データ (運動の種類を切り替えたときの再分析用)
+    private HourlyColumns lastHourly;
+
+    // 実行中の天気予報の取得
+    private ForecastRepository.Handle currentLoad;
+    // 表示を更新する取得の番号 (UIスレッドからのみ更新)
+    // 取得・比較を始めるたびに増やし、後から届いた古い取得の結果で表示を上書きしないようにする
+    private int displayVersion = 0;
+    // 実行中の複数地点の比較用の取得
+    private ForecastRepository.Handle compareLoad;
+
+    // 保存した地点の一覧
+    private SavedLocationStore savedLocationStore;
+
+    // 処理時間の記録先と、「情報を更新」を押してから表示までの計測中の区間
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private MetricsRegistry.Span searchSpan;
 
     private ActivityMainBinding binding;
     private HourlyForecastAdapter hourlyForecastAdapter;
@@ -62,6 +96,9 @@ public class MainActivity extends AppCompatActivity {
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
+        forecastRepository = ForecastRepository.getInstance(this);
+        savedLocationStore = new SavedLocationStore(this);
+
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
             Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
             v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
@@ -70,9 +107,31 @@ public class MainActivity extends AppCompatActivity {
 
         // RecyclerView（天気予報リスト）の初期化と設定
         hourlyForecastAdapter = new HourlyForecastAdapter();
-        binding.recyclerViewForecast.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        binding.recyclerViewForecast.setLayoutManager(layoutManager);
         binding.recyclerViewForecast.setAdapter(hourlyForecastAdapter);
 
+        // 3日目以降は、リストの末尾に近づいたときにページ単位で読み込んで追加する
+        forecastPager = new ForecastPager(forecastRepository, new ForecastPager.Callback() {
+            @Override
+            public void onPages(ForecastPageList pages) {
+                hourlyForecastAdapter.submitPages(pages);
+            }
+
+            @Override
+            public void onPageFailure(String message) {
+                Toast.makeText(MainActivity.this, "3日目以降を読み込めませんでした: " + message, Toast.LENGTH_SHORT).show();
+            }
+        });
+        binding.recyclerViewForecast.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // 項目の追加などで表示範囲が変わった場合も (dx = dy = 0 で) 呼ばれる
+                forecastPager.onScrolled(layoutManager.findLastVisibleItemPosition(),
+                        hourlyForecastAdapter.getItemCount());
+            }
+        });
+
         // 起動時のパラメータ処理（MainActivity2から渡された位置情報の取得）
         Intent intent = getIntent();
         // Intentに "EXTRA_LATITUDE" と "EXTRA_LONGITUDE" のキーが存在するかチェック
@@ -87,312 +146,329 @@ public class MainActivity extends AppCompatActivity {
 
         // 「天気予報を取得」ボタンのクリックリスナー設定
         binding.buttonSearch.setOnClickListener(view -> {
+            // 前回の計測が終わっていなければ破棄して計測し直す
+            if (searchSpan != null) {
+                searchSpan.cancel();
+            }
+            searchSpan = metrics.startAsyncSpan(MetricsRegistry.STAGE_SEARCH);
             binding.textViewResult.setText("天気情報を取得中...");
             fetchWeatherData(latitude, longitude);
         });
 
+        // デバッグビルドでは「情報を更新」の長押しで処理時間の表示を切り替え、表示をタップするとファイルに書き出す
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            binding.buttonSearch.setOnLongClickListener(view -> {
+                boolean show = binding.textViewMetrics.getVisibility() != View.VISIBLE;
+                binding.textViewMetrics.setVisibility(show ? View.VISIBLE : View.GONE);
+                updateMetricsPanel();
+                return true;
+            });
+            binding.textViewMetrics.setOnClickListener(view -> exportMetrics());
+        }
+
+        // 運動の種類 (採点基準) の設定。前回選んだものを復元する
+        SharedPreferences settings = getSharedPreferences(PREFS_SETTINGS, MODE_PRIVATE);
+        try {
+            scoringProfile = ScoringProfile.valueOf(
+                    settings.getString(KEY_SCORING_PROFILE, ScoringProfile.RUNNING.name()));
+        } catch (IllegalArgumentException e) {
+            scoringProfile = ScoringProfile.RUNNING;
+        }
+        scoringEngine = new ThresholdScoringEngine(scoringProfile);
+        forecastAnalyzer = new ForecastAnalyzer(scoringEngine);
+        binding.buttonProfile.setText(scoringProfile.getDisplayName());
+
+        // 「運動の種類」ボタンのクリックリスナー設定 (押すたびに次の種類に切り替える)
+        binding.buttonProfile.setOnClickListener(view -> {
+            scoringProfile = scoringProfile.next();
+            scoringEngine = new ThresholdScoringEngine(scoringProfile);
+            forecastAnalyzer = new ForecastAnalyzer(scoringEngine);
+            binding.buttonProfile.setText(scoringProfile.getDisplayName());
+            settings.edit().putString(KEY_SCORING_PROFILE, scoringProfile.name()).apply();
+
+            // 表示中のデータがあれば新しい採点基準で再分析する (読み込み済みの3日目以降も含む)
+            forecastPager.setScoringEngine(scoringEngine);
+            if (lastHourly != null) {
+                analyzeAndDisplayWeather(lastHourly);
+            }
+        });
+
+        // 予報の日数の設定。前回選んだものを復元する
+        horizonDays = settings.getInt(KEY_FORECAST_HORIZON, OpenMeteoApi.FORECAST_DAYS);
+        binding.buttonHorizon.setText(horizonLabel(horizonDays));
+
+        // 「予報の日数」ボタンのクリックリスナー設定 (押すたびに次の日数に切り替える)
+        binding.buttonHorizon.setOnClickListener(view -> {
+            horizonDays = nextHorizon(horizonDays);
+            binding.buttonHorizon.setText(horizonLabel(horizonDays));
+            settings.edit().putInt(KEY_FORECAST_HORIZON, horizonDays).apply();
+            forecastPager.setHorizonDays(horizonDays);
+            // 末尾を表示中の場合はスクロールを待たずに読み込む
+            forecastPager.onScrolled(layoutManager.findLastVisibleItemPosition(),
+                    hourlyForecastAdapter.getItemCount());
+        });
+
+        // 「地点比較」ボタンのクリックリスナー設定 (保存した地点と現在の地点でおすすめを比較する)
+        binding.buttonCompare.setOnClickListener(view -> {
+            binding.textViewResult.setText("保存した地点の天気情報を取得中...");
+            compareSavedLocations();
+        });
+
         // 「場所を変更」ボタンのクリックリスナー設定
         Button changeLocationButton = findViewById(R.id.buttonChangeLocation);
         changeLocationButton.setOnClickListener(view -> {
             // MainActivity2に戻る
             finish();
         });
+
+        // 先読み済みのデータがあればボタンを押さなくてもすぐに表示する (古い場合のみ裏で再取得)
+        binding.textViewResult.setText("天気情報を取得中...");
+        fetchWeatherData(latitude, longitude);
+
+        // この地点をバックグラウンドの先読みの対象にし、定期的な先読みを登録する
+        // WorkManager の初期化は表示に関係しないため、最初の描画の後に行う
+        binding.getRoot().post(() -> {
+            ForecastPrefetchWorker.rememberLastLocation(this, Double.parseDouble(latitude), Double.parseDouble(longitude));
+            ForecastPrefetchWorker.schedule(this);
+        });
     }
 
 
     /**
      * Open-Meteo APIを使用して天気情報を取得するメソッド
-     * 指定された緯度・経度に基づいて、現在から2日間の時間ごとの天気予報データを取得します。
+     * 指定された緯度・経度に基づいて、今日・明日の時間ごとの天気予報データを取得します。
+     * 3日目以降は、予報の日数に応じて {@link ForecastPager} がスクロールに合わせて読み込みます。
+     * キャッシュにデータがあれば先に表示し、データが古い場合のみ裏で再取得します。
+     * 場所変更画面で先読みを始めている場合は、その結果が届き次第表示します。
      *
      * @param latitude  緯度 (例: "35.6895")
      * @param longitude 経度 (例: "139.6917")
      */
     private void fetchWeatherData(String latitude, String longitude) {
-        // APIエンドポイントのURLを構築（緯度経度から気温、湿度、降水確率、風速、体感温度を日本時間で2日ぶん取得）
-        String url = "https://api.open-meteo.com/v1/forecast" +
-                "?latitude=" + latitude +
-                "&longitude=" + longitude +
-                "&hourly=temperature_2m,relativehumidity_2m,precipitation_probability,windspeed_10m,apparent_temperature" +
-                "&timezone=Asia%2FTokyo" +
-                "&forecast_days=2";
-        Request request = new Request.Builder().url(url).build();
-
-        // 非同期でAPIリクエストを実行
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                // 通信失敗時の処理：UIスレッドでエラーメッセージを表示
-                runOnUiThread(() -> binding.textViewResult.setText("通信に失敗"));
-            }
-
-            // 通信成功時の処理
-            @Override
-            public void onResponse(Call call, Response response) {
-                try (Response r = response) {
-                    // レスポンスコードを確認 (200 OK以外はエラー扱い)
-                    if (!r.isSuccessful()) {
-                        runOnUiThread(() -> binding.textViewResult.setText("正常に取得できず"));
-                        return;
+        final int version = ++displayVersion;
+        forecastPager.reset(Double.parseDouble(latitude), Double.parseDouble(longitude), horizonDays, scoringEngine);
+        boolean[] hasCachedData = {false};
+        // 同じ地点の取得が実行中なら合流できるよう、前の取得は新しい取得を始めてから取り消す
+        ForecastRepository.Handle previousLoad = currentLoad;
+        currentLoad = forecastRepository.load(Double.parseDouble(latitude), Double.parseDouble(longitude),
+                new ForecastRepository.Listener() {
+                    @Override
+                    public void onForecast(HourlyColumns hourly, boolean fromCache) {
+                        // メモリ上のキャッシュはUIスレッド、それ以外 (ファイル・履歴・通信) はバックグラウンドスレッドから届く
+                        runOnUiThread(() -> {
+                            if (version != displayVersion) {
+                                return; // より新しい取得が始まっている
+                            }
+                            if (fromCache) {
+                                hasCachedData[0] = true;
+                            }
+                            // データ取得成功：分析を依頼して結果を表示
+                            analyzeAndDisplayWeather(hourly);
+                        });
                     }
 
-
-                    // レスポンスボディを文字列として取得し、MoshiでJavaオブジェクトに変換
-                    String responseBody = r.body().string();
-                    JsonAdapter<MeteoApiResponse> jsonAdapter = moshi.adapter(MeteoApiResponse.class);
-                    MeteoApiResponse meteoData = jsonAdapter.fromJson(responseBody);
-
-                    if (meteoData != null) {
-                        // データ取得成功：UIスレッドで結果を分析・表示
-                        runOnUiThread(() -> analyzeAndDisplayWeather(meteoData));
+                    @Override
+                    public void onFailure(String message) {
+                        // キャッシュを表示中の場合は表示を残したまま通知のみ行う
+                        runOnUiThread(() -> {
+                            if (version != displayVersion) {
+                                return;
+                            }
+                            if (hasCachedData[0]) {
+                                Toast.makeText(MainActivity.this, "更新に失敗しました（保存済みのデータを表示中）", Toast.LENGTH_SHORT).show();
+                            } else {
+                                binding.textViewResult.setText(message);
+                                reportFullyDrawn();
+                            }
+                        });
                     }
-
-                } catch (IOException e) {
-                    // JSONのパース失敗や通信のその他エラー
-                    runOnUiThread(() -> binding.textViewResult.setText("データの解析に失敗しました"));
-                    e.printStackTrace();
-                }
-            }
-        });
+                });
+        if (previousLoad != null) {
+            previousLoad.cancel();
+        }
     }
 
 
     /**
-     * 取得した天気情報を分析し、運動に適した時間をスコアリングして表示するメソッド
-     * 
-     * 1. 取得データを解析して HourlyItem リストを作成
-     * 2. RecyclerViewのアダプターにデータをセット
-     * 3. スコアが高い順におすすめの時間帯トップ3を表示
-     *
-     * @param meteoData 取得した天気情報レスポンス
+     * 保存した地点と現在の地点の天気情報を取得し、全地点の中からおすすめの時間と場所を表示するメソッド
+     * キャッシュにない (または古い) 地点だけを、1回のリクエストにまとめて取得します。
      */
-    private void analyzeAndDisplayWeather(MeteoApiResponse meteoData) {
-        // 天気情報の解析とメッセージ生成
-        MeteoApiResponse.Hourly hourly = meteoData.hourly;
-
-        // APIからデータが十分に取得できているか確認
-        if (hourly == null || hourly.time == null || hourly.time.isEmpty()) {
-            binding.textViewResult.setText("表示できる天気情報がありません。");
+    private void compareSavedLocations() {
+        List<SavedLocation> saved = savedLocationStore.getAll();
+        if (saved.isEmpty()) {
+            binding.textViewResult.setText("比較する地点がありません。\n「場所変更」画面で地点を保存してください。");
             return;
         }
 
-        // スコアと時間データのインデックスを保持するためのインナークラス
-        class TimeScore implements Comparable<TimeScore> {
-            final int index;
-            final double score;
-
-            TimeScore(int index, double score) {
-                this.index = index;
-                this.score = score;
-            }
+        // 現在の地点を先頭にして、保存した地点を並べる
+        List<SavedLocation> locations = new ArrayList<>();
+        locations.add(new SavedLocation("選択中の地点", Double.parseDouble(latitude), Double.parseDouble(longitude)));
+        locations.addAll(saved);
+
+        int count = locations.size();
+        String[] names = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            SavedLocation location = locations.get(i);
+            names[i] = location.name;
+            latitudes[i] = location.latitude;
+            longitudes[i] = location.longitude;
+        }
 
+        if (compareLoad != null) {
+            compareLoad.cancel();
+        }
+        final int version = ++displayVersion;
+        compareLoad = forecastRepository.loadAll(latitudes, longitudes, new ForecastRepository.MultiListener() {
             @Override
-            public int compareTo(TimeScore other) {
-                // スコアの降順でソートするための比較
-                return Double.compare(other.score, this.score);
+            public void onForecasts(HourlyColumns[] columns) {
+                runOnUiThread(() -> {
+                    if (version == displayVersion) {
+                        analyzeAndDisplayLocations(columns, names);
+                    }
+                });
             }
-        }
 
-        // 現在の日時を取得
-        LocalDateTime now = LocalDateTime.now();
-        LocalDate today = now.toLocalDate();
-        LocalDate tomorrow = today.plusDays(1);
-
-        List<TimeScore> scoreList = new ArrayList<>();
-        List<HourlyForecastAdapter.HourlyItem> hourlyItems = new ArrayList<>();
-
-        // 各時間のデータをチェックし、スコアをリストに追加
-        for (int i = 0; i < hourly.time.size(); i++) {
-            LocalDateTime forecastTime;
-            try {
-                // APIからの時刻文字列 ("YYYY-MM-DDTHH:MM") をパース
-                forecastTime = LocalDateTime.parse(hourly.time.get(i));
-            } catch (Exception e) {
-                continue; // パースに失敗した場合はスキップ
+            @Override
+            public void onFailure(String message) {
+                runOnUiThread(() -> {
+                    if (version == displayVersion) {
+                        binding.textViewResult.setText(message);
+                    }
+                });
             }
+        });
+    }
 
-            // 今日または明日のデータをリスト用に追加
-             if (forecastTime.toLocalDate().isEqual(today) || forecastTime.toLocalDate().isEqual(tomorrow)) {
-                double temp = hourly.temperature_2m.get(i);
-                double apparentTemp = hourly.apparent_temperature.get(i);
-                int precip = hourly.precipitation_probability.get(i);
-                double wind = hourly.windspeed_10m.get(i);
-                int humidity = hourly.relativehumidity_2m.get(i);
-                
-                // 日付を含めた表示形式 (例: 12/09 10:00)
-                String timeStr = String.format(Locale.JAPAN, "%02d/%02d %02d:%02d",
-                        forecastTime.getMonthValue(),
-                        forecastTime.getDayOfMonth(),
-                        forecastTime.getHour(),
-                        forecastTime.getMinute());
-                
-                // 全ての時間のスコアを計算
-                double itemScore = calculateExerciseScore(temp, apparentTemp, precip, wind, humidity);
-
-                hourlyItems.add(new HourlyForecastAdapter.HourlyItem(
-                        timeStr, 
-                        temp, 
-                        precip, 
-                        humidity, 
-                        wind,
-                        itemScore // スコアをコンストラクタに渡す
-                ));
-
-                // 現在時刻より後のみを対象にランキング用スコアリストに追加
-                 if (forecastTime.isAfter(now)) {
-                    scoreList.add(new TimeScore(i, itemScore));
-                 }
-             }
-        }
-        
-        // アダプターにデータをセット
-        hourlyForecastAdapter.setHourlyItems(hourlyItems);
-
-        // スコアの降順にソート
-        Collections.sort(scoreList);
-
-        // --- 結果の表示 ---
-
-        // 1. トップ3の詳細情報を textViewResult に表示
-        StringBuilder resultText = new StringBuilder();
-        resultText.append("【おすすめの運動時間 Top 3】\n");
-        
-        if (scoreList.isEmpty()) {
-            resultText.append("この期間、運動に適した時間帯は見つかりませんでした。\n");
-        } else {
-            // 表示する件数をリストのサイズと3の小さい方に合わせる
-            int limit = Math.min(scoreList.size(), 3);
-            for (int i = 0; i < limit; i++) {
-                TimeScore timeScore = scoreList.get(i);
-                int idx = timeScore.index;
-                
-                LocalDateTime timeObj = LocalDateTime.parse(hourly.time.get(idx));
-                String timeDisplay = String.format(Locale.JAPAN, "%02d/%02d %02d:%02d",
-                        timeObj.getMonthValue(),
-                        timeObj.getDayOfMonth(),
-                        timeObj.getHour(),
-                        timeObj.getMinute());
-                        
-                double temp = hourly.temperature_2m.get(idx);
-                double score = timeScore.score;
-
-                // 1位の場合は少し詳細を表示、2,3位はシンプルに
-                resultText.append(String.format(Locale.JAPAN, "No.%d: %s (%.0f点)\n", i + 1, timeDisplay, score));
-                if (i == 0) {
-                     resultText.append("  ").append(generateWeatherMessage(temp, hourly.precipitation_probability.get(idx), hourly.apparent_temperature.get(idx))).append("\n");
-                }
-            }
-        }
-        binding.textViewResult.setText(resultText.toString());
+    /**
+     * 複数地点の天気情報の比較をバックグラウンドに依頼し、結果を表示するメソッド
+     */
+    private void analyzeAndDisplayLocations(HourlyColumns[] columns, String[] names) {
+        ForecastAnalyzer analyzer = forecastAnalyzer;
+        forecastPipeline.submit(
+                () -> analyzer.analyzeLocations(columns, names, System.currentTimeMillis() / 1000),
+                text -> binding.textViewResult.setText(text),
+                message -> binding.textViewResult.setText(message));
     }
 
+    /**
+     * 取得した天気情報の分析をバックグラウンドに依頼し、結果を表示するメソッド
+     * スコア計算やランキングは {@link ForecastPipeline} で行い、UIスレッドでは表示のみ行います。
+     *
+     * @param hourly 取得した1時間ごとの天気情報
+     */
+    private void analyzeAndDisplayWeather(HourlyColumns hourly) {
+        lastHourly = hourly;
+        forecastPipeline.submit(hourly, forecastAnalyzer, this::displayForecast,
+                message -> binding.textViewResult.setText(message));
+    }
 
     /**
-     * 天気データに基づいて運動のしやすさをスコアリングするメソッド
-     * 気温、体感温度、降水確率、風速から算出します。
-     * 
-     * ■ 採点基準 (100点満点からの減点方式)
-     * - 降水確率: 雨は大敵。確率が高いほど大きく減点。
-     * - 気温/体感温度: 暑すぎる(熱中症リスク)、寒すぎる場合は減点。
-     * - 湿度/不快指数: 気温が高く多湿な場合は減点。
-     * - 風速: 強風は減点。
+     * 分析結果を画面に反映するメソッド
      *
-     * @param temperature 気温 (℃)
-     * @param apparentTemperature 体感温度 (℃)
-     * @param precipitationProbability 降水確率 (%)
-     * @param windspeed 風速 (km/h)
-     * @param humidity 湿度 (%)
-     * @return 0から100のスコア
+     * @param result バックグラウンドで作成した分析結果
      */
-    private double calculateExerciseScore(double temperature, double apparentTemperature,
-                                          int precipitationProbability, double windspeed, int humidity) {
-        
-        double score = 100.0;
-
-        // 1. 降水確率 (最優先)
-        // 運動に雨は大敵。30%を超えると徐々に減点、60%以上は大きく減点
-        if (precipitationProbability >= 80) {
-            score -= 80;
-        } else if (precipitationProbability >= 50) {
-            score -= 50;
-        } else if (precipitationProbability >= 30) {
-            score -= 20;
-        } // 0-20%は減点なし
-
-        // 2. 気温・体感温度 (重要)
-        // 運動に最適なのは 15℃〜25℃ 程度とする
-        // 暑さ対策: 熱中症リスク
-        if (apparentTemperature > 35) {
-            score -= 100; // 運動危険
-        } else if (apparentTemperature > 31) {
-            score -= 60;  // 厳重警戒
-        } else if (apparentTemperature > 28) {
-            score -= 30;  // 警戒
+    private void displayForecast(ForecastResult result) {
+        if (result.hasForecast()) {
+            // アダプターに差分更新を依頼 (再描画した行数はデバッグ表示で確認できる)
+            forecastPager.setFirstPage(result);
         }
-        
-        // 寒さ対策
-        if (temperature < 0) {
-            score -= 40;
-        } else if (temperature < 5) {
-            score -= 20;
-        } else if (temperature < 10) {
-            score -= 10;
+        binding.textViewResult.setText(result.summary);
+        // 最初の予報を表示した時点で表示の完了とする (起動時間の計測用、2回目以降の呼び出しは無視される)
+        reportFullyDrawn();
+
+        if (result.hasForecast() && searchSpan != null) {
+            // 表示を更新したフレームの描画が終わってから計測を終える
+            MetricsRegistry.Span span = searchSpan;
+            searchSpan = null;
+            binding.getRoot().post(() -> {
+                span.close();
+                updateMetricsPanel();
+            });
+        } else {
+            updateMetricsPanel();
         }
+    }
 
-        // 3. 不快指数 (湿度 + 気温) 簡易判定
-        // 気温が高く湿度も高い場合はさらに減点
-        if (temperature > 25 && humidity > 80) {
-            score -= 15;
-        } else if (temperature > 25 && humidity > 60) {
-            score -= 10;
-        }
+    // 予報の日数の表示 (例: 7日間)
+    private static String horizonLabel(int days) {
+        return days + "日間";
+    }
 
-        // 4. 風 (強風は不適)
-        if (windspeed > 25) { // 約90km/hとかではないので、25km/h (約7m/s) 程度を基準に
-             score -= 30;
-        } else if (windspeed > 15) {
-             score -= 10;
+    // 選べる日数のうち次の日数 (最後の次は最初に戻る。保存された値が選択肢にない場合も最初に戻る)
+    private static int nextHorizon(int days) {
+        for (int i = 0; i < HORIZON_CHOICES.length - 1; i++) {
+            if (HORIZON_CHOICES[i] == days) {
+                return HORIZON_CHOICES[i + 1];
+            }
         }
-
-        // スコアの範囲を0〜100に収める
-        return Math.max(0, Math.min(100, score));
+        return HORIZON_CHOICES[0];
     }
 
     /**
-     * 天気条件に基づいて、ユーザーへのワンポイントアドバイスメッセージを生成するメソッド
-     * おすすめ時間の詳細表示に使用されます。
-     *
-     * @param temperature 気温
-     * @param precipitationProbability 降水確率
-     * @param apparentTemperature 体感温度
-     * @return アドバイスメッセージ
+     * 処理時間のデバッグ表示を最新の内容にするメソッド (表示中の場合のみ)
      */
-    private String generateWeatherMessage(double temperature, int precipitationProbability,
-                                          double apparentTemperature) {
-        // 危険度が高いものから順に判定する
+    private void updateMetricsPanel() {
+        if (binding.textViewMetrics.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        binding.textViewMetrics.setText(metrics.getSummary()
+                + "network: " + AppHttpClient.getResilience().getStatsSummary()
+                + "\nrepository: " + forecastRepository.getStatsSummary()
+                + "\ncache: " + ForecastCache.getInstance(this).getStatsSummary()
+                + "\nhistory: " + ForecastHistoryStore.getInstance(this).getStatsSummary()
+                + "\nprefetch: " + ForecastPrefetchWorker.getStatsSummary(this)
+                + "\npostal: " + PostalLookupCache.getInstance(this).getStatsSummary()
+                + "\nbinds: full=" + hourlyForecastAdapter.getFullBindCount()
+                + " partial=" + hourlyForecastAdapter.getPartialBindCount()
+                + "\n(タップでファイルに書き出し)");
+    }
 
-        // 熱中症・暑さに関する警告
-        if (apparentTemperature > 31) {
-            return "危険な暑さです。屋外運動は控えましょう。";
+    /**
+     * 処理時間の記録をファイルに書き出すメソッド
+     * ビルドを識別できるよう、ファイル名と内容にバージョン名・バージョンコードを含めます。
+     * 保存先はアプリ専用の外部ストレージ (adb pull で取り出せる) で、使えない場合は内部ストレージです。
+     */
+    private void exportMetrics() {
+        File directory = getExternalFilesDir("metrics");
+        if (directory == null) {
+            directory = new File(getFilesDir(), "metrics");
         }
-        
-        // 降水に関する警告
-        if (precipitationProbability > 50) {
-            return "雨が降る可能性があります。";
+        try {
+            File file = metrics.export(directory, buildName(), System.currentTimeMillis());
+            Log.d(TAG, "metrics exported: " + file);
+            Toast.makeText(this, "書き出しました: " + file.getName(), Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Log.w(TAG, "metrics export failed", e);
+            Toast.makeText(this, "書き出しに失敗しました", Toast.LENGTH_SHORT).show();
         }
+    }
 
-        // 快適な場合
-        if (temperature >= 15 && temperature <= 25 && precipitationProbability < 30) {
-            return "運動に最適なコンディションです！";
+    // バージョン名とバージョンコード (例: 1.0-1)
+    private String buildName() {
+        try {
+            PackageInfo info = getPackageManager().getPackageInfo(getPackageName(), 0);
+            return info.versionName + "-" + info.getLongVersionCode();
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
         }
+    }
 
-        // その他の一般的なアドバイス
-        if (temperature > 25) {
-            return "少し暑いです。水分補給を忘れずに。";
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // 画面の終了後に通信や分析の結果が届いても反映しないよう取り消す
+        if (currentLoad != null) {
+            currentLoad.cancel();
         }
-        if (temperature < 10) {
-            return "肌寒いです。体を冷やさないように。";
+        if (compareLoad != null) {
+            compareLoad.cancel();
+        }
+        forecastPipeline.shutdown();
+        forecastPager.shutdown();
+        if (searchSpan != null) {
+            searchSpan.cancel();
         }
-
-        return "良い運動日和になりますように。";
     }
-}
\ No newline at end of file
+}
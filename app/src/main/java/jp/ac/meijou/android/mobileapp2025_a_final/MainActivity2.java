@@ -3,8 +3,11 @@ package jp.ac.meijou.android.mobileapp2025_a_final;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.location.Location;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
@@ -19,40 +22,47 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationServices;
-import com.google.android.gms.tasks.OnSuccessListener;
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-
-import java.io.IOException;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-
 /**
  * 位置情報設定画面用のアクティビティ
  * 郵便番号検索やGPSによる現在地取得機能を提供します。
  */
 public class MainActivity2 extends AppCompatActivity {
 
-    private FusedLocationProviderClient fusedLocationClient;
+    // 入力途中の郵便番号で表示する候補の最大件数
+    private static final int MAX_SUGGESTIONS = 5;
+    // 入力が止まってから検索するまでの待ち時間
+    private static final long TYPING_DEBOUNCE_MILLIS = 300;
+    // 入力中に検索する桁数 (3桁で候補を表示、7桁で場所を設定)
+    private static final int SUGGEST_DIGITS = 3;
+
+    // 現在地の取得 (起動を遅らせないよう、初回の使用時に作成する)
+    private LocationProvider locationProvider;
     private double latitude = 0;    // 取得した緯度
     private double longitude = 0;   // 取得した経度
+    private String locationName;    // 取得した地点の名前 (保存時に使用)
     
-    // API通信用クライアント
-    private final OkHttpClient client = new OkHttpClient();
-    // JSONパース用インスタンス
-    private final Moshi moshi = new Moshi.Builder().build();
+    // 郵便番号検索の結果のキャッシュ (アプリ全体で共有、初回の検索時に作成する)
+    private PostalLookupCache postalLookupCache;
+    // 実行中の郵便番号検索 (新しい検索を始めるときに取り消す)
+    private PostalLookupCache.Lookup currentLookup;
+
+    // 天気予報データの取得 (位置が決まった時点で先読みを始め、結果をメイン画面に引き継ぐ)
+    // HTTPクライアントなどの作成を含むため、初回の位置の設定時に作成する
+    private ForecastRepository forecastRepository;
+
+    // 位置情報を更新する処理の番号 (UIスレッドからのみ更新)
+    // 郵便番号検索・現在地取得を始めるたびに増やし、古い処理の結果で位置情報を上書きしないようにする
+    private int locationGeneration = 0;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingTypingSearch;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main2);
+
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
             Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
             v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
@@ -65,6 +75,11 @@ public class MainActivity2 extends AppCompatActivity {
         sendButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                // 場所が未設定のまま (緯度・経度が 0, 0) 進まないようにする
+                if (locationName == null || !LocationProvider.isValid(latitude, longitude)) {
+                    Toast.makeText(MainActivity2.this, "先に場所を設定してください", Toast.LENGTH_SHORT).show();
+                    return;
+                }
                 // 画面1（MainActivity）へのIntentを作成
                 Intent intent = new Intent(MainActivity2.this, MainActivity.class);
 
@@ -86,12 +101,36 @@ public class MainActivity2 extends AppCompatActivity {
             if (postalCode.isEmpty()) {
                 Toast.makeText(this, "郵便番号を入力してください", Toast.LENGTH_SHORT).show();
             } else {
-                searchByPostalCode(postalCode);
+                searchByPostalCode(postalCode, false);
             }
         });
 
+        // 入力中の検索 (3桁・7桁になって入力が止まったときに検索)
+        postalInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
 
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
 
+            @Override
+            public void afterTextChanged(Editable s) {
+                onPostalInputChanged(s.toString());
+            }
+        });
+
+        // 「この地点を保存」ボタンの設定 (メイン画面の地点比較で使用)
+        Button saveLocationButton = findViewById(R.id.buttonSaveLocation);
+        saveLocationButton.setOnClickListener(v -> {
+            if (locationName == null) {
+                Toast.makeText(this, "先に場所を設定してください", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            new SavedLocationStore(this).add(new SavedLocation(locationName, latitude, longitude));
+            Toast.makeText(this, "「" + locationName + "」を保存しました", Toast.LENGTH_SHORT).show();
+        });
 
         // 「現在地を使用」ボタンの設定
         Button currentLocationButton = findViewById(R.id.buttonCurrentLocation);
@@ -100,17 +139,26 @@ public class MainActivity2 extends AppCompatActivity {
         });
 
         // アプリ起動時に位置情報の権限を確認し、許可されていれば現在地を取得します
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-            getCurrentLocation();
-        } else {
-            // 権限がない場合はリクエストを行う（ユーザーに許可を求める）
-            ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.ACCESS_FINE_LOCATION}, 1000);
-        }
+        // 最初の画面の描画を遅らせないよう、描画の後に始める
+        findViewById(R.id.main).post(() -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+                getCurrentLocation();
+            } else {
+                // 権限がない場合はリクエストを行う（ユーザーに許可を求める）
+                // 位置の表示を待つものがないため、この時点で表示の完了とする
+                reportFullyDrawn();
+                ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.ACCESS_FINE_LOCATION}, 1000);
+            }
+        });
     }
 
     /**
      * 現在地を取得するメソッド
-     * 権限があれば FusedLocationProviderClient を使用して最終測位位置を取得します。
+     * 権限があれば {@link LocationProvider} を使用して、保存した位置・最終測位位置をすぐに反映し、
+     * 新しい測位の結果で置き換えます。
      * 権限がない場合は、権限リクエストを行います。
      */
     private void getCurrentLocation() {
@@ -119,97 +167,235 @@ public class MainActivity2 extends AppCompatActivity {
             return;
         }
 
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
-        fusedLocationClient.getLastLocation()
-                .addOnSuccessListener(this, new OnSuccessListener<Location>() {
-                    @Override
-                    public void onSuccess(Location location) {
-                        // 最後に取得した位置情報。稀にnullになることがあります。
-                        if (location != null) {
-                            // 位置情報の取得成功
-                            latitude = location.getLatitude();
-                            longitude = location.getLongitude();
-                            
-                            // ステータステキストの更新
-                            TextView statusText = findViewById(R.id.textStatus);
-                            if (statusText != null) {
-                                statusText.setText("現在地を取得しました！");
-                                statusText.setTextColor(0xFF4CAF50); // 緑色
-                            }
-                        }
-                    }
-                });
+        final int generation = startLocationUpdate();
+        TextView statusText = findViewById(R.id.textStatus);
+        locationProvider().request(new LocationProvider.Listener() {
+            @Override
+            public void onLocation(LocationProvider.Fix fix, boolean isFinal) {
+                // 取得中に郵便番号検索などが始まっていた場合は、その結果を優先する
+                if (generation != locationGeneration) {
+                    return;
+                }
+                // 保存した位置・最終測位位置はすぐに使い、新しい測位が届いたら置き換える
+                latitude = fix.latitude;
+                longitude = fix.longitude;
+                locationName = "現在地";
+                // 開始ボタンが押される前に天気予報の取得を始めておく
+                forecastRepository().prefetch(latitude, longitude);
+
+                // ステータステキストの更新
+                statusText.setText(isFinal ? "現在地を取得しました！" : "現在地を取得しました (測位中...)");
+                statusText.setTextColor(0xFF4CAF50); // 緑色
+                // 最初の位置を表示した時点で表示の完了とする (起動時間の計測用)
+                reportFullyDrawn();
+            }
+
+            @Override
+            public void onUnavailable() {
+                if (generation != locationGeneration) {
+                    return;
+                }
+                statusText.setText("現在地を取得できませんでした\n郵便番号から設定してください");
+                reportFullyDrawn();
+            }
+        });
+    }
+
 
+    @Override
+    public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        // 権限が許可されたらすぐに現在地の取得を始める
+        if (requestCode == 1000 && grantResults.length > 0
+                && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+            getCurrentLocation();
+        }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        startLocationUpdate();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
 
     /**
-     * 郵便番号を使用して HeartRails Express API から位置情報を検索するメソッド
-     * 
-     * @param postalCode 検索する郵便番号 (ハイフンなし7桁推奨)
+     * 位置情報を更新する処理を新しく始めるメソッド
+     * 実行中の検索・入力待ちの検索を取り消し、新しい処理の番号を返します。
+     */
+    private int startLocationUpdate() {
+        if (pendingTypingSearch != null) {
+            mainHandler.removeCallbacks(pendingTypingSearch);
+            pendingTypingSearch = null;
+        }
+        if (currentLookup != null) {
+            currentLookup.cancel();
+            currentLookup = null;
+        }
+        if (locationProvider != null) {
+            locationProvider.cancel();
+        }
+        return ++locationGeneration;
+    }
+
+    /**
+     * 郵便番号の入力が変わったときに呼ばれるメソッド
+     * 3桁・7桁のときだけ、入力が止まるのを待ってから検索します。
      */
-    private void searchByPostalCode(String postalCode) {
+    private void onPostalInputChanged(String input) {
+        // 入力が変わった時点で、前の入力による検索は不要になる
+        startLocationUpdate();
+
+        String normalized = PostalLookupCache.normalize(input);
+        if (normalized == null) {
+            return;
+        }
+        int digits = normalized.length();
+        if (digits != SUGGEST_DIGITS && digits != PostalCodeIndex.CODE_DIGITS) {
+            return;
+        }
+        pendingTypingSearch = () -> {
+            pendingTypingSearch = null;
+            searchByPostalCode(input, true);
+        };
+        mainHandler.postDelayed(pendingTypingSearch, TYPING_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * 郵便番号から位置情報を検索するメソッド
+     * まず端末内の索引を検索し、見つからない場合だけ HeartRails Express API に問い合わせます。
+     * 7桁に満たない入力の場合は、先頭が一致する郵便番号の候補を表示します。
+     *
+     * @param postalCode 入力された郵便番号 (全角数字・ハイフンを含んでもよい)
+     * @param fromTyping 入力中の検索の場合は true (候補がなくてもメッセージを表示しない)
+     */
+    private void searchByPostalCode(String postalCode, boolean fromTyping) {
         TextView statusText = findViewById(R.id.textStatus);
-        statusText.setText("郵便番号から検索中...");
+        String normalized = PostalLookupCache.normalize(postalCode);
+        if (normalized == null || normalized.isEmpty()) {
+            statusText.setText("郵便番号は数字で入力してください");
+            return;
+        }
+
+        final int generation = startLocationUpdate();
+        PostalCodeIndex index = PostalCodeIndexLoader.get(this);
+        int code = PostalCodeIndex.parseCode(normalized);
+        if (code >= 0) {
+            int found = index.indexOf(code);
+            MetricsRegistry.getDefault().increment(found >= 0 ? "postal.index_hit" : "postal.index_miss");
+            if (found >= 0) {
+                applyLocation(statusText, index.latitude(found), index.longitude(found), index.name(found));
+                return;
+            }
+            searchByPostalCodeOnline(normalized, statusText, generation);
+            return;
+        }
+
+        int[] candidates = index.suggest(normalized, MAX_SUGGESTIONS);
+        if (candidates.length > 0) {
+            showSuggestions(statusText, index, candidates);
+        } else if (!fromTyping) {
+            statusText.setText("郵便番号は7桁で入力してください");
+        }
+    }
+
+    /**
+     * 入力途中の郵便番号に一致する候補を表示するメソッド
+     */
+    private void showSuggestions(TextView statusText, PostalCodeIndex index, int[] candidates) {
+        StringBuilder sb = new StringBuilder("候補:");
+        for (int i : candidates) {
+            sb.append('\n').append(PostalCodeIndex.formatCode(index.code(i))).append(' ').append(index.name(i));
+        }
+        statusText.setText(sb.toString());
+    }
+
+    /**
+     * 現在地の取得処理を返すメソッド (初回の呼び出し時に作成)
+     */
+    private LocationProvider locationProvider() {
+        if (locationProvider == null) {
+            locationProvider = new LocationProvider(this);
+        }
+        return locationProvider;
+    }
 
-        String url = "https://geoapi.heartrails.com/api/json?method=searchByPostal&postal=" + postalCode;
-        Request request = new Request.Builder().url(url).build();
+    /**
+     * 郵便番号検索のキャッシュを返すメソッド (初回の呼び出し時に取得)
+     * HTTPクライアントとJSONの変換処理は、最初の検索まで作成しません。
+     */
+    private PostalLookupCache postalLookupCache() {
+        if (postalLookupCache == null) {
+            postalLookupCache = PostalLookupCache.getInstance(this);
+        }
+        return postalLookupCache;
+    }
+
+    /**
+     * 天気予報データの取得処理を返すメソッド (初回の呼び出し時に取得)
+     */
+    private ForecastRepository forecastRepository() {
+        if (forecastRepository == null) {
+            forecastRepository = ForecastRepository.getInstance(this);
+        }
+        return forecastRepository;
+    }
+
+    /**
+     * 検索した位置情報を設定し、画面に表示するメソッド (UIスレッドから呼び出す)
+     */
+    private void applyLocation(TextView statusText, double lat, double lon, String locationName) {
+        latitude = lat;
+        longitude = lon;
+        this.locationName = locationName;
+        // 開始ボタンが押される前に天気予報の取得を始めておく
+        forecastRepository().prefetch(lat, lon);
+        statusText.setText("位置情報を設定しました:\n" + locationName);
+        statusText.setTextColor(0xFF4CAF50);
+        Toast.makeText(MainActivity2.this, "場所を設定しました", Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * 郵便番号を使用して HeartRails Express API から位置情報を検索するメソッド
+     * 端末内の索引に見つからなかった場合に使用します。
+     * 一度検索した郵便番号は {@link PostalLookupCache} に保存され、次回からは通信しません。
+     *
+     * @param postalCode 正規化した7桁の郵便番号
+     * @param generation この検索の番号 ({@link #startLocationUpdate()} の戻り値)
+     */
+    private void searchByPostalCodeOnline(String postalCode, TextView statusText, int generation) {
+        statusText.setText("郵便番号から検索中...");
 
-        client.newCall(request).enqueue(new Callback() {
+        currentLookup = postalLookupCache().lookup(postalCode, new PostalLookupCache.Listener() {
             @Override
-            public void onFailure(Call call, IOException e) {
+            public void onResult(HeartRailsResponse response) {
+                // 最初の候補地を取得（通常、郵便番号検索では1つまたは少数が返る）
+                HeartRailsResponse.Location loc = response.response.location.get(0);
+                String locationName = loc.prefecture + loc.city + loc.town;
                 runOnUiThread(() -> {
-                    Toast.makeText(MainActivity2.this, "通信エラー", Toast.LENGTH_SHORT).show();
-                    statusText.setText("通信に失敗しました");
+                    // 後から始まった検索がある場合は、古い結果で上書きしない
+                    if (generation != locationGeneration) {
+                        return;
+                    }
+                    try {
+                        // 座標文字列をdouble型に変換
+                        applyLocation(statusText, Double.parseDouble(loc.y), Double.parseDouble(loc.x), locationName);
+                    } catch (NumberFormatException e) {
+                        statusText.setText("データの解析に失敗しました");
+                    }
                 });
             }
 
             @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    runOnUiThread(() -> {
-                        Toast.makeText(MainActivity2.this, "検索に失敗しました", Toast.LENGTH_SHORT).show();
-                        statusText.setText("検索に失敗しました");
-                    });
-                    return;
-                }
-
-                String body = response.body().string();
-                JsonAdapter<HeartRailsResponse> adapter = moshi.adapter(HeartRailsResponse.class);
-                try {
-                    // JSONレスポンスをパースしてオブジェクトに変換
-                    HeartRailsResponse hrResponse = adapter.fromJson(body);
-                    
-                    // レスポンスが有効かつ、位置情報が含まれているか確認
-                    if (hrResponse != null && hrResponse.response != null && hrResponse.response.location != null && !hrResponse.response.location.isEmpty()) {
-                        // 最初の候補地を取得（通常、郵便番号検索では1つまたは少数が返る）
-                        HeartRailsResponse.Location loc = hrResponse.response.location.get(0);
-                        
-                        // 座標文字列をdouble型に変換
-                        double lat = Double.parseDouble(loc.y);
-                        double lon = Double.parseDouble(loc.x);
-                        String locationName = loc.prefecture + loc.city + loc.town;
-
-                        runOnUiThread(() -> {
-                            latitude = lat;
-                            longitude = lon;
-                            statusText.setText("位置情報を設定しました:\n" + locationName);
-                            statusText.setTextColor(0xFF4CAF50);
-                            Toast.makeText(MainActivity2.this, "場所を設定しました", Toast.LENGTH_SHORT).show();
-                        });
-
-                    } else {
-                        runOnUiThread(() -> {
-                            statusText.setText("該当する場所が見つかりませんでした");
-                            Toast.makeText(MainActivity2.this, "該当なし", Toast.LENGTH_SHORT).show();
-                        });
+            public void onFailure(String message) {
+                runOnUiThread(() -> {
+                    if (generation != locationGeneration) {
+                        return;
                     }
-                } catch (Exception e) {
-                   runOnUiThread(() -> {
-                       statusText.setText("データの解析に失敗しました");
-                   });
-                }
+                    Toast.makeText(MainActivity2.this, message, Toast.LENGTH_SHORT).show();
+                    statusText.setText(message);
+                });
             }
         });
     }
-}
\ No newline at end of file
+}
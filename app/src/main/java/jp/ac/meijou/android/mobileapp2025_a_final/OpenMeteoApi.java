@@ -0,0 +1,56 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.time.LocalDate;
+
+/**
+ * Open-Meteo API のリクエストURLを作成するクラス
+ * 画面からの取得とバックグラウンドの先読みで、同じ条件のURL (同じHTTPキャッシュのキー) を使うためにまとめています。
+ */
+public final class OpenMeteoApi {
+
+    // 最初に取得する予報の日数 (今日・明日)
+    public static final int FORECAST_DAYS = 2;
+
+    // 取得できる予報の最大の日数 (今日を含む)
+    public static final int MAX_FORECAST_DAYS = 16;
+
+    // 予報の時刻を表すタイムゾーン (Asia/Tokyo) のUTCからのずれ (秒)
+    public static final int UTC_OFFSET_SECONDS = 9 * 60 * 60;
+
+    private OpenMeteoApi() {
+    }
+
+    /**
+     * 予報を取得するURLを作成します
+     * 緯度経度から気温、湿度、降水確率、風速、体感温度を日本時間で取得します。
+     * 時刻は文字列のパースを省くためエポック秒 (unixtime) で受け取ります。
+     *
+     * @param latitudes    緯度 (複数地点の場合はカンマ区切り)
+     * @param longitudes   経度 (複数地点の場合はカンマ区切り)
+     * @param forecastDays 予報の日数
+     */
+    public static String forecastUrl(String latitudes, String longitudes, int forecastDays) {
+        return baseUrl(latitudes, longitudes) + "&forecast_days=" + forecastDays;
+    }
+
+    /**
+     * 指定した期間の予報を取得するURLを作成します (3日目以降をページ単位で取得する場合に使用)
+     *
+     * @param latitude  緯度
+     * @param longitude 経度
+     * @param startDate 最初の日 (日本時間)
+     * @param endDate   最後の日 (この日も含む)
+     */
+    public static String forecastUrl(String latitude, String longitude, LocalDate startDate, LocalDate endDate) {
+        return baseUrl(latitude, longitude) + "&start_date=" + startDate + "&end_date=" + endDate;
+    }
+
+    private static String baseUrl(String latitudes, String longitudes) {
+        return "https://api.open-meteo.com/v1/forecast" +
+                "?latitude=" + latitudes +
+                "&longitude=" + longitudes +
+                "&hourly=temperature_2m,relativehumidity_2m,precipitation_probability,windspeed_10m,apparent_temperature" +
+                "&timezone=Asia%2FTokyo" +
+                "&timeformat=unixtime";
+    }
+}
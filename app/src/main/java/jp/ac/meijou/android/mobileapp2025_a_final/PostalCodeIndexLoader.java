@@ -0,0 +1,60 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * アプリに同梱した郵便番号の索引 (assets/postal_index.bin) を開くクラス
+ * 索引はビルド時に :app:generatePostalIndex で元データから作成し、assets に追加します。
+ * 元データの版 (gradle.properties の postalIndex.sourceSha256) を固定していないビルドには索引がありません。
+ * 索引は APK 内で圧縮せずに格納し (build.gradle の noCompress)、APK のファイルを直接メモリマップします。
+ * 開くのはプロセスごとに1回だけで、索引がない・開けない場合は空の索引を返します。
+ */
+public final class PostalCodeIndexLoader {
+
+    private static final String TAG = "PostalCodeIndexLoader";
+    static final String ASSET_NAME = "postal_index.bin";
+
+    private static volatile PostalCodeIndex instance;
+
+    private PostalCodeIndexLoader() {
+    }
+
+    /**
+     * 郵便番号の索引を取得します
+     * 初回の呼び出しでファイルをメモリマップします (内容の読み込みは検索時に必要な部分だけ行われます)。
+     */
+    public static PostalCodeIndex get(Context context) {
+        PostalCodeIndex index = instance;
+        if (index == null) {
+            synchronized (PostalCodeIndexLoader.class) {
+                index = instance;
+                if (index == null) {
+                    index = open(context.getApplicationContext());
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static PostalCodeIndex open(Context context) {
+        try (AssetFileDescriptor descriptor = context.getAssets().openFd(ASSET_NAME);
+             FileInputStream in = new FileInputStream(descriptor.getFileDescriptor());
+             FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getDeclaredLength());
+            return PostalCodeIndex.from(buffer);
+        } catch (IOException | IllegalArgumentException e) {
+            // 索引がない場合は、すべての検索を HeartRails API で行う
+            Log.w(TAG, "郵便番号の索引を使用できません", e);
+            return PostalCodeIndex.EMPTY;
+        }
+    }
+}
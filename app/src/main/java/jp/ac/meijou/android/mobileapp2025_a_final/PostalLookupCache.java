@@ -0,0 +1,410 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+
+import com.squareup.moshi.JsonAdapter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * HeartRails Express API による郵便番号検索の結果をキャッシュするクラス
+ * 正規化した郵便番号 (7桁の数字) をキーにして、メモリ上の LRU と端末内のファイルに結果を保持します。
+ *
+ * 同じ郵便番号の検索が通信中に重なった場合 (ボタンの連打など) は、
+ * 新しい通信を行わずに実行中の通信の結果を共有します。
+ * 不要になった検索は {@link Lookup#cancel()} で取り消せます。待っている検索がなくなった通信は中断します。
+ */
+public class PostalLookupCache {
+
+    private static final String DIRECTORY_NAME = "postal_cache";
+
+    // メモリに保持する件数
+    private static final int MEMORY_CAPACITY = 64;
+
+    // 端末内のファイルを使う期間 (郵便番号の位置はほとんど変わらないため長めに保持)
+    private static final long MAX_AGE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final HttpUrl DEFAULT_BASE_URL = HttpUrl.get("https://geoapi.heartrails.com/api/json");
+
+    // JSONの変換用アダプター (リフレクションを使わないアダプターをプロセス内で共有する)
+    private static final JsonAdapter<HeartRailsResponse> ADAPTER = HeartRailsResponseJsonAdapter.INSTANCE;
+
+    private static PostalLookupCache instance;
+
+    private final File directory;
+    private final OkHttpClient client;
+    private final HttpUrl baseUrl;
+
+    // ファイルの読み込み用スレッド
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "postal-lookup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 最近使った順に並ぶ LRU (アクセス順の LinkedHashMap)
+    private final Map<String, HeartRailsResponse> memory =
+            new LinkedHashMap<String, HeartRailsResponse>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, HeartRailsResponse> eldest) {
+                    return size() > MEMORY_CAPACITY;
+                }
+            };
+
+    // 検索中の郵便番号と、その検索の状態
+    private final Map<String, Pending> inFlight = new HashMap<>();
+
+    // キャッシュの利用状況を表すカウンター
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger memoryHits = new AtomicInteger();
+    private final AtomicInteger diskHits = new AtomicInteger();
+    private final AtomicInteger networkFetches = new AtomicInteger();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+
+    /**
+     * 検索結果を受け取るリスナー
+     * メモリにある場合は呼び出したスレッドで、それ以外はバックグラウンドスレッドで呼ばれます。
+     */
+    public interface Listener {
+        /**
+         * 検索が完了したときに呼ばれます
+         *
+         * @param response 検索結果 (位置情報を1件以上含む)
+         */
+        void onResult(HeartRailsResponse response);
+
+        /**
+         * 該当する場所がない、または通信・解析に失敗したときに呼ばれます
+         *
+         * @param message 画面に表示するメッセージ
+         */
+        void onFailure(String message);
+    }
+
+    /**
+     * 1回分の検索を表すハンドル
+     */
+    public final class Lookup {
+        private final String postalCode;
+        private final Listener listener;
+
+        private Lookup(String postalCode, Listener listener) {
+            this.postalCode = postalCode;
+            this.listener = listener;
+        }
+
+        /**
+         * 検索を取り消します。取り消した後はリスナーが呼ばれません
+         * 完了済みの検索に対して呼び出した場合は何もしません。
+         */
+        public void cancel() {
+            PostalLookupCache.this.cancel(this);
+        }
+    }
+
+    // 1つの郵便番号について実行中の検索 (ファイルの読み込み、または通信)
+    private static class Pending {
+        final List<Lookup> waiting = new ArrayList<>();
+        Call call;
+    }
+
+    PostalLookupCache(File directory, OkHttpClient client, HttpUrl baseUrl) {
+        this.directory = directory;
+        this.client = client;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * アプリ全体で共有するキャッシュを取得します
+     */
+    public static synchronized PostalLookupCache getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new PostalLookupCache(new File(app.getCacheDir(), DIRECTORY_NAME),
+                    AppHttpClient.get(app), DEFAULT_BASE_URL);
+        }
+        return instance;
+    }
+
+    /**
+     * 入力された郵便番号を数字だけの文字列に正規化します
+     * 全角数字は半角に変換し、ハイフン・長音記号・空白・「〒」は取り除きます。
+     *
+     * @return 数字だけの文字列 (桁数は確認しない)。それ以外の文字を含む場合は null
+     */
+    public static String normalize(String input) {
+        StringBuilder sb = new StringBuilder(PostalCodeIndex.CODE_DIGITS);
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            } else if (c >= '０' && c <= '９') {
+                sb.append((char) ('0' + (c - '０')));
+            } else if (c == '-' || c == '－' || c == 'ー' || c == '‐' || c == '−' || c == '〒'
+                    || Character.isWhitespace(c) || c == '　') {
+                continue;
+            } else {
+                return null;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 郵便番号から場所を検索します
+     *
+     * @param postalCode {@link #normalize(String)} で正規化した7桁の郵便番号
+     * @param listener   結果を受け取るリスナー
+     * @return 検索を取り消すためのハンドル
+     */
+    public Lookup lookup(String postalCode, Listener listener) {
+        lookups.incrementAndGet();
+        Lookup lookup = new Lookup(postalCode, listener);
+        HeartRailsResponse cached;
+        Pending pending;
+        synchronized (this) {
+            cached = memory.get(postalCode);
+            if (cached == null) {
+                pending = inFlight.get(postalCode);
+                if (pending != null) {
+                    // 同じ郵便番号を検索中なので、その結果を待つ
+                    coalesced.incrementAndGet();
+                    pending.waiting.add(lookup);
+                    return lookup;
+                }
+                pending = new Pending();
+                pending.waiting.add(lookup);
+                inFlight.put(postalCode, pending);
+            } else {
+                pending = null;
+            }
+        }
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            listener.onResult(cached);
+            return lookup;
+        }
+
+        final Pending started = pending;
+        diskExecutor.execute(() -> {
+            HeartRailsResponse stored = readFromDisk(postalCode);
+            if (stored != null) {
+                diskHits.incrementAndGet();
+                complete(postalCode, started, stored, null);
+            } else {
+                fetch(postalCode, started);
+            }
+        });
+        return lookup;
+    }
+
+    /**
+     * 検索した回数
+     */
+    public int getLookupCount() {
+        return lookups.get();
+    }
+
+    /**
+     * メモリ上のキャッシュで解決した回数
+     */
+    public int getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    /**
+     * 端末内のファイルで解決した回数
+     */
+    public int getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    /**
+     * HeartRails API に問い合わせた回数
+     */
+    public int getNetworkFetchCount() {
+        return networkFetches.get();
+    }
+
+    /**
+     * 検索中の通信の結果を共有した (通信を省略した) 回数
+     */
+    public int getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * 取り消された検索の回数
+     */
+    public int getCancelledCount() {
+        return cancelled.get();
+    }
+
+    /**
+     * 通信せずに解決できた割合 (0.0〜1.0)
+     */
+    public double getHitRate() {
+        int total = lookups.get();
+        return total == 0 ? 0 : (double) (total - networkFetches.get()) / total;
+    }
+
+    /**
+     * 利用状況をまとめた文字列を返します (ログ出力用)
+     */
+    public String getStatsSummary() {
+        return String.format(Locale.US, "lookups=%d memory=%d disk=%d network=%d coalesced=%d cancelled=%d hitRate=%.2f",
+                getLookupCount(), getMemoryHitCount(), getDiskHitCount(), getNetworkFetchCount(),
+                getCoalescedCount(), getCancelledCount(), getHitRate());
+    }
+
+    // 検索を取り消し、待っている検索がなくなった場合は通信も中断する
+    private void cancel(Lookup lookup) {
+        Call call = null;
+        synchronized (this) {
+            Pending pending = inFlight.get(lookup.postalCode);
+            if (pending == null || !pending.waiting.remove(lookup)) {
+                return;
+            }
+            cancelled.incrementAndGet();
+            if (pending.waiting.isEmpty()) {
+                inFlight.remove(lookup.postalCode);
+                call = pending.call;
+            }
+        }
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    private void fetch(String postalCode, Pending pending) {
+        HttpUrl url = baseUrl.newBuilder()
+                .addQueryParameter("method", "searchByPostal")
+                .addQueryParameter("postal", postalCode)
+                .build();
+        Call call = client.newCall(new Request.Builder().url(url).build());
+        synchronized (this) {
+            if (inFlight.get(postalCode) != pending) {
+                return; // ファイルを読んでいる間にすべて取り消された
+            }
+            pending.call = call;
+        }
+        networkFetches.incrementAndGet();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                complete(postalCode, pending, null, e instanceof ResilienceInterceptor.CircuitOpenException
+                        ? ResilienceInterceptor.CIRCUIT_OPEN_MESSAGE
+                        : "通信に失敗しました");
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    if (!r.isSuccessful()) {
+                        complete(postalCode, pending, null, "検索に失敗しました");
+                        return;
+                    }
+                    String body = r.body().string();
+                    HeartRailsResponse parsed = ADAPTER.fromJson(body);
+                    if (!hasLocation(parsed)) {
+                        complete(postalCode, pending, null, "該当する場所が見つかりませんでした");
+                        return;
+                    }
+                    writeToDisk(postalCode, body);
+                    complete(postalCode, pending, parsed, null);
+                } catch (Exception e) {
+                    complete(postalCode, pending, null, "データの解析に失敗しました");
+                }
+            }
+        });
+    }
+
+    // 結果をキャッシュに入れ、待っているリスナーすべてに通知する
+    private void complete(String postalCode, Pending pending, HeartRailsResponse response, String errorMessage) {
+        List<Lookup> waiting;
+        synchronized (this) {
+            if (response != null) {
+                memory.put(postalCode, response);
+            }
+            if (inFlight.get(postalCode) != pending) {
+                return; // すべて取り消された (同じ郵便番号の新しい検索が始まっている場合もある)
+            }
+            inFlight.remove(postalCode);
+            waiting = new ArrayList<>(pending.waiting);
+        }
+        for (Lookup lookup : waiting) {
+            if (response != null) {
+                lookup.listener.onResult(response);
+            } else {
+                lookup.listener.onFailure(errorMessage);
+            }
+        }
+    }
+
+    private static boolean hasLocation(HeartRailsResponse response) {
+        return response != null && response.response != null
+                && response.response.location != null && !response.response.location.isEmpty();
+    }
+
+    private File fileFor(String postalCode) {
+        return new File(directory, postalCode + ".json");
+    }
+
+    // ファイル形式: HeartRails API のレスポンス (JSON) をそのまま保存
+    private HeartRailsResponse readFromDisk(String postalCode) {
+        File file = fileFor(postalCode);
+        if (!file.isFile()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - file.lastModified() > MAX_AGE_MILLIS) {
+            file.delete();
+            return null;
+        }
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            HeartRailsResponse response = ADAPTER.fromJson(source);
+            return hasLocation(response) ? response : null;
+        } catch (IOException | RuntimeException e) {
+            // 壊れたファイルは削除して、キャッシュなしとして扱う
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeToDisk(String postalCode, String body) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        // 書き込み途中のファイルを読まないよう、一時ファイルに書いてから置き換える
+        File tmp = new File(directory, postalCode + ".tmp");
+        try (BufferedSink sink = Okio.buffer(Okio.sink(tmp))) {
+            sink.writeUtf8(body);
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(fileFor(postalCode))) {
+            tmp.delete();
+        }
+    }
+}
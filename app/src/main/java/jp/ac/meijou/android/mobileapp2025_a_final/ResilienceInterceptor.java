@@ -0,0 +1,285 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 接続先 (API) ごとの方針 ({@link EndpointPolicy}) に従って、通信を失敗に強くするインターセプター
+ *
+ * ■ 行うこと
+ * - タイムアウト: 接続先ごとに接続・読み込みのタイムアウトを設定する
+ * - 再試行: GET などの何度送っても結果が変わらないリクエストだけを、通信エラーや 5xx / 429 の場合に再試行する
+ *   (待ち時間は回数ごとに倍にし、ランダムにばらつかせる。全体の制限時間を超える場合は再試行しない)
+ * - サーキットブレーカー: 失敗が続いた接続先には一定時間リクエストを送らず、
+ *   HTTPキャッシュに保存済みのレスポンスがあればそれを返す ({@link #HEADER_FALLBACK} を付与)。
+ *   保存済みのレスポンスがなければ {@link CircuitOpenException} ですぐに失敗する
+ * - 処理時間の記録: 接続先ごとに、再試行を含めた1回の呼び出しにかかった時間をヒストグラムに記録する
+ *
+ * どの方針にも該当しないホストへのリクエストは、そのまま送ります。
+ * HTTPキャッシュより外側 (アプリケーションインターセプター) に登録してください。
+ */
+public class ResilienceInterceptor implements Interceptor {
+
+    /**
+     * サーキットブレーカーが開いているため、HTTPキャッシュのレスポンスを返したことを示すヘッダー
+     */
+    public static final String HEADER_FALLBACK = "X-Circuit-Fallback";
+
+    /**
+     * サーキットブレーカーが開いているときに画面に表示するメッセージ
+     */
+    public static final String CIRCUIT_OPEN_MESSAGE = "サーバーに接続できない状態が続いています。しばらくしてから再度お試しください";
+
+    /**
+     * 再試行までの待機 (テストでは実際に待たずに記録だけ行う)
+     */
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * サーキットブレーカーが開いていて、保存済みのレスポンスもないため、リクエストを送らなかったことを表す例外
+     */
+    public static class CircuitOpenException extends IOException {
+        CircuitOpenException(String endpointName) {
+            super("circuit open: " + endpointName);
+        }
+    }
+
+    /**
+     * 1つの接続先の状態 (サーキットブレーカーと統計情報)
+     */
+    public static final class Endpoint {
+        public final EndpointPolicy policy;
+        final CircuitBreaker breaker;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong fallbacks = new AtomicLong();
+
+        Endpoint(EndpointPolicy policy, LongSupplier clockMillis) {
+            this.policy = policy;
+            this.breaker = new CircuitBreaker(policy.failureThreshold, policy.openMillis, clockMillis);
+        }
+
+        /**
+         * 再試行を含めた1回の呼び出しにかかった時間
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public CircuitBreaker.State getCircuitState() {
+            return breaker.getState();
+        }
+
+        public long getRetryCount() {
+            return retries.get();
+        }
+
+        /**
+         * サーキットブレーカーが開いていたため、送らなかったリクエストの数 (キャッシュを返した場合も含む)
+         */
+        public long getRejectedCount() {
+            return rejected.get();
+        }
+
+        /**
+         * サーキットブレーカーが開いていたため、HTTPキャッシュのレスポンスを返した回数
+         */
+        public long getFallbackCount() {
+            return fallbacks.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %s calls=%d retries=%d failures=%d circuit=%s opened=%d rejected=%d fallback=%d",
+                    policy.name, latency, calls.get(), retries.get(), failures.get(), breaker.getState(),
+                    breaker.getOpenCount(), rejected.get(), fallbacks.get());
+        }
+    }
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final Sleeper sleeper;
+    private final DoubleSupplier random;
+
+    /**
+     * @param policies 接続先ごとの方針
+     */
+    public ResilienceInterceptor(List<EndpointPolicy> policies) {
+        this(policies, () -> System.nanoTime() / 1_000_000, Thread::sleep, new Random()::nextDouble);
+    }
+
+    ResilienceInterceptor(List<EndpointPolicy> policies, LongSupplier clockMillis, Sleeper sleeper, DoubleSupplier random) {
+        for (EndpointPolicy policy : policies) {
+            endpoints.add(new Endpoint(policy, clockMillis));
+        }
+        this.sleeper = sleeper;
+        this.random = random;
+    }
+
+    /**
+     * 指定したホストに該当する接続先の状態を返します (該当しない場合は null)
+     */
+    public Endpoint endpointFor(String host) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.policy.matches(host)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 接続先ごとの統計情報をまとめた文字列を返します (ログ出力用)
+     */
+    public String getStatsSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Endpoint endpoint : endpoints) {
+            if (summary.length() > 0) {
+                summary.append(" / ");
+            }
+            summary.append(endpoint);
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Endpoint endpoint = endpointFor(request.url().host());
+        if (endpoint == null) {
+            return chain.proceed(request);
+        }
+        EndpointPolicy policy = endpoint.policy;
+        Chain timed = chain
+                .withConnectTimeout(policy.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .withReadTimeout(policy.readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .withWriteTimeout(policy.readTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        if (!endpoint.breaker.allowRequest()) {
+            return fallback(timed, endpoint, request);
+        }
+
+        endpoint.calls.incrementAndGet();
+        boolean idempotent = request.method().equals("GET") || request.method().equals("HEAD");
+        long start = System.nanoTime();
+        int attempt = 0;
+        while (true) {
+            Response response = null;
+            IOException error = null;
+            try {
+                response = timed.proceed(request);
+            } catch (IOException e) {
+                error = e;
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+            // 取り消された場合は成功とも失敗とも数えない
+            if (chain.call().isCanceled()) {
+                endpoint.breaker.onCancel();
+                if (response != null) {
+                    return response;
+                }
+                throw error;
+            }
+
+            if (response != null && !isRetryable(response.code())) {
+                // サーバーが応答した (4xx も接続先は生きているので成功として扱う)
+                endpoint.breaker.onSuccess();
+                endpoint.latency.record(elapsed);
+                return response;
+            }
+
+            long delay = backoffMillis(policy, attempt, response);
+            if (!idempotent || attempt >= policy.maxRetries || elapsed + delay >= policy.totalBudgetMillis) {
+                endpoint.breaker.onFailure();
+                endpoint.failures.incrementAndGet();
+                endpoint.latency.record(elapsed);
+                if (response != null) {
+                    return response;
+                }
+                throw error;
+            }
+
+            if (response != null) {
+                response.close();
+            }
+            attempt++;
+            endpoint.retries.incrementAndGet();
+            try {
+                sleeper.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                endpoint.breaker.onCancel();
+                throw new InterruptedIOException("retry interrupted");
+            }
+        }
+    }
+
+    // サーキットブレーカーが開いている間は、HTTPキャッシュに保存済みのレスポンスを (古くても) 返す
+    private Response fallback(Chain chain, Endpoint endpoint, Request request) throws IOException {
+        endpoint.rejected.incrementAndGet();
+        if (request.method().equals("GET")) {
+            Response cached = chain.proceed(request.newBuilder()
+                    .cacheControl(CacheControl.FORCE_CACHE)
+                    .build());
+            // 保存済みのレスポンスがない場合は 504 が返る
+            if (cached.code() != 504) {
+                endpoint.fallbacks.incrementAndGet();
+                return cached.newBuilder()
+                        .header(HEADER_FALLBACK, "1")
+                        .build();
+            }
+            cached.close();
+        }
+        throw new CircuitOpenException(endpoint.policy.name);
+    }
+
+    // 再試行までの待ち時間 (サーバーが Retry-After で指定した時間の方が長ければそれに従う)
+    private long backoffMillis(EndpointPolicy policy, int attempt, Response response) {
+        long delay = policy.backoffMillis(attempt, random.getAsDouble());
+        if (response == null) {
+            return delay;
+        }
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return delay;
+        }
+        try {
+            return Math.max(delay, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            // 日付形式の指定には対応しない
+            return delay;
+        }
+    }
+
+    /**
+     * レスポンスが返っても再試行の対象 (一時的な失敗) とするステータスコードかを判定します
+     */
+    static boolean isRetryable(int code) {
+        return code == 429 || code >= 500;
+    }
+
+    /**
+     * レスポンスが、サーキットブレーカーが開いていたために返したキャッシュのレスポンスかを判定します
+     */
+    public static boolean isFallback(Response response) {
+        return response.header(HEADER_FALLBACK) != null;
+    }
+}
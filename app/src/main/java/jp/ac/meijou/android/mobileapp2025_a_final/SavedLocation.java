@@ -0,0 +1,59 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 保存した地点 (自宅・職場・お気に入りの公園など) を表すクラス
+ */
+public final class SavedLocation {
+
+    public final String name;       // 地点の名前
+    public final double latitude;   // 緯度
+    public final double longitude;  // 経度
+
+    public SavedLocation(String name, double latitude, double longitude) {
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * 地点の一覧を保存用の文字列 (1行1地点、「名前 TAB 緯度 TAB 経度」) に変換します
+     */
+    public static String encode(List<SavedLocation> locations) {
+        StringBuilder sb = new StringBuilder();
+        for (SavedLocation location : locations) {
+            // 区切り文字が名前に含まれていても読み込めるよう空白に置き換える
+            sb.append(location.name.replace('\t', ' ').replace('\n', ' '))
+                    .append('\t').append(location.latitude)
+                    .append('\t').append(location.longitude)
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@link #encode(List)} で作成した文字列から地点の一覧を復元します
+     * 読み込めない行は無視します。
+     */
+    public static List<SavedLocation> decode(String encoded) {
+        List<SavedLocation> locations = new ArrayList<>();
+        if (encoded == null) {
+            return locations;
+        }
+        for (String line : encoded.split("\n")) {
+            String[] columns = line.split("\t");
+            if (columns.length != 3) {
+                continue;
+            }
+            try {
+                locations.add(new SavedLocation(columns[0],
+                        Double.parseDouble(columns[1]), Double.parseDouble(columns[2])));
+            } catch (NumberFormatException e) {
+                // 壊れた行は飛ばす
+            }
+        }
+        return locations;
+    }
+}
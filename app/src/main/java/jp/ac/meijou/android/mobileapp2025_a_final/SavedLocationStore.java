@@ -0,0 +1,50 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.List;
+
+/**
+ * 保存した地点の一覧を SharedPreferences に保持するクラス
+ */
+public class SavedLocationStore {
+
+    private static final String PREFS_LOCATIONS = "saved_locations";
+    private static final String KEY_LOCATIONS = "locations";
+
+    // 保存できる地点の最大数 (1回のリクエストでまとめて取得する地点数の上限)
+    public static final int MAX_LOCATIONS = 10;
+
+    private final SharedPreferences preferences;
+
+    public SavedLocationStore(Context context) {
+        this.preferences = context.getApplicationContext()
+                .getSharedPreferences(PREFS_LOCATIONS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 保存した地点の一覧を返します (保存した順)
+     */
+    public List<SavedLocation> getAll() {
+        return SavedLocation.decode(preferences.getString(KEY_LOCATIONS, null));
+    }
+
+    /**
+     * 地点を保存します
+     * 同じ名前の地点は置き換え、上限を超える場合は最も古い地点を削除します。
+     */
+    public void add(SavedLocation location) {
+        List<SavedLocation> locations = getAll();
+        for (int i = locations.size() - 1; i >= 0; i--) {
+            if (locations.get(i).name.equals(location.name)) {
+                locations.remove(i);
+            }
+        }
+        locations.add(location);
+        while (locations.size() > MAX_LOCATIONS) {
+            locations.remove(0);
+        }
+        preferences.edit().putString(KEY_LOCATIONS, SavedLocation.encode(locations)).apply();
+    }
+}
@@ -0,0 +1,28 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
+
+/**
+ * アプリ全体の初期化を行うクラス
+ *
+ * WorkManager は通常アプリの起動時に自動で初期化されますが、起動直後には使わないため、
+ * AndroidManifest.xml で自動初期化を無効にし、最初に使われたときにこのクラスの設定で初期化します。
+ * また、処理時間の計測区間を android.os.Trace に出力するよう設定します。
+ */
+public class WeatherApplication extends Application implements Configuration.Provider {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        MetricsRegistry.getDefault().setTracer(new AndroidTracer());
+    }
+
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder().build();
+    }
+}
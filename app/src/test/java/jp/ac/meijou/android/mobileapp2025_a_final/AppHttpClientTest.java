@@ -0,0 +1,110 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 共有HTTPクライアントのキャッシュと接続再利用をローカルのモックサーバーで確認するテスト
+ */
+public class AppHttpClientTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private AppHttpClient.Stats stats;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        stats = new AppHttpClient.Stats();
+        client = AppHttpClient.create(tempFolder.newFolder("http_cache"), stats);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void cacheControlHeader_secondRequestServedFromCache() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"hourly\":{}}").addHeader("Cache-Control", "max-age=60"));
+
+        assertEquals("{\"hourly\":{}}", get("/v1/forecast"));
+        assertEquals("{\"hourly\":{}}", get("/v1/forecast"));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, stats.getCacheHitCount());
+        assertEquals(0.5, stats.getCacheHitRate(), 0.001);
+    }
+
+    @Test
+    public void notModified_countsAsCacheHit() throws Exception {
+        server.enqueue(new MockResponse().setBody("a").addHeader("Cache-Control", "no-cache").addHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "\"v1\""));
+
+        assertEquals("a", get("/v1/forecast"));
+        assertEquals("a", get("/v1/forecast"));
+
+        // 2回目はキャッシュを元にした条件付きリクエストになる
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(0, stats.getCacheHitCount());
+        assertEquals(1, stats.getNotModifiedCount());
+        assertEquals(0.5, stats.getCacheHitRate(), 0.001);
+    }
+
+    @Test
+    public void noCacheHeader_defaultMaxAgeIsApplied() throws Exception {
+        server.enqueue(new MockResponse().setBody("a"));
+
+        get("/v1/forecast");
+        get("/v1/forecast");
+
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void noStoreHeader_isHonored() throws Exception {
+        server.enqueue(new MockResponse().setBody("a").addHeader("Cache-Control", "no-store"));
+        server.enqueue(new MockResponse().setBody("b").addHeader("Cache-Control", "no-store"));
+
+        assertEquals("a", get("/search"));
+        assertEquals("b", get("/search"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void sequentialRequests_reuseConnection() throws Exception {
+        server.enqueue(new MockResponse().setBody("a").addHeader("Cache-Control", "no-store"));
+        server.enqueue(new MockResponse().setBody("b").addHeader("Cache-Control", "no-store"));
+        server.enqueue(new MockResponse().setBody("c").addHeader("Cache-Control", "no-store"));
+
+        get("/1");
+        get("/2");
+        get("/3");
+
+        assertEquals(1, stats.getNewConnectionCount());
+        assertEquals(2.0 / 3.0, stats.getConnectionReuseRate(), 0.001);
+    }
+
+    private String get(String path) throws Exception {
+        Request request = new Request.Builder().url(server.url(path)).build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * サーキットブレーカーの状態の移り変わりと、処理時間のヒストグラムを確認するテスト
+ */
+public class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 1_000, clock::get);
+
+    @Test
+    public void consecutiveFailures_openCircuit() {
+        breaker.onFailure();
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.getOpenCount());
+    }
+
+    @Test
+    public void success_resetsFailureCount() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void afterCooldown_allowsSingleTrial() {
+        openCircuit();
+        clock.addAndGet(999);
+        assertFalse(breaker.allowRequest());
+
+        clock.addAndGet(1);
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // 試しのリクエストの結果が出るまでは他のリクエストを送らない
+        assertFalse(breaker.allowRequest());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void trialFailure_reopensCircuit() {
+        openCircuit();
+        clock.addAndGet(1_000);
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(2, breaker.getOpenCount());
+    }
+
+    @Test
+    public void trialCancelled_allowsAnotherTrial() {
+        openCircuit();
+        clock.addAndGet(1_000);
+        assertTrue(breaker.allowRequest());
+
+        breaker.onCancel();
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void backoff_doublesUpToMaximum() {
+        EndpointPolicy policy = new EndpointPolicy("test", "example.com", 1_000, 1_000, 10_000, 5, 100, 500, 3, 1_000);
+
+        assertEquals(100, policy.backoffMillis(0, 0.999999), 1);
+        assertEquals(200, policy.backoffMillis(1, 0.999999), 1);
+        assertEquals(500, policy.backoffMillis(5, 0.999999), 1);
+        assertEquals(0, policy.backoffMillis(3, 0));
+        assertTrue(policy.matches("api.example.com"));
+        assertFalse(policy.matches("badexample.com"));
+    }
+
+    @Test
+    public void latencyHistogram_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(50));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 10);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(505.0, histogram.getMeanMillis(), 0.001);
+        // 中央値 (500ms) と 95パーセンタイル (950ms) は、それぞれが入る区間の上限で返る
+        assertEquals(500, histogram.getPercentileMillis(50));
+        assertEquals(1_000, histogram.getPercentileMillis(95));
+        assertEquals(1_000, histogram.getPercentileMillis(100));
+        assertEquals(1_000, histogram.getMaxMillis());
+    }
+
+    @Test
+    public void latencyHistogram_overflowReturnsMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(45_000);
+
+        assertEquals(45_000, histogram.getPercentileMillis(50));
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+}
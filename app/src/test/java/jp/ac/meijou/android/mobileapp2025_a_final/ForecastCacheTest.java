@@ -0,0 +1,160 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 予報のキャッシュの有効期限 (最新・古い・期限切れ)、メモリの LRU、ファイルの削除を確認するテスト
+ * 時刻は固定したクロックで進め、ファイルの読み書きは順番に溜めたタスクを実行して確認します。
+ */
+public class ForecastCacheTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+    // 時の始まりから10分後
+    private static final long START = 1_765_238_400_000L + 10 * 60 * 1000L;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final List<Runnable> diskTasks = new ArrayList<>();
+    private File directory;
+    private HourlyColumns columns;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = tempFolder.newFolder("forecast_cache");
+        columns = MeteoHourlyParser.parse(new Buffer().writeUtf8(SyntheticForecasts.response(2, true)));
+    }
+
+    private ForecastCache newCache() {
+        return new ForecastCache(directory, diskTasks::add, clock::get);
+    }
+
+    private void runDiskTasks() {
+        while (!diskTasks.isEmpty()) {
+            diskTasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void get_withinSameHour_isFresh() {
+        ForecastCache cache = newCache();
+        cache.put("a", columns);
+        clock.addAndGet(30 * 60 * 1000L);
+
+        ForecastCache.Entry entry = cache.get("a");
+
+        assertNotNull(entry);
+        assertTrue(entry.isFresh(clock.get()));
+        assertEquals(1, cache.getFreshHitCount());
+    }
+
+    @Test
+    public void get_afterModelUpdate_isStaleFromDisk() {
+        newCache().put("a", columns);
+        runDiskTasks();
+        clock.addAndGet(3 * HOUR);
+
+        // メモリにない新しいインスタンスでも、ファイルから古いデータとして読める
+        ForecastCache cache = newCache();
+        ForecastCache.Entry entry = cache.get("a");
+
+        assertNotNull(entry);
+        assertFalse(entry.isFresh(clock.get()));
+        assertEquals(48, entry.columns.size);
+        assertEquals(1, cache.getStaleHitCount());
+    }
+
+    @Test
+    public void get_afterMaxStale_isMissAndDeletesFile() {
+        ForecastCache cache = newCache();
+        cache.put("a", columns);
+        runDiskTasks();
+        File file = new File(directory, "a.bin");
+        assertTrue(file.isFile());
+        clock.addAndGet(25 * HOUR);
+
+        assertNull(cache.get("a"));
+        runDiskTasks();
+
+        assertEquals(1, cache.getMissCount());
+        assertFalse(file.exists());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void read_fromMemory_callsBackWithoutDiskTask() {
+        ForecastCache cache = newCache();
+        cache.put("a", columns);
+        runDiskTasks();
+        AtomicReference<ForecastCache.Entry> read = new AtomicReference<>();
+
+        cache.read("a", read::set);
+
+        assertNotNull(read.get());
+        assertTrue(diskTasks.isEmpty());
+    }
+
+    @Test
+    public void read_notInMemory_readsFileInBackground() {
+        newCache().put("a", columns);
+        runDiskTasks();
+        ForecastCache cache = newCache();
+        AtomicReference<ForecastCache.Entry> read = new AtomicReference<>();
+
+        cache.read("a", read::set);
+        assertNull(read.get());
+        runDiskTasks();
+
+        assertNotNull(read.get());
+    }
+
+    @Test
+    public void put_overCapacity_evictsLeastRecentlyUsedFromMemory() {
+        ForecastCache cache = newCache();
+        for (int i = 0; i < 33; i++) {
+            cache.put("k" + i, columns);
+        }
+        AtomicReference<ForecastCache.Entry> oldest = new AtomicReference<>();
+        AtomicReference<ForecastCache.Entry> newest = new AtomicReference<>();
+
+        cache.read("k0", oldest::set);
+        cache.read("k32", newest::set);
+
+        // 最も古いキーはメモリから外れ、ファイルから読み直す
+        assertNull(oldest.get());
+        assertNotNull(newest.get());
+        runDiskTasks();
+        assertNotNull(oldest.get());
+    }
+
+    @Test
+    public void deleteExpiredFiles_removesExpiredAndLeftoverFiles() throws Exception {
+        ForecastCache cache = newCache();
+        cache.put("old", columns);
+        runDiskTasks();
+        clock.addAndGet(25 * HOUR);
+        cache.put("new", columns);
+        runDiskTasks();
+        assertTrue(new File(directory, "leftover.tmp").createNewFile());
+
+        assertEquals(2, cache.deleteExpiredFiles());
+
+        assertFalse(new File(directory, "old.bin").exists());
+        assertFalse(new File(directory, "leftover.tmp").exists());
+        assertTrue(new File(directory, "new.bin").exists());
+    }
+}
@@ -0,0 +1,334 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * 先読みした取得への合流や、同じ地点の取得の共有・取り消しを、ローカルのモックサーバーで確認するテスト
+ */
+public class ForecastRepositoryTest {
+
+    private static final double LATITUDE = 35.1365;
+    private static final double LONGITUDE = 136.976;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ForecastRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        // Open-Meteo へのリクエストをモックサーバーに向ける
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    HttpUrl url = chain.request().url().newBuilder()
+                            .scheme("http")
+                            .host(server.getHostName())
+                            .port(server.getPort())
+                            .build();
+                    return chain.proceed(chain.request().newBuilder().url(url).build());
+                })
+                .build();
+        ForecastCache cache = new ForecastCache(tempFolder.newFolder("forecast_cache"));
+        repository = new ForecastRepository(client, cache, OpenMeteoApi.FORECAST_DAYS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void load_afterPrefetch_joinsInFlightRequest() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody(SyntheticForecasts.response(2, true))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        repository.prefetch(LATITUDE, LONGITUDE);
+        RecordingListener listener = new RecordingListener();
+        repository.load(LATITUDE, LONGITUDE, listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(48, listener.fetched.get().size);
+        assertEquals(0, listener.cachedCount.get());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, repository.getPrefetchStartCount());
+        assertEquals(1, repository.getCoalescedCount());
+    }
+
+    @Test
+    public void load_afterCompletedPrefetch_usesCacheWithoutRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody(SyntheticForecasts.response(2, true)));
+
+        // 先読みの完了を待つ
+        RecordingListener first = new RecordingListener();
+        repository.prefetch(LATITUDE, LONGITUDE);
+        repository.load(LATITUDE, LONGITUDE, first);
+        assertTrue(first.done.await(5, TimeUnit.SECONDS));
+
+        // 2回目は通信せず、キャッシュのデータがすぐに通知される
+        RecordingListener second = new RecordingListener();
+        repository.prefetch(LATITUDE, LONGITUDE);
+        repository.load(LATITUDE, LONGITUDE, second);
+
+        assertEquals(1, second.cachedCount.get());
+        assertNull(second.fetched.get());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void load_serverError_notifiesFailure() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        RecordingListener listener = new RecordingListener();
+        repository.load(LATITUDE, LONGITUDE, listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals("正常に取得できず", listener.failure.get());
+    }
+
+    @Test
+    public void cancel_stopsNotificationButKeepsPrefetchedData() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody(SyntheticForecasts.response(2, true))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        RecordingListener cancelled = new RecordingListener();
+        repository.prefetch(LATITUDE, LONGITUDE);
+        repository.load(LATITUDE, LONGITUDE, cancelled).cancel();
+
+        // 取り消した後も取得は続き、キャッシュに保存される
+        assertFalse(cancelled.done.await(1, TimeUnit.SECONDS));
+        RecordingListener next = new RecordingListener();
+        repository.load(LATITUDE, LONGITUDE, next);
+        assertEquals(1, next.cachedCount.get());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void load_repeatedForSameLocation_sharesOneCall() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody(SyntheticForecasts.response(2, true))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        // 画面と同じ順番 (新しい取得を始めてから前の取得を取り消す) で3回取得する
+        RecordingListener first = new RecordingListener();
+        ForecastRepository.Handle previous = repository.load(LATITUDE, LONGITUDE, first);
+        RecordingListener second = new RecordingListener();
+        ForecastRepository.Handle current = repository.load(LATITUDE, LONGITUDE, second);
+        previous.cancel();
+        RecordingListener third = new RecordingListener();
+        repository.load(LATITUDE, LONGITUDE, third);
+        current.cancel();
+
+        assertTrue(third.done.await(5, TimeUnit.SECONDS));
+        assertEquals(48, third.fetched.get().size);
+        assertNull(first.fetched.get());
+        assertNull(second.fetched.get());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, repository.getCoalescedCount());
+        assertEquals(0, repository.getCancelledCount());
+    }
+
+    @Test
+    public void load_supersededByOtherLocation_cancelsCall() throws Exception {
+        // 最初の地点の応答だけを遅らせる (リクエストが届く順番に依存しないよう緯度で振り分ける)
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (String.valueOf(LATITUDE).equals(request.getRequestUrl().queryParameter("latitude"))) {
+                    return new MockResponse()
+                            .setBody(SyntheticForecasts.response(2, true))
+                            .setBodyDelay(2, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setBody(SyntheticForecasts.response(3, true));
+            }
+        });
+
+        RecordingListener superseded = new RecordingListener();
+        ForecastRepository.Handle previous = repository.load(LATITUDE, LONGITUDE, superseded);
+        RecordingListener latest = new RecordingListener();
+        repository.load(35.6895, 139.6917, latest);
+        previous.cancel();
+
+        assertTrue(latest.done.await(5, TimeUnit.SECONDS));
+        assertEquals(72, latest.fetched.get().size);
+        assertFalse(superseded.done.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, repository.getCancelledCount());
+        assertEquals(2, repository.getNetworkCallCount());
+    }
+
+    @Test
+    public void load_staleCache_bypassesHttpCacheMaxAge() throws Exception {
+        // キャッシュのヘッダーを返さない (HTTPキャッシュには既定の15分で保存される)
+        server.enqueue(new MockResponse().setBody(SyntheticForecasts.response(2, true)));
+        server.enqueue(new MockResponse().setBody(SyntheticForecasts.response(3, true)));
+        OkHttpClient client = AppHttpClient.create(tempFolder.newFolder("http_cache"), new AppHttpClient.Stats())
+                .newBuilder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .url(server.url(chain.request().url().encodedPath() + "?" + chain.request().url().encodedQuery()))
+                        .build()))
+                .build();
+        // 予報のキャッシュには1時間前に取得したものとして保存する (HTTPキャッシュは今の時刻で保存される)
+        ForecastCache cache = new ForecastCache(tempFolder.newFolder("stale_cache"), Runnable::run,
+                () -> System.currentTimeMillis() - 60 * 60 * 1000L);
+        ForecastRepository stale = new ForecastRepository(client, cache, OpenMeteoApi.FORECAST_DAYS);
+
+        RecordingListener first = new RecordingListener();
+        stale.load(LATITUDE, LONGITUDE, first);
+        assertTrue(first.done.await(5, TimeUnit.SECONDS));
+        // 予報のキャッシュは古いが、HTTPキャッシュの保存期間内に取り直す
+        RecordingListener second = new RecordingListener();
+        stale.load(LATITUDE, LONGITUDE, second);
+
+        assertTrue(second.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, second.cachedCount.get());
+        assertEquals(72, second.fetched.get().size);
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        assertEquals("no-cache", server.takeRequest().getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void load_duringRefreshAll_joinsBatchRequest() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody(SyntheticForecasts.batchResponse(2, 1))
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        // バックグラウンドの先読みと同じく、別のスレッドからまとめて取得する
+        AtomicInteger refreshed = new AtomicInteger(-1);
+        Thread worker = new Thread(() -> {
+            try {
+                refreshed.set(repository.refreshAll(new double[]{LATITUDE}, new double[]{LONGITUDE}));
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        worker.start();
+        server.takeRequest(5, TimeUnit.SECONDS);
+        RecordingListener listener = new RecordingListener();
+        repository.load(LATITUDE, LONGITUDE, listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        worker.join(5000);
+        assertEquals(48, listener.fetched.get().size);
+        assertEquals(1, refreshed.get());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, repository.getCoalescedCount());
+    }
+
+    @Test
+    public void refreshAll_duringLoad_skipsInFlightLocation() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody(SyntheticForecasts.response(2, true))
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        RecordingListener listener = new RecordingListener();
+        repository.load(LATITUDE, LONGITUDE, listener);
+        server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals(0, repository.refreshAll(new double[]{LATITUDE}, new double[]{LONGITUDE}));
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, repository.getCoalescedCount());
+    }
+
+    @Test
+    public void loadAll_cancelAfterCompletion_isNotCounted() throws Exception {
+        server.enqueue(new MockResponse().setBody(SyntheticForecasts.batchResponse(2, 2)));
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<HourlyColumns[]> fetched = new AtomicReference<>();
+
+        ForecastRepository.Handle handle = repository.loadAll(new double[]{LATITUDE, 35.6895},
+                new double[]{LONGITUDE, 139.6917}, new ForecastRepository.MultiListener() {
+                    @Override
+                    public void onForecasts(HourlyColumns[] locations) {
+                        fetched.set(locations);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String message) {
+                        done.countDown();
+                    }
+                });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // 画面の終了時などに、完了済みの取得を取り消しても数えない
+        handle.cancel();
+
+        assertEquals(2, fetched.get().length);
+        assertEquals(0, repository.getCancelledCount());
+    }
+
+    @Test
+    public void loadDays_requestsDateRangeAndCachesSeparately() throws Exception {
+        server.enqueue(new MockResponse().setBody(SyntheticForecasts.response(2, true)));
+        server.enqueue(new MockResponse().setBody(SyntheticForecasts.response(3, true)));
+        LocalDate startDate = LocalDate.of(2025, 12, 11);
+
+        RecordingListener first = new RecordingListener();
+        repository.load(LATITUDE, LONGITUDE, first);
+        assertTrue(first.done.await(5, TimeUnit.SECONDS));
+        RecordingListener page = new RecordingListener();
+        repository.loadDays(LATITUDE, LONGITUDE, startDate, 3, page);
+        assertTrue(page.done.await(5, TimeUnit.SECONDS));
+
+        // 3日目以降は期間を指定して取得し、最初の2日分とは別に保存する
+        server.takeRequest();
+        HttpUrl pageUrl = server.takeRequest().getRequestUrl();
+        assertEquals("2025-12-11", pageUrl.queryParameter("start_date"));
+        assertEquals("2025-12-13", pageUrl.queryParameter("end_date"));
+        assertNull(pageUrl.queryParameter("forecast_days"));
+        assertEquals(72, page.fetched.get().size);
+
+        // 2回目は通信せず、キャッシュのデータがすぐに通知される
+        RecordingListener cachedPage = new RecordingListener();
+        repository.loadDays(LATITUDE, LONGITUDE, startDate, 3, cachedPage);
+        assertEquals(1, cachedPage.cachedCount.get());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private static class RecordingListener implements ForecastRepository.Listener {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger cachedCount = new AtomicInteger();
+        final AtomicReference<HourlyColumns> fetched = new AtomicReference<>();
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        @Override
+        public void onForecast(HourlyColumns hourly, boolean fromCache) {
+            if (fromCache) {
+                cachedCount.incrementAndGet();
+            } else {
+                fetched.set(hourly);
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void onFailure(String message) {
+            failure.set(message);
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 郵便番号検索のキャッシュと、同時に行われた検索の共有をローカルのモックサーバーで確認するテスト
+ */
+public class PostalLookupCacheTest {
+
+    private static final String BODY = "{\"response\":{\"location\":[{\"city\":\"名古屋市天白区\",\"town\":\"塩釜口\","
+            + "\"x\":\"136.976\",\"y\":\"35.1365\",\"prefecture\":\"愛知県\",\"postal\":\"4688502\"}]}}";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient();
+        directory = tempFolder.newFolder("postal_cache");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void normalize_stripsSeparatorsAndFullWidthDigits() {
+        assertEquals("4688502", PostalLookupCache.normalize("468-8502"));
+        assertEquals("4688502", PostalLookupCache.normalize("〒４６８－８５０２"));
+        assertEquals("4688502", PostalLookupCache.normalize(" 468 8502 "));
+        assertNull(PostalLookupCache.normalize("468-850a"));
+    }
+
+    @Test
+    public void concurrentLookups_shareOneRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        PostalLookupCache cache = newCache();
+
+        CountDownLatch done = new CountDownLatch(2);
+        RecordingListener first = new RecordingListener(done);
+        RecordingListener second = new RecordingListener(done);
+        cache.lookup("4688502", first);
+        cache.lookup("4688502", second);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.getCoalescedCount());
+        assertEquals("塩釜口", first.result.get().response.location.get(0).town);
+        assertSame(first.result.get(), second.result.get());
+    }
+
+    @Test
+    public void cancelledLookup_isNotNotifiedAndOthersStillAre() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        PostalLookupCache cache = newCache();
+
+        CountDownLatch done = new CountDownLatch(1);
+        RecordingListener superseded = new RecordingListener(new CountDownLatch(1));
+        RecordingListener latest = new RecordingListener(done);
+        PostalLookupCache.Lookup lookup = cache.lookup("4688502", superseded);
+        cache.lookup("4688502", latest);
+        lookup.cancel();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertNotNull(latest.result.get());
+        assertNull(superseded.result.get());
+        assertNull(superseded.error.get());
+        assertEquals(1, cache.getCancelledCount());
+    }
+
+    @Test
+    public void cancellingLastWaiter_cancelsCall() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(2, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody(BODY));
+        PostalLookupCache cache = newCache();
+
+        RecordingListener superseded = new RecordingListener(new CountDownLatch(1));
+        cache.lookup("4688502", superseded).cancel();
+
+        // 取り消した後の新しい検索は、取り消された通信の結果を待たずに新しく問い合わせる
+        RecordingListener latest = lookupAndWait(cache, "4688502");
+        assertNotNull(latest.result.get());
+        assertNull(superseded.result.get());
+    }
+
+    @Test
+    public void repeatedLookup_servedFromMemoryThenDisk() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+        PostalLookupCache cache = newCache();
+        lookupAndWait(cache, "4688502");
+        lookupAndWait(cache, "4688502");
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(0.5, cache.getHitRate(), 0.001);
+
+        // プロセスを再起動した場合 (メモリは空) でも、ファイルから読み込んで通信しない
+        PostalLookupCache restarted = newCache();
+        RecordingListener listener = lookupAndWait(restarted, "4688502");
+        assertNotNull(listener.result.get());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, restarted.getDiskHitCount());
+    }
+
+    @Test
+    public void emptyResult_isReportedAndNotCached() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"response\":{\"error\":\"Postal code not found.\"}}"));
+        server.enqueue(new MockResponse().setBody("{\"response\":{\"error\":\"Postal code not found.\"}}"));
+        PostalLookupCache cache = newCache();
+
+        RecordingListener listener = lookupAndWait(cache, "0000000");
+        assertNull(listener.result.get());
+        assertNotNull(listener.error.get());
+
+        lookupAndWait(cache, "0000000");
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private PostalLookupCache newCache() {
+        return new PostalLookupCache(directory, client, server.url("/api/json"));
+    }
+
+    private static RecordingListener lookupAndWait(PostalLookupCache cache, String postalCode) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(done);
+        cache.lookup(postalCode, listener);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return listener;
+    }
+
+    private static class RecordingListener implements PostalLookupCache.Listener {
+        final AtomicReference<HeartRailsResponse> result = new AtomicReference<>();
+        final AtomicReference<String> error = new AtomicReference<>();
+        private final CountDownLatch done;
+
+        RecordingListener(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void onResult(HeartRailsResponse response) {
+            result.set(response);
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(String message) {
+            error.set(message);
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.*;
+
+/**
+ * 再試行・タイムアウト・サーキットブレーカーを、遅延や障害を起こすローカルのモックサーバーで確認するテスト
+ */
+public class ResilienceInterceptorTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Long> sleeps = new ArrayList<>();
+    private ResilienceInterceptor interceptor;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        // 読み込みのタイムアウト 200ms、再試行2回、3回連続で失敗したら1秒間ブレーカーを開く
+        EndpointPolicy policy = new EndpointPolicy("test", server.getHostName(),
+                1_000, 200, 5_000, 2, 10, 100, 3, 1_000);
+        // 再試行の待ち時間は記録だけ行い、実際には待たない (乱数は上限の半分に固定)
+        interceptor = new ResilienceInterceptor(Collections.singletonList(policy),
+                clock::get, sleeps::add, () -> 0.5);
+        client = AppHttpClient.create(tempFolder.newFolder("http_cache"), new AppHttpClient.Stats(), interceptor);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void serverError_retriedWithGrowingBackoff() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = get("/v1/forecast")) {
+            assertEquals(200, response.code());
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(3, server.getRequestCount());
+        // 上限は 10ms → 20ms と倍になり、その半分だけ待つ
+        assertEquals(List.of(5L, 10L), sleeps);
+        assertEquals(2, endpoint().getRetryCount());
+        assertEquals(1, endpoint().getLatency().getCount());
+    }
+
+    @Test
+    public void retryAfterHeader_waitsAtLeastThatLong() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = get("/v1/forecast")) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(List.of(1_000L), sleeps);
+    }
+
+    @Test
+    public void disconnect_retriedAndSucceeds() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody("ok"));
+        // OkHttp 自身の再接続を止めて、インターセプターの再試行だけを確認する
+        OkHttpClient noRecovery = client.newBuilder().retryOnConnectionFailure(false).build();
+
+        Request request = new Request.Builder().url(server.url("/v1/forecast")).build();
+        try (Response response = noRecovery.newCall(request).execute()) {
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(1, endpoint().getRetryCount());
+    }
+
+    @Test
+    public void slowResponse_timesOutAndRetries() throws Exception {
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(1, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("fast"));
+
+        long start = System.nanoTime();
+        try (Response response = get("/v1/forecast")) {
+            assertEquals("fast", response.body().string());
+        }
+        // 1秒待たずに、接続先ごとのタイムアウト (200ms) で打ち切って再試行している
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+        assertEquals(1, endpoint().getRetryCount());
+    }
+
+    @Test
+    public void post_notRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        Request request = new Request.Builder()
+                .url(server.url("/v1/forecast"))
+                .post(RequestBody.create("{}", MediaType.get("application/json")))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void clientError_notRetriedAndKeepsCircuitClosed() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setResponseCode(404));
+        }
+        for (int i = 0; i < 5; i++) {
+            get("/v1/forecast").close();
+        }
+        assertEquals(5, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, endpoint().getCircuitState());
+    }
+
+    @Test
+    public void repeatedFailures_openCircuitAndServeCachedResponse() throws Exception {
+        // 期限切れでも、ブレーカーが開いている間は保存済みのレスポンスを返せるようにしておく
+        server.enqueue(new MockResponse().setBody("cached").addHeader("Cache-Control", "max-age=0"));
+        try (Response response = get("/v1/forecast")) {
+            assertEquals("cached", response.body().string());
+        }
+        failThreeTimes("/v1/forecast");
+        assertEquals(CircuitBreaker.State.OPEN, endpoint().getCircuitState());
+
+        int requests = server.getRequestCount();
+        try (Response response = get("/v1/forecast")) {
+            assertEquals("cached", response.body().string());
+            assertTrue(ResilienceInterceptor.isFallback(response));
+        }
+        assertEquals(requests, server.getRequestCount());
+        assertEquals(1, endpoint().getFallbackCount());
+    }
+
+    @Test
+    public void openCircuit_withoutCache_failsFast() throws Exception {
+        failThreeTimes("/v1/forecast");
+
+        try {
+            get("/other").close();
+            fail();
+        } catch (ResilienceInterceptor.CircuitOpenException expected) {
+            // リクエストを送らずに失敗する
+        }
+        assertEquals(9, server.getRequestCount());
+        assertEquals(1, endpoint().getRejectedCount());
+    }
+
+    @Test
+    public void openCircuit_afterCooldown_trialSuccessClosesCircuit() throws Exception {
+        failThreeTimes("/v1/forecast");
+        clock.addAndGet(1_000);
+        server.enqueue(new MockResponse().setBody("recovered"));
+
+        try (Response response = get("/v1/forecast")) {
+            assertEquals("recovered", response.body().string());
+            assertFalse(ResilienceInterceptor.isFallback(response));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, endpoint().getCircuitState());
+    }
+
+    @Test
+    public void otherHost_passesThroughWithoutPolicy() throws Exception {
+        ResilienceInterceptor none = new ResilienceInterceptor(Collections.singletonList(EndpointPolicy.OPEN_METEO));
+        OkHttpClient plain = AppHttpClient.create(tempFolder.newFolder("plain_cache"), new AppHttpClient.Stats(), none);
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        try (Response response = plain.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertNull(none.endpointFor(server.getHostName()));
+    }
+
+    // 再試行も含めて3回 (= ブレーカーを開く回数) 失敗させる
+    private void failThreeTimes(String path) throws IOException {
+        for (int i = 0; i < 9; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        for (int i = 0; i < 3; i++) {
+            try (Response response = get(path)) {
+                assertEquals(500, response.code());
+            }
+        }
+    }
+
+    private ResilienceInterceptor.Endpoint endpoint() {
+        return interceptor.endpointFor(server.getHostName());
+    }
+
+    private Response get(String path) throws IOException {
+        return client.newCall(new Request.Builder().url(server.url(path)).build()).execute();
+    }
+}
@@ -0,0 +1,121 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * 予報の解析・スコア計算・ランキングのスループットを計測するベンチマーク
+ * 予報日数 (2日・7日・16日) と地点数 (1地点・複数地点をまとめたリクエスト) の組み合わせごとに計測します。
+ *
+ * ./gradlew :core:jmh                          (すべて)
+ * ./gradlew :core:jmh -Pjmh.includes=parse      (名前で絞り込み)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ForecastCoreBenchmark {
+
+    // 予報の開始 (12/09 00:00) から6時間30分後を現在時刻とする
+    private static final long NOW = SyntheticForecasts.epochSecondAfter(6, 30);
+
+    private static final int TOP_COUNT = 3;
+    private static final int WINDOW_MINUTES = 90;
+    private static final int WINDOW_COUNT = 2;
+
+    @Param({"2", "7", "16"})
+    public int days;
+
+    @Param({"1", "8"})
+    public int locations;
+
+    private ByteString payload;
+    private HourlyColumns[] columns;
+    private ForecastFrame[] frames;
+    private float[][] scores;
+    private int[] from;
+    private int[] to;
+    private String[] names;
+    private ScoringEngine engine;
+    private ForecastAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String json = locations == 1
+                ? SyntheticForecasts.response(days, true)
+                : SyntheticForecasts.batchResponse(days, locations);
+        payload = ByteString.encodeUtf8(json);
+        columns = MeteoHourlyParser.parseAll(new Buffer().write(payload));
+
+        engine = new ThresholdScoringEngine(ScoringProfile.RUNNING);
+        analyzer = new ForecastAnalyzer(engine);
+        frames = new ForecastFrame[locations];
+        scores = new float[locations][];
+        from = new int[locations];
+        to = new int[locations];
+        names = new String[locations];
+        for (int k = 0; k < locations; k++) {
+            frames[k] = ForecastFrame.from(columns[k], engine);
+            scores[k] = frames[k].score;
+            to[k] = frames[k].size();
+            names[k] = "location" + k;
+        }
+    }
+
+    /**
+     * JSONの逐次読み込み (レスポンスボディから列形式のデータへの変換)
+     */
+    @Benchmark
+    public HourlyColumns[] parse() throws IOException {
+        return MeteoHourlyParser.parseAll(new Buffer().write(payload));
+    }
+
+    /**
+     * 全地点・全時間のスコア計算
+     */
+    @Benchmark
+    public void score(Blackhole blackhole) {
+        for (HourlyColumns location : columns) {
+            blackhole.consume(ForecastFrame.from(location, engine));
+        }
+    }
+
+    /**
+     * 全期間を対象にしたおすすめの時間 (トップ3) と連続した時間帯の選択
+     */
+    @Benchmark
+    public void rank(Blackhole blackhole) {
+        if (locations == 1) {
+            blackhole.consume(TopKRanker.topK(scores[0], 0, to[0], TOP_COUNT, 1));
+        } else {
+            blackhole.consume(TopKRanker.topKAcross(scores, from, to, TOP_COUNT, 1));
+        }
+        for (ForecastFrame frame : frames) {
+            blackhole.consume(WindowSearch.findBestWindows(frame, 0, frame.size(), WINDOW_MINUTES, WINDOW_COUNT));
+        }
+    }
+
+    /**
+     * 画面に表示する分析結果の作成まで (解析済みのデータから)
+     */
+    @Benchmark
+    public Object analyze() {
+        if (locations == 1) {
+            return analyzer.analyze(columns[0], NOW);
+        }
+        return analyzer.analyzeLocations(columns, names, NOW);
+    }
+}
@@ -0,0 +1,45 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+
+/**
+ * 予報の履歴に保存するときの、行の形式への変換と書き込みが必要な行の判定を計測するベンチマーク
+ * 16日分 (384時間) の予報を、値の異なる予報で取り直した場合 (すべての行を比較する) を計測します。
+ *
+ * ./gradlew :core:jmh -Pjmh.includes=ForecastHistory
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ForecastHistoryBenchmark {
+
+    private ForecastHistoryRows previous;
+    private HourlyColumns next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        previous = ForecastHistoryRows.encode(
+                MeteoHourlyParser.parse(new Buffer().writeUtf8(SyntheticForecasts.response(16, true, 0))));
+        next = MeteoHourlyParser.parse(new Buffer().writeUtf8(SyntheticForecasts.response(16, true, 1)));
+    }
+
+    /**
+     * 行の形式への変換と、前回保存した行との差分の判定
+     */
+    @Benchmark
+    public int[] encodeAndDiff() {
+        return ForecastHistoryRows.encode(next).changedIndices(previous);
+    }
+}
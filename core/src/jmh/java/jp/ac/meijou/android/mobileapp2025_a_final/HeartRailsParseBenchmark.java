@@ -0,0 +1,64 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HeartRails のレスポンスの変換で、リフレクションを使わないアダプターとリフレクションによる変換を比較するベンチマーク
+ * reflectiveFirstUse はアダプターの作成 (クラスの解析) を含む、初回の検索に相当する時間です。
+ *
+ * ./gradlew :core:jmh -Pjmh.includes=HeartRailsParse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HeartRailsParseBenchmark {
+
+    private static final String BODY = "{\"response\":{\"location\":[{\"city\":\"名古屋市天白区\",\"city_kana\":\"なごやしてんぱくく\","
+            + "\"town\":\"塩釜口\",\"town_kana\":\"しおがまぐち\",\"x\":\"136.976\",\"y\":\"35.1365\","
+            + "\"distance\":0,\"prefecture\":\"愛知県\",\"postal\":\"4688502\"},"
+            + "{\"city\":\"名古屋市天白区\",\"town\":\"植田\",\"x\":\"136.98\",\"y\":\"35.13\",\"prefecture\":\"愛知県\",\"postal\":\"4680051\"}]}}";
+
+    private JsonAdapter<HeartRailsResponse> reflective;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reflective = new Moshi.Builder().build().adapter(HeartRailsResponse.class);
+    }
+
+    /**
+     * アダプターの作成を含むリフレクションによる変換
+     */
+    @Benchmark
+    public HeartRailsResponse reflectiveFirstUse() throws IOException {
+        return new Moshi.Builder().build().adapter(HeartRailsResponse.class).fromJson(BODY);
+    }
+
+    /**
+     * 作成済みのアダプターによるリフレクションによる変換
+     */
+    @Benchmark
+    public HeartRailsResponse reflective() throws IOException {
+        return reflective.fromJson(BODY);
+    }
+
+    /**
+     * リフレクションを使わないアダプターによる変換
+     */
+    @Benchmark
+    public HeartRailsResponse handWritten() throws IOException {
+        return HeartRailsResponseJsonAdapter.INSTANCE.fromJson(BODY);
+    }
+}
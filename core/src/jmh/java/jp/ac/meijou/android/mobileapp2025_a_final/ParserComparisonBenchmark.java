@@ -0,0 +1,60 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * 1地点のレスポンスの変換で、逐次読み込み ({@link MeteoHourlyParser}) とリフレクションによる変換を比較するベンチマーク
+ * 1回あたりの割り当て量は gc プロファイラの gc.alloc.rate.norm で確認します。
+ *
+ * ./gradlew :core:jmh -Pjmh.includes=ParserComparison
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserComparisonBenchmark {
+
+    @Param({"2", "16"})
+    public int days;
+
+    private ByteString payload;
+    private JsonAdapter<MeteoApiResponse> reflective;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = ByteString.encodeUtf8(SyntheticForecasts.response(days, false));
+        reflective = new Moshi.Builder().build().adapter(MeteoApiResponse.class);
+    }
+
+    /**
+     * リフレクションによる変換 (List&lt;Double&gt; などのボクシングあり)
+     */
+    @Benchmark
+    public MeteoApiResponse reflective() throws IOException {
+        return reflective.fromJson(new Buffer().write(payload));
+    }
+
+    /**
+     * 逐次読み込みで列形式のデータに変換
+     */
+    @Benchmark
+    public HourlyColumns streaming() throws IOException {
+        return MeteoHourlyParser.parse(new Buffer().write(payload));
+    }
+}
@@ -0,0 +1,69 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1時間ずつの if/else によるスコア計算 ({@link LegacyScoring}) と、列単位の計算を比較するベンチマーク
+ * 16日分 x 10地点の時間をまとめて計算します。
+ *
+ * ./gradlew :core:jmh -Pjmh.includes=ScoringComparison
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScoringComparisonBenchmark {
+
+    private static final int HOURS = 384 * 10;
+
+    private final float[] temperature = new float[HOURS];
+    private final float[] apparent = new float[HOURS];
+    private final byte[] precipitation = new byte[HOURS];
+    private final byte[] humidity = new byte[HOURS];
+    private final float[] wind = new float[HOURS];
+    private final float[] out = new float[HOURS];
+    private ScoringEngine engine;
+
+    // APIと同じく小数第1位までの値を生成する
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        for (int i = 0; i < HOURS; i++) {
+            temperature[i] = (random.nextInt(500) - 100) / 10f;
+            apparent[i] = temperature[i] + (random.nextInt(100) - 30) / 10f;
+            precipitation[i] = (byte) random.nextInt(101);
+            humidity[i] = (byte) random.nextInt(101);
+            wind[i] = random.nextInt(400) / 10f;
+        }
+        engine = new ThresholdScoringEngine(ScoringProfile.RUNNING);
+    }
+
+    /**
+     * 1時間ずつの計算
+     */
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (int i = 0; i < HOURS; i++) {
+            blackhole.consume(LegacyScoring.score(temperature[i], apparent[i], precipitation[i], wind[i], humidity[i]));
+        }
+    }
+
+    /**
+     * 列単位の計算
+     */
+    @Benchmark
+    public float[] batch() {
+        engine.score(temperature, apparent, precipitation, humidity, wind, out, 0, HOURS);
+        return out;
+    }
+}
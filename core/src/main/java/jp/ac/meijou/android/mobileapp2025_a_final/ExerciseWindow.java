@@ -0,0 +1,17 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * 運動におすすめの連続した時間帯 (例: 90分間) を表すクラス
+ */
+public final class ExerciseWindow {
+
+    public final long startEpochSecond;   // 開始時刻 (エポック秒)
+    public final long endEpochSecond;     // 終了時刻 (エポック秒)
+    public final float averageScore;      // 時間帯内の平均スコア
+
+    public ExerciseWindow(long startEpochSecond, long endEpochSecond, float averageScore) {
+        this.startEpochSecond = startEpochSecond;
+        this.endEpochSecond = endEpochSecond;
+        this.averageScore = averageScore;
+    }
+}
@@ -0,0 +1,253 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * 天気予報データを分析し、運動適性スコアとおすすめの時間帯を求めるクラス
+ * Android に依存しない処理のみで構成しているため、バックグラウンドスレッドから呼び出せます。
+ */
+public class ForecastAnalyzer {
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    // リストに表示する日数 (今日・明日)
+    private static final int LIST_DAYS = 2;
+
+    // おすすめとして表示する件数
+    private static final int TOP_COUNT = 3;
+
+    // おすすめの連続した時間帯の長さ (分) と表示する件数
+    private static final int WINDOW_MINUTES = 90;
+    private static final int WINDOW_COUNT = 2;
+
+    private final ScoringEngine scoringEngine;
+    private final int minGapHours;
+    // 処理時間の記録先
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    /**
+     * 既定の採点基準 (ランニング) で分析します
+     */
+    public ForecastAnalyzer() {
+        this(new ThresholdScoringEngine(ScoringProfile.RUNNING));
+    }
+
+    /**
+     * @param scoringEngine スコアの計算に使うエンジン
+     */
+    public ForecastAnalyzer(ScoringEngine scoringEngine) {
+        this(scoringEngine, 1);
+    }
+
+    /**
+     * @param scoringEngine スコアの計算に使うエンジン
+     * @param minGapHours   おすすめの時間どうしを最低何時間空けるか (1 なら連続した時間も選ぶ)
+     */
+    public ForecastAnalyzer(ScoringEngine scoringEngine, int minGapHours) {
+        this.scoringEngine = scoringEngine;
+        this.minGapHours = minGapHours;
+    }
+
+    /**
+     * 取得した天気情報を分析し、画面に表示できる形にまとめるメソッド
+     *
+     * 1. 取得データから各時間のスコアを含む ForecastFrame を作成
+     * 2. リストに表示する今日・明日の範囲を決定
+     * 3. スコアが高い順におすすめの時間帯トップ3の文章を作成
+     * 4. 平均スコアが高い連続した時間帯 (90分間) を求めて文章に追加
+     * 5. リストの各行に表示する文字列を作成
+     *
+     * @param hourly         取得した1時間ごとの天気情報
+     * @param nowEpochSecond 現在時刻 (エポック秒)
+     * @return 表示用の分析結果
+     */
+    public ForecastResult analyze(HourlyColumns hourly, long nowEpochSecond) {
+        MetricsRegistry.Span analyzeSpan = metrics.startSpan(MetricsRegistry.STAGE_ANALYZE);
+        try {
+            return analyzeTimed(hourly, nowEpochSecond);
+        } finally {
+            analyzeSpan.close();
+        }
+    }
+
+    private ForecastResult analyzeTimed(HourlyColumns hourly, long nowEpochSecond) {
+        // APIからデータが十分に取得できているか確認
+        if (hourly.isEmpty()) {
+            return ForecastResult.message("表示できる天気情報がありません。");
+        }
+
+        // 全ての時間のスコアを1度だけ計算し、表示とランキングで共有する
+        ForecastFrame frame;
+        MetricsRegistry.Span scoreSpan = metrics.startSpan(MetricsRegistry.STAGE_SCORE);
+        try {
+            frame = ForecastFrame.from(hourly, scoringEngine);
+        } finally {
+            scoreSpan.close();
+        }
+
+        // 現在の日付 (予報データと同じタイムゾーン)
+        long today = Math.floorDiv(nowEpochSecond + frame.getUtcOffsetSeconds(), SECONDS_PER_DAY);
+
+        // 今日または明日のデータをリスト用の範囲とする
+        int listStart = frame.indexOfDay(today);
+        int listEnd = frame.indexOfDay(today + LIST_DAYS);
+
+        // 現在時刻より後のみを対象に、スコアの高い順 (同点の場合は時刻が早い順) に上位を選ぶ
+        int rankStart = Math.max(listStart, frame.indexAtOrAfter(nowEpochSecond + 1));
+        int[] ranking;
+        ExerciseWindow[] windows;
+        MetricsRegistry.Span rankSpan = metrics.startSpan(MetricsRegistry.STAGE_RANK);
+        try {
+            ranking = TopKRanker.topK(frame.score, rankStart, listEnd, TOP_COUNT, minGapHours);
+            // 連続した時間帯のおすすめ (1時間ごとのおすすめと同じく、現在時刻より後が対象)
+            windows = WindowSearch.findBestWindows(frame, rankStart, listEnd, WINDOW_MINUTES, WINDOW_COUNT);
+        } finally {
+            rankSpan.close();
+        }
+
+        // トップ3の詳細情報の文章を作成
+        StringBuilder resultText = new StringBuilder();
+        resultText.append("【おすすめの運動時間 Top 3】\n");
+
+        if (ranking.length == 0) {
+            resultText.append("この期間、運動に適した時間帯は見つかりませんでした。\n");
+        } else {
+            for (int i = 0; i < ranking.length; i++) {
+                int idx = ranking[i];
+
+                // 1位の場合は少し詳細を表示、2,3位はシンプルに
+                resultText.append(String.format(Locale.JAPAN, "No.%d: %s (%.0f点)\n", i + 1, formatTime(frame, idx), frame.score(idx)));
+                if (i == 0) {
+                     resultText.append("  ").append(generateWeatherMessage(frame.temperature(idx), frame.precipitationProbability(idx), frame.apparentTemperature(idx))).append("\n");
+                }
+            }
+        }
+
+        if (windows.length > 0) {
+            resultText.append("【おすすめの").append(WINDOW_MINUTES).append("分間】\n");
+            for (ExerciseWindow window : windows) {
+                resultText.append(String.format(Locale.JAPAN, "%s〜%s (平均%.0f点)\n",
+                        formatEpochSecond(window.startEpochSecond, frame.getUtcOffsetSeconds()),
+                        formatClock(window.endEpochSecond, frame.getUtcOffsetSeconds()),
+                        window.averageScore));
+            }
+        }
+
+        // リストの各行の表示文字列もここで作成し、描画時の書式変換を省く
+        ForecastRowTexts rowTexts = ForecastRowTexts.build(frame, listStart, listEnd);
+        return new ForecastResult(frame, listStart, listEnd, rowTexts, windows, resultText.toString());
+    }
+
+    /**
+     * 複数地点の天気情報をまとめて分析し、全地点の中からおすすめの時間と場所を選ぶメソッド
+     * 各地点のスコアを計算した後、全地点のスコアを1度のランキングで比較します。
+     *
+     * @param locations      地点ごとの1時間ごとの天気情報
+     * @param names          地点の名前 (locations と同じ順番)
+     * @param nowEpochSecond 現在時刻 (エポック秒)
+     * @return 表示用の文章
+     */
+    public String analyzeLocations(HourlyColumns[] locations, String[] names, long nowEpochSecond) {
+        int count = locations.length;
+        float[][] scores = new float[count][];
+        int[] from = new int[count];
+        int[] to = new int[count];
+        ForecastFrame[] frames = new ForecastFrame[count];
+
+        for (int s = 0; s < count; s++) {
+            ForecastFrame frame = ForecastFrame.from(locations[s], scoringEngine);
+            frames[s] = frame;
+            scores[s] = frame.score;
+
+            // 1地点の場合と同じく、今日・明日のうち現在時刻より後を対象にする
+            long today = Math.floorDiv(nowEpochSecond + frame.getUtcOffsetSeconds(), SECONDS_PER_DAY);
+            from[s] = Math.max(frame.indexOfDay(today), frame.indexAtOrAfter(nowEpochSecond + 1));
+            to[s] = Math.max(from[s], frame.indexOfDay(today + LIST_DAYS));
+        }
+
+        long[] ranking = TopKRanker.topKAcross(scores, from, to, TOP_COUNT, minGapHours);
+
+        StringBuilder resultText = new StringBuilder();
+        resultText.append("【全地点のおすすめ Top ").append(TOP_COUNT).append("】\n");
+        if (ranking.length == 0) {
+            resultText.append("この期間、運動に適した時間帯は見つかりませんでした。\n");
+            return resultText.toString();
+        }
+        for (int i = 0; i < ranking.length; i++) {
+            int s = TopKRanker.seriesOf(ranking[i]);
+            int idx = TopKRanker.indexOf(ranking[i]);
+            resultText.append(String.format(Locale.JAPAN, "No.%d: %s %s (%.0f点)\n",
+                    i + 1, names[s], formatTime(frames[s], idx), frames[s].score(idx)));
+        }
+        return resultText.toString();
+    }
+
+    /**
+     * 日付を含めた表示形式 (例: 12/09 10:00) に変換します
+     */
+    static String formatTime(ForecastFrame frame, int i) {
+        return formatEpochSecond(frame.time(i), frame.getUtcOffsetSeconds());
+    }
+
+    /**
+     * エポック秒を現地時刻の日付を含めた表示形式 (例: 12/09 10:00) に変換します
+     */
+    static String formatEpochSecond(long epochSecond, int utcOffsetSeconds) {
+        long local = epochSecond + utcOffsetSeconds;
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(local, SECONDS_PER_DAY));
+        int minuteOfDay = Math.floorMod(local, SECONDS_PER_DAY) / 60;
+        return String.format(Locale.JAPAN, "%02d/%02d %02d:%02d",
+                date.getMonthValue(),
+                date.getDayOfMonth(),
+                minuteOfDay / 60,
+                minuteOfDay % 60);
+    }
+
+    /**
+     * エポック秒を現地時刻の時刻のみの表示形式 (例: 11:30) に変換します
+     */
+    static String formatClock(long epochSecond, int utcOffsetSeconds) {
+        int minuteOfDay = Math.floorMod(epochSecond + utcOffsetSeconds, SECONDS_PER_DAY) / 60;
+        return String.format(Locale.JAPAN, "%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    /**
+     * 天気条件に基づいて、ユーザーへのワンポイントアドバイスメッセージを生成するメソッド
+     * おすすめ時間の詳細表示に使用されます。
+     *
+     * @param temperature 気温
+     * @param precipitationProbability 降水確率
+     * @param apparentTemperature 体感温度
+     * @return アドバイスメッセージ
+     */
+    static String generateWeatherMessage(double temperature, int precipitationProbability,
+                                         double apparentTemperature) {
+        // 危険度が高いものから順に判定する
+
+        // 熱中症・暑さに関する警告
+        if (apparentTemperature > 31) {
+            return "危険な暑さです。屋外運動は控えましょう。";
+        }
+        
+        // 降水に関する警告
+        if (precipitationProbability > 50) {
+            return "雨が降る可能性があります。";
+        }
+
+        // 快適な場合
+        if (temperature >= 15 && temperature <= 25 && precipitationProbability < 30) {
+            return "運動に最適なコンディションです！";
+        }
+
+        // その他の一般的なアドバイス
+        if (temperature > 25) {
+            return "少し暑いです。水分補給を忘れずに。";
+        }
+        if (temperature < 10) {
+            return "肌寒いです。体を冷やさないように。";
+        }
+
+        return "良い運動日和になりますように。";
+    }
+}
@@ -0,0 +1,174 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * 1回分の天気予報と運動適性スコアを列ごとのプリミティブ配列で保持する不変クラス
+ * レスポンスごとに1度だけ作成し、スコア計算・ランキング・リスト表示で共有します。
+ *
+ * ■ 列の型
+ * - 時刻: エポック秒 (long)
+ * - 気温・体感温度・風速・スコア: float
+ * - 降水確率・湿度: 0〜100 の byte
+ *
+ * ■ 欠損値
+ * APIが値を返さなかった箇所は、float の列では NaN、byte の列では {@link #MISSING_PERCENT} です。
+ * 欠損値を含む時間のスコアは NaN で、ランキングと時間帯の検索では対象にしません。
+ */
+public final class ForecastFrame {
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    // 降水確率・湿度の欠損値
+    public static final byte MISSING_PERCENT = -1;
+
+    public static final ForecastFrame EMPTY = new ForecastFrame(0, new long[0], new float[0], new float[0],
+            new byte[0], new byte[0], new float[0], new float[0]);
+
+    final int size;
+    final int utcOffsetSeconds;
+    final long[] time;                  // 時刻 (エポック秒)
+    final float[] temperature;          // 気温 (℃)
+    final float[] apparentTemperature;  // 体感温度 (℃)
+    final byte[] precipitation;         // 降水確率 (%)
+    final byte[] humidity;              // 相対湿度 (%)
+    final float[] windSpeed;            // 風速 (km/h)
+    final float[] score;                // 運動適性スコア (0-100、欠損値を含む時間は NaN)
+
+    private ForecastFrame(int utcOffsetSeconds, long[] time, float[] temperature, float[] apparentTemperature,
+                          byte[] precipitation, byte[] humidity, float[] windSpeed, float[] score) {
+        this.size = time.length;
+        this.utcOffsetSeconds = utcOffsetSeconds;
+        this.time = time;
+        this.temperature = temperature;
+        this.apparentTemperature = apparentTemperature;
+        this.precipitation = precipitation;
+        this.humidity = humidity;
+        this.windSpeed = windSpeed;
+        this.score = score;
+    }
+
+    /**
+     * APIから取得した予報データをもとに、各時間のスコアを計算してフレームを作成します
+     *
+     * @param columns 予報データ
+     * @param engine  スコアの計算方法
+     */
+    public static ForecastFrame from(HourlyColumns columns, ScoringEngine engine) {
+        int n = columns.size;
+        long[] time = columns.time.clone();
+        float[] temperature = new float[n];
+        float[] apparent = new float[n];
+        byte[] precipitation = new byte[n];
+        byte[] humidity = new byte[n];
+        float[] wind = new float[n];
+        float[] score = new float[n];
+
+        for (int i = 0; i < n; i++) {
+            temperature[i] = (float) columns.temperature[i];
+            apparent[i] = (float) columns.apparentTemperature[i];
+            precipitation[i] = toPercentByte(columns.precipitationProbability[i]);
+            humidity[i] = toPercentByte(columns.humidity[i]);
+            wind[i] = (float) columns.windSpeed[i];
+        }
+        // 変換した列をまとめてスコア計算する
+        engine.score(temperature, apparent, precipitation, humidity, wind, score, 0, n);
+        return new ForecastFrame(columns.utcOffsetSeconds, time, temperature, apparent,
+                precipitation, humidity, wind, score);
+    }
+
+    private static byte toPercentByte(int value) {
+        if (value == HourlyColumns.MISSING) {
+            return MISSING_PERCENT;
+        }
+        return (byte) Math.max(0, Math.min(100, value));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getUtcOffsetSeconds() {
+        return utcOffsetSeconds;
+    }
+
+    public long time(int i) {
+        return time[i];
+    }
+
+    public float temperature(int i) {
+        return temperature[i];
+    }
+
+    public float apparentTemperature(int i) {
+        return apparentTemperature[i];
+    }
+
+    public int precipitationProbability(int i) {
+        return precipitation[i];
+    }
+
+    public int humidity(int i) {
+        return humidity[i];
+    }
+
+    public float windSpeed(int i) {
+        return windSpeed[i];
+    }
+
+    public float score(int i) {
+        return score[i];
+    }
+
+    /**
+     * 指定した時間のスコアがあるか (欠損値を含まないか) を返します
+     */
+    public boolean hasScore(int i) {
+        return !Float.isNaN(score[i]);
+    }
+
+    /**
+     * 指定した時間の現地日付を、1970-01-01からの日数で返します
+     */
+    public long epochDay(int i) {
+        return Math.floorDiv(time[i] + utcOffsetSeconds, SECONDS_PER_DAY);
+    }
+
+    /**
+     * 指定した時間の現地時刻を、0時からの分数で返します
+     */
+    public int minuteOfDay(int i) {
+        return Math.floorMod(time[i] + utcOffsetSeconds, SECONDS_PER_DAY) / 60;
+    }
+
+    /**
+     * 指定した時刻 (エポック秒) 以上となる最初のインデックスを返します
+     * 時刻は昇順に並んでいるため二分探索で求めます。
+     *
+     * @return 該当するインデックス。すべて指定時刻より前の場合は size
+     */
+    public int indexAtOrAfter(long epochSecond) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (time[mid] < epochSecond) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 指定した現地日付の0時以降となる最初のインデックスを返します
+     *
+     * @param epochDay 1970-01-01からの日数
+     */
+    public int indexOfDay(long epochDay) {
+        return indexAtOrAfter(epochDay * SECONDS_PER_DAY - utcOffsetSeconds);
+    }
+}
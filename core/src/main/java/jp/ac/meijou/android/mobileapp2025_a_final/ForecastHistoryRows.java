@@ -0,0 +1,138 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.util.Arrays;
+
+/**
+ * 予報の履歴を保存するときの1時間ごとの行を、整数の列で保持するクラス
+ *
+ * ■ 形式
+ * 時刻はエポック秒を3600で割った「エポック時」、気温・体感温度・風速は 0.1 単位の整数で表します。
+ * Open-Meteo APIの値は小数1桁までなので、この変換で値は変わりません。
+ * SQLiteは整数を値の大きさに応じた可変長で保存するため、浮動小数点数 (8バイト) より小さく保存できます。
+ * 欠損値 (NaN) は {@link #MISSING} で表し、データベースには NULL として保存します。
+ */
+public final class ForecastHistoryRows {
+
+    // 欠損値を表す値
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private static final int SECONDS_PER_HOUR = 3600;
+
+    public final int size;                          // 行数
+    public final int[] hour;                        // 時刻 (エポック時、昇順)
+    public final int[] temperature;                 // 気温 (0.1℃)
+    public final int[] apparentTemperature;         // 体感温度 (0.1℃)
+    public final int[] humidity;                    // 相対湿度 (%)
+    public final int[] precipitationProbability;    // 降水確率 (%)
+    public final int[] windSpeed;                   // 風速 (0.1km/h)
+
+    public ForecastHistoryRows(int[] hour, int[] temperature, int[] apparentTemperature, int[] humidity,
+                               int[] precipitationProbability, int[] windSpeed) {
+        this.size = hour.length;
+        this.hour = hour;
+        this.temperature = temperature;
+        this.apparentTemperature = apparentTemperature;
+        this.humidity = humidity;
+        this.precipitationProbability = precipitationProbability;
+        this.windSpeed = windSpeed;
+    }
+
+    /**
+     * 取得した予報データを保存用の形式に変換します
+     */
+    public static ForecastHistoryRows encode(HourlyColumns columns) {
+        int n = columns.size;
+        int[] hour = new int[n];
+        int[] temperature = new int[n];
+        int[] apparent = new int[n];
+        int[] humidity = new int[n];
+        int[] precipitation = new int[n];
+        int[] wind = new int[n];
+        for (int i = 0; i < n; i++) {
+            hour[i] = toHour(columns.time[i]);
+            temperature[i] = encodeTenths(columns.temperature[i]);
+            apparent[i] = encodeTenths(columns.apparentTemperature[i]);
+            humidity[i] = columns.humidity[i];
+            precipitation[i] = columns.precipitationProbability[i];
+            wind[i] = encodeTenths(columns.windSpeed[i]);
+        }
+        return new ForecastHistoryRows(hour, temperature, apparent, humidity, precipitation, wind);
+    }
+
+    /**
+     * 保存用の形式から予報データに戻します
+     *
+     * @param utcOffsetSeconds 表示に使うタイムゾーンのUTCからのずれ (秒)
+     */
+    public HourlyColumns decode(int utcOffsetSeconds) {
+        long[] time = new long[size];
+        double[] temp = new double[size];
+        double[] apparent = new double[size];
+        double[] wind = new double[size];
+        for (int i = 0; i < size; i++) {
+            time[i] = (long) hour[i] * SECONDS_PER_HOUR;
+            temp[i] = decodeTenths(temperature[i]);
+            apparent[i] = decodeTenths(apparentTemperature[i]);
+            wind[i] = decodeTenths(windSpeed[i]);
+        }
+        return new HourlyColumns(utcOffsetSeconds, time, temp, Arrays.copyOf(humidity, size),
+                Arrays.copyOf(precipitationProbability, size), wind, apparent);
+    }
+
+    /**
+     * 保存済みの行と比べて、新しく追加された、または値が変わった行の番号を返します
+     * 両方の行は時刻の昇順に並んでいる必要があります。
+     *
+     * @param existing 同じ地点・同じ時間帯の保存済みの行
+     * @return このオブジェクトの行のうち、書き込みが必要な行の番号 (昇順)
+     */
+    public int[] changedIndices(ForecastHistoryRows existing) {
+        int[] changed = new int[size];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < existing.size && existing.hour[j] < hour[i]) {
+                j++;
+            }
+            if (j >= existing.size || existing.hour[j] != hour[i] || !sameValues(i, existing, j)) {
+                changed[count++] = i;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    private boolean sameValues(int i, ForecastHistoryRows other, int j) {
+        return temperature[i] == other.temperature[j]
+                && apparentTemperature[i] == other.apparentTemperature[j]
+                && humidity[i] == other.humidity[j]
+                && precipitationProbability[i] == other.precipitationProbability[j]
+                && windSpeed[i] == other.windSpeed[j];
+    }
+
+    /**
+     * エポック秒をエポック時に変換します
+     */
+    public static int toHour(long epochSeconds) {
+        return (int) Math.floorDiv(epochSeconds, SECONDS_PER_HOUR);
+    }
+
+    /**
+     * 小数1桁の値を 0.1 単位の整数に変換します (NaN は {@link #MISSING})
+     */
+    public static int encodeTenths(double value) {
+        if (Double.isNaN(value)) {
+            return MISSING;
+        }
+        return (int) Math.round(value * 10);
+    }
+
+    /**
+     * {@link #encodeTenths(double)} で変換した値を元に戻します
+     */
+    public static double decodeTenths(int value) {
+        if (value == MISSING) {
+            return Double.NaN;
+        }
+        return value / 10.0;
+    }
+}
@@ -0,0 +1,168 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * リストに表示する予報の1ページ (連続した数日分) をまとめたクラス
+ * スコアと各行の表示文字列は作成済みで、日ごとの見出しの位置と文字列も持ちます。
+ * 作成後は変更しないため、差分計算などで別のスレッドから参照できます。
+ *
+ * ページ内の項目は、日ごとに「見出し1行 + その日の時間の行」の順に並びます。
+ */
+public final class ForecastPage {
+
+    final ForecastFrame frame;          // スコアを含む予報データ
+    final ForecastRowTexts rowTexts;    // 各行に表示する文字列
+    final int start;                    // 表示する最初のインデックス
+    final int end;                      // 表示する最後のインデックス + 1
+    final long[] days;                  // 各日の現地日付 (1970-01-01からの日数)
+    final int[] dayStarts;              // 各日の最初のインデックス
+    final int[] headerPositions;        // 各日の見出しのページ内の位置
+    final String[] headers;             // 各日の見出しの文字列 (例: 12/11 (木)  最高 85点)
+
+    private ForecastPage(ForecastFrame frame, ForecastRowTexts rowTexts, int start, int end) {
+        this.frame = frame;
+        this.rowTexts = rowTexts;
+        this.start = start;
+        this.end = end;
+
+        int dayCount = 0;
+        for (int i = start; i < end; i++) {
+            if (i == start || frame.epochDay(i) != frame.epochDay(i - 1)) {
+                dayCount++;
+            }
+        }
+        days = new long[dayCount];
+        dayStarts = new int[dayCount];
+        headerPositions = new int[dayCount];
+        headers = new String[dayCount];
+
+        int d = -1;
+        for (int i = start; i < end; i++) {
+            if (i == start || frame.epochDay(i) != frame.epochDay(i - 1)) {
+                d++;
+                days[d] = frame.epochDay(i);
+                dayStarts[d] = i;
+                // 見出しの前には、それまでの日の見出しの数だけ項目がずれる
+                headerPositions[d] = i - start + d;
+            }
+        }
+        for (d = 0; d < dayCount; d++) {
+            int dayEnd = d + 1 < dayCount ? dayStarts[d + 1] : end;
+            headers[d] = header(frame, days[d], dayStarts[d], dayEnd);
+        }
+    }
+
+    /**
+     * 分析結果のうち、リストに表示する範囲 (今日・明日) をページにします
+     */
+    public static ForecastPage fromResult(ForecastResult result) {
+        return new ForecastPage(result.frame, result.rowTexts, result.listStart, result.listEnd);
+    }
+
+    /**
+     * 予報データのスコアと各行の表示文字列を作成し、全体を1つのページにします
+     * (3日目以降を後から読み込んだ場合に使用します)
+     *
+     * @param hourly 1時間ごとの天気情報
+     * @param engine スコアの計算に使うエンジン
+     */
+    public static ForecastPage score(HourlyColumns hourly, ScoringEngine engine) {
+        ForecastFrame frame = ForecastFrame.from(hourly, engine);
+        return new ForecastPage(frame, ForecastRowTexts.build(frame, 0, frame.size()), 0, frame.size());
+    }
+
+    /**
+     * 見出しを含めた項目の数
+     */
+    public int getItemCount() {
+        return end - start + days.length;
+    }
+
+    /**
+     * 含まれる日数
+     */
+    public int getDayCount() {
+        return days.length;
+    }
+
+    /**
+     * 最初の日 (1970-01-01からの日数)。データがない場合は Long.MIN_VALUE
+     */
+    public long getStartEpochDay() {
+        return days.length == 0 ? Long.MIN_VALUE : days[0];
+    }
+
+    /**
+     * 最後の日の翌日 (1970-01-01からの日数)。データがない場合は Long.MIN_VALUE
+     */
+    public long getEndEpochDay() {
+        return days.length == 0 ? Long.MIN_VALUE : days[days.length - 1] + 1;
+    }
+
+    /**
+     * 指定した日より前の日を取り除いたページを返します
+     * 予報データと表示文字列は共有し、表示する範囲だけを変えます。
+     *
+     * @param epochDay 残す最初の日 (1970-01-01からの日数)
+     * @return 取り除く日がなければこのページ。すべての日を取り除く場合は null
+     */
+    public ForecastPage startingAt(long epochDay) {
+        if (days.length == 0 || days[0] >= epochDay) {
+            return this;
+        }
+        int from = Math.max(start, frame.indexOfDay(epochDay));
+        if (from >= end) {
+            return null;
+        }
+        return new ForecastPage(frame, rowTexts, from, end);
+    }
+
+    /**
+     * ページ内の位置にある項目が、どの日のものかを返します (二分探索)
+     */
+    int dayAt(int position) {
+        int low = 0;
+        int high = headerPositions.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (headerPositions[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * ページ内の位置にある項目が見出しかどうか
+     */
+    boolean isHeader(int position) {
+        return headerPositions[dayAt(position)] == position;
+    }
+
+    /**
+     * ページ内の位置にある行の、予報データのインデックスを返します (見出しの位置では使用しない)
+     */
+    int indexAt(int position) {
+        int d = dayAt(position);
+        return dayStarts[d] + (position - headerPositions[d] - 1);
+    }
+
+    // 日付・曜日と、その日の最高スコアを見出しにする
+    private static String header(ForecastFrame frame, long epochDay, int from, int to) {
+        float best = 0;
+        for (int i = from; i < to; i++) {
+            if (frame.hasScore(i)) {
+                best = Math.max(best, frame.score(i));
+            }
+        }
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return String.format(Locale.JAPAN, "%02d/%02d (%s)  最高 %.0f点",
+                date.getMonthValue(), date.getDayOfMonth(),
+                date.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.JAPAN), best);
+    }
+}
@@ -0,0 +1,166 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * リストに表示するページ ({@link ForecastPage}) を日付順に並べたクラス
+ * リスト全体の位置から、見出しか行か・どのページのどの時間かを求めます。
+ *
+ * ページを追加するたびに新しいリストを作り (既存のページは共有)、作成後は変更しません。
+ * 位置の計算はページ数・日数に対する二分探索のため、予報の日数が増えても描画の負担は変わりません。
+ */
+public final class ForecastPageList {
+
+    public static final ForecastPageList EMPTY = new ForecastPageList(new ForecastPage[0]);
+
+    private final ForecastPage[] pages;
+    // 各ページの最初の項目のリスト全体での位置 (最後の要素は項目の総数)
+    private final int[] offsets;
+
+    private ForecastPageList(ForecastPage[] pages) {
+        this.pages = pages;
+        this.offsets = new int[pages.length + 1];
+        for (int p = 0; p < pages.length; p++) {
+            offsets[p + 1] = offsets[p] + pages[p].getItemCount();
+        }
+    }
+
+    /**
+     * 指定したページを順に並べたリストを作成します
+     */
+    public static ForecastPageList of(ForecastPage... pages) {
+        return new ForecastPageList(pages.clone());
+    }
+
+    /**
+     * 最初のページに続けて、日付が重ならないようにページを並べたリストを作成します
+     * 日付が変わった後に最初のページ (今日・明日) を作り直した場合など、前のページと重なる日は取り除きます。
+     * 同じ時刻の行や同じ日の見出しが2回現れないため、項目のIDは重なりません。
+     *
+     * @param first 最初のページ
+     * @param pages 続けて並べるページ (日付順)。null (まだ分析していないページ) があれば、その先は含めません
+     */
+    public static ForecastPageList contiguous(ForecastPage first, List<ForecastPage> pages) {
+        ForecastPage[] ordered = new ForecastPage[pages.size() + 1];
+        ordered[0] = first;
+        int count = 1;
+        long nextDay = first.getEndEpochDay();
+        for (ForecastPage page : pages) {
+            if (page == null) {
+                break;
+            }
+            ForecastPage trimmed = nextDay == Long.MIN_VALUE ? page : page.startingAt(nextDay);
+            if (trimmed == null || trimmed.getDayCount() == 0) {
+                continue;
+            }
+            ordered[count++] = trimmed;
+            nextDay = trimmed.getEndEpochDay();
+        }
+        return new ForecastPageList(Arrays.copyOf(ordered, count));
+    }
+
+    /**
+     * 末尾にページを追加したリストを返します (このリストは変更しません)
+     */
+    public ForecastPageList append(ForecastPage page) {
+        ForecastPage[] appended = Arrays.copyOf(pages, pages.length + 1);
+        appended[pages.length] = page;
+        return new ForecastPageList(appended);
+    }
+
+    /**
+     * 見出しを含めた項目の総数
+     */
+    public int size() {
+        return offsets[pages.length];
+    }
+
+    public int getPageCount() {
+        return pages.length;
+    }
+
+    public ForecastPage getPage(int p) {
+        return pages[p];
+    }
+
+    /**
+     * このリストの先頭に、指定したリストのページが同じ順番ですべて含まれているか
+     * (ページを末尾に追加しただけの更新は、差分計算を省略できます)
+     */
+    public boolean startsWith(ForecastPageList other) {
+        if (other.pages.length > pages.length) {
+            return false;
+        }
+        for (int p = 0; p < other.pages.length; p++) {
+            if (other.pages[p] != pages[p]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 位置にある項目を含むページの番号を返します (二分探索)
+     */
+    public int pageAt(int position) {
+        int low = 0;
+        int high = pages.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 位置にある項目が日の見出しかどうか
+     */
+    public boolean isHeader(int position) {
+        int p = pageAt(position);
+        return pages[p].isHeader(position - offsets[p]);
+    }
+
+    /**
+     * 位置にある見出しの文字列を返します
+     */
+    public String headerText(int position) {
+        int p = pageAt(position);
+        ForecastPage page = pages[p];
+        return page.headers[page.dayAt(position - offsets[p])];
+    }
+
+    /**
+     * 位置にある行の予報データのインデックスを返します (データは {@link #getPage(int)} の frame・rowTexts)
+     */
+    public int indexAt(int position) {
+        int p = pageAt(position);
+        return pages[p].indexAt(position - offsets[p]);
+    }
+
+    /**
+     * 位置にある項目のIDを返します
+     * 行は予報の時刻 (エポック秒)、見出しは日付から作った負の値で、ページをまたいでも重なりません。
+     */
+    public long itemId(int position) {
+        int p = pageAt(position);
+        ForecastPage page = pages[p];
+        int local = position - offsets[p];
+        int d = page.dayAt(local);
+        if (page.headerPositions[d] == local) {
+            return -page.days[d] - 1;
+        }
+        return page.frame.time(page.dayStarts[d] + (local - page.headerPositions[d] - 1));
+    }
+
+    /**
+     * 最後のページの最後の日の翌日 (1970-01-01からの日数)。ページがない場合は Long.MIN_VALUE
+     */
+    public long getEndEpochDay() {
+        return pages.length == 0 ? Long.MIN_VALUE : pages[pages.length - 1].getEndEpochDay();
+    }
+}
@@ -0,0 +1,39 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * 天気予報の分析結果をまとめたクラス
+ * バックグラウンドで作成し、UIスレッドではそのまま画面に反映するだけで済む形にしています。
+ */
+public final class ForecastResult {
+
+    public final ForecastFrame frame;   // スコアを含む予報データ
+    public final int listStart;         // リストに表示する最初のインデックス
+    public final int listEnd;           // リストに表示する最後のインデックス + 1
+    public final ForecastRowTexts rowTexts; // リストの各行に表示する文字列
+    public final ExerciseWindow[] windows;  // おすすめの連続した時間帯 (平均スコアの高い順)
+    public final String summary;        // おすすめの運動時間などの文章
+
+    public ForecastResult(ForecastFrame frame, int listStart, int listEnd, ForecastRowTexts rowTexts,
+                          ExerciseWindow[] windows, String summary) {
+        this.frame = frame;
+        this.listStart = listStart;
+        this.listEnd = listEnd;
+        this.rowTexts = rowTexts;
+        this.windows = windows;
+        this.summary = summary;
+    }
+
+    /**
+     * 表示できるデータがなく、メッセージのみを表示する結果を作成します
+     */
+    static ForecastResult message(String summary) {
+        return new ForecastResult(ForecastFrame.EMPTY, 0, 0, ForecastRowTexts.EMPTY, new ExerciseWindow[0], summary);
+    }
+
+    /**
+     * リストに表示するデータがあるかどうか
+     */
+    public boolean hasForecast() {
+        return !frame.isEmpty();
+    }
+}
@@ -0,0 +1,169 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.time.LocalDate;
+
+/**
+ * リストの各行に表示する文字列をあらかじめ作成しておくクラス
+ * スクロール中の描画で String.format を呼ばずに済むよう、分析と同じバックグラウンド処理で作成します。
+ *
+ * 数値の書式は String.format(Locale.JAPAN, ...) の "%.0f" / "%.1f" / "%d" と同じ結果になるよう、
+ * 1つの StringBuilder を使い回して組み立てます。欠損値は "--" と表示します。
+ */
+public final class ForecastRowTexts {
+
+    public static final ForecastRowTexts EMPTY = new ForecastRowTexts(0, 0);
+
+    // 欠損値の表示 (例: --点, --%)
+    static final String MISSING_TEXT = "--";
+
+    private final int start;
+    final String[] time;            // 日時 (例: 12/09 10:00)
+    final String[] score;           // スコア (例: 85点)
+    final String[] temperature;     // 気温 (例: 12.3℃)
+    final String[] precipitation;   // 降水確率 (例: 30%)
+    final String[] humidity;        // 湿度 (例: 60%)
+    final String[] wind;            // 風速 (例: 4.5km/h)
+
+    private ForecastRowTexts(int start, int count) {
+        this.start = start;
+        this.time = new String[count];
+        this.score = new String[count];
+        this.temperature = new String[count];
+        this.precipitation = new String[count];
+        this.humidity = new String[count];
+        this.wind = new String[count];
+    }
+
+    /**
+     * 指定した範囲 [start, end) の各行の表示文字列を作成します
+     *
+     * @param frame 予報データ
+     * @param start 最初のインデックス
+     * @param end   最後のインデックス + 1
+     */
+    public static ForecastRowTexts build(ForecastFrame frame, int start, int end) {
+        ForecastRowTexts texts = new ForecastRowTexts(start, Math.max(0, end - start));
+        StringBuilder sb = new StringBuilder(16);
+
+        long currentDay = Long.MIN_VALUE;
+        String datePrefix = "";
+        for (int i = start; i < end; i++) {
+            int row = i - start;
+
+            // 日付部分は同じ日の間は使い回す
+            long epochDay = frame.epochDay(i);
+            if (epochDay != currentDay) {
+                currentDay = epochDay;
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                sb.setLength(0);
+                appendTwoDigits(sb, date.getMonthValue());
+                sb.append('/');
+                appendTwoDigits(sb, date.getDayOfMonth());
+                sb.append(' ');
+                datePrefix = sb.toString();
+            }
+            int minuteOfDay = frame.minuteOfDay(i);
+            sb.setLength(0);
+            sb.append(datePrefix);
+            appendTwoDigits(sb, minuteOfDay / 60);
+            sb.append(':');
+            appendTwoDigits(sb, minuteOfDay % 60);
+            texts.time[row] = sb.toString();
+
+            sb.setLength(0);
+            appendValue(sb, frame.score(i), 0);
+            texts.score[row] = sb.append('点').toString();
+
+            sb.setLength(0);
+            appendValue(sb, frame.temperature(i), 1);
+            texts.temperature[row] = sb.append('℃').toString();
+
+            sb.setLength(0);
+            appendPercent(sb, frame.precipitationProbability(i));
+            texts.precipitation[row] = sb.append('%').toString();
+
+            sb.setLength(0);
+            appendPercent(sb, frame.humidity(i));
+            texts.humidity[row] = sb.append('%').toString();
+
+            sb.setLength(0);
+            appendValue(sb, frame.windSpeed(i), 1);
+            texts.wind[row] = sb.append("km/h").toString();
+        }
+        return texts;
+    }
+
+    public String time(int i) {
+        return time[i - start];
+    }
+
+    public String score(int i) {
+        return score[i - start];
+    }
+
+    public String temperature(int i) {
+        return temperature[i - start];
+    }
+
+    public String precipitation(int i) {
+        return precipitation[i - start];
+    }
+
+    public String humidity(int i) {
+        return humidity[i - start];
+    }
+
+    public String wind(int i) {
+        return wind[i - start];
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    // 欠損値 (NaN) は "--" として追加する
+    private static void appendValue(StringBuilder sb, float value, int decimals) {
+        if (Float.isNaN(value)) {
+            sb.append(MISSING_TEXT);
+        } else {
+            appendFixed(sb, value, decimals);
+        }
+    }
+
+    // 欠損値 (ForecastFrame.MISSING_PERCENT) は "--" として追加する
+    private static void appendPercent(StringBuilder sb, int percent) {
+        if (percent == ForecastFrame.MISSING_PERCENT) {
+            sb.append(MISSING_TEXT);
+        } else {
+            sb.append(percent);
+        }
+    }
+
+    /**
+     * 小数点以下を指定した桁数 (0 または 1) で四捨五入して追加します
+     * String.format と同じく、負の値も絶対値で四捨五入します (例: -0.25 → "-0.3")。
+     */
+    static void appendFixed(StringBuilder sb, float value, int decimals) {
+        if (Float.isNaN(value)) {
+            sb.append("NaN");
+            return;
+        }
+        if (Float.isInfinite(value)) {
+            sb.append(value > 0 ? "Infinity" : "-Infinity");
+            return;
+        }
+        double magnitude = Math.abs((double) value);
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            sb.append('-');
+        }
+        if (decimals == 0) {
+            sb.append((long) Math.floor(magnitude + 0.5));
+            return;
+        }
+        long scaled = (long) Math.floor(magnitude * 10 + 0.5);
+        sb.append(scaled / 10).append('.').append(scaled % 10);
+    }
+}
@@ -0,0 +1,173 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HeartRailsResponse} とJSONを相互に変換するアダプター
+ * Moshi のリフレクションによる変換と同じ結果を、リフレクションを使わずに得ます。
+ *
+ * ■ リフレクションを使わない理由
+ * - 初回の変換時にクラスの解析が不要になり、最初の検索が速くなる
+ * - フィールド名に依存しないため、R8 で難読化してもキープ指定が不要
+ *
+ * フィールド名は {@link JsonReader.Options} で事前にエンコードしておき、文字列を作らずに照合します。
+ * 知らない名前の値は読み飛ばし、null の値はフィールドを設定しません (書き出し時も省略します)。
+ */
+public final class HeartRailsResponseJsonAdapter extends JsonAdapter<HeartRailsResponse> {
+
+    // プロセス内で共有するインスタンス (状態を持たないため使い回せる)
+    public static final JsonAdapter<HeartRailsResponse> INSTANCE = new HeartRailsResponseJsonAdapter();
+
+    private static final JsonReader.Options ROOT_NAMES = JsonReader.Options.of("response");
+    private static final JsonReader.Options RESPONSE_NAMES = JsonReader.Options.of("location");
+    private static final JsonReader.Options LOCATION_NAMES = JsonReader.Options.of(
+            "city", "city_kana", "town", "town_kana", "x", "y", "prefecture", "postal");
+
+    private HeartRailsResponseJsonAdapter() {
+    }
+
+    @Override
+    public HeartRailsResponse fromJson(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+        HeartRailsResponse result = new HeartRailsResponse();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.selectName(ROOT_NAMES) == 0) {
+                result.response = readResponse(reader);
+            } else {
+                reader.skipName();
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    @Override
+    public void toJson(JsonWriter writer, HeartRailsResponse value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+            return;
+        }
+        writer.beginObject();
+        if (value.response != null) {
+            writer.name("response");
+            writeResponse(writer, value.response);
+        }
+        writer.endObject();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonAdapter(HeartRailsResponse)";
+    }
+
+    private static HeartRailsResponse.Response readResponse(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+        HeartRailsResponse.Response response = new HeartRailsResponse.Response();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.selectName(RESPONSE_NAMES) == 0) {
+                response.location = readLocations(reader);
+            } else {
+                // "error" など、使わない値は読み飛ばす
+                reader.skipName();
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return response;
+    }
+
+    private static List<HeartRailsResponse.Location> readLocations(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+        List<HeartRailsResponse.Location> locations = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            locations.add(readLocation(reader));
+        }
+        reader.endArray();
+        return locations;
+    }
+
+    private static HeartRailsResponse.Location readLocation(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+        HeartRailsResponse.Location location = new HeartRailsResponse.Location();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.selectName(LOCATION_NAMES);
+            if (index == -1) {
+                reader.skipName();
+                reader.skipValue();
+                continue;
+            }
+            String value = readString(reader);
+            switch (index) {
+                case 0: location.city = value; break;
+                case 1: location.city_kana = value; break;
+                case 2: location.town = value; break;
+                case 3: location.town_kana = value; break;
+                case 4: location.x = value; break;
+                case 5: location.y = value; break;
+                case 6: location.prefecture = value; break;
+                case 7: location.postal = value; break;
+                default: break;
+            }
+        }
+        reader.endObject();
+        return location;
+    }
+
+    // 文字列の値を読み込む (null はそのまま null を返す)
+    private static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+        return reader.nextString();
+    }
+
+    private static void writeResponse(JsonWriter writer, HeartRailsResponse.Response response) throws IOException {
+        writer.beginObject();
+        if (response.location != null) {
+            writer.name("location");
+            writer.beginArray();
+            for (HeartRailsResponse.Location location : response.location) {
+                writeLocation(writer, location);
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+
+    private static void writeLocation(JsonWriter writer, HeartRailsResponse.Location location) throws IOException {
+        if (location == null) {
+            writer.nullValue();
+            return;
+        }
+        // リフレクションによる変換と同じ名前順で書き出す (保存済みのファイルと同じ内容になるように)
+        writer.beginObject();
+        writer.name("city").value(location.city);
+        writer.name("city_kana").value(location.city_kana);
+        writer.name("postal").value(location.postal);
+        writer.name("prefecture").value(location.prefecture);
+        writer.name("town").value(location.town);
+        writer.name("town_kana").value(location.town_kana);
+        writer.name("x").value(location.x);
+        writer.name("y").value(location.y);
+        writer.endObject();
+    }
+}
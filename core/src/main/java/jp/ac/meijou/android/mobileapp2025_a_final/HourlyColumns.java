@@ -0,0 +1,105 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Open-Meteo APIの1時間ごとの予報データを列ごとのプリミティブ配列で保持するクラス
+ * レスポンスの hourly の各配列を List&lt;Double&gt; / List&lt;Integer&gt; に変換した場合と同じ内容を、
+ * ボクシングなしで保持します。
+ *
+ * ■ 欠損値
+ * APIが null を返した箇所は、double の列では NaN、int の列では {@link #MISSING} として格納します。
+ * 0 は「降水確率 0%」などの有効な値なので、欠損には使いません。
+ */
+public final class HourlyColumns {
+
+    // ディスク保存時の形式バージョン (形式を変えたら増やす)
+    // 2: int の列の欠損値を 0 から MISSING に変更
+    private static final int FORMAT_VERSION = 2;
+
+    // int の列の欠損値を表す値
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    public static final HourlyColumns EMPTY = new HourlyColumns(0, new long[0], new double[0],
+            new int[0], new int[0], new double[0], new double[0]);
+
+    public final int size;                          // 時間数
+    public final int utcOffsetSeconds;              // タイムゾーンのUTCからのずれ (秒)
+    public final long[] time;                       // 時刻 (エポック秒)
+    public final double[] temperature;              // 気温 (℃)
+    public final int[] humidity;                    // 相対湿度 (%)
+    public final int[] precipitationProbability;    // 降水確率 (%)
+    public final double[] windSpeed;                // 風速 (km/h)
+    public final double[] apparentTemperature;      // 体感温度 (℃)
+
+    public HourlyColumns(int utcOffsetSeconds, long[] time, double[] temperature, int[] humidity,
+                         int[] precipitationProbability, double[] windSpeed, double[] apparentTemperature) {
+        this.size = time.length;
+        this.utcOffsetSeconds = utcOffsetSeconds;
+        this.time = time;
+        this.temperature = temperature;
+        this.humidity = humidity;
+        this.precipitationProbability = precipitationProbability;
+        this.windSpeed = windSpeed;
+        this.apparentTemperature = apparentTemperature;
+    }
+
+    /**
+     * データが1件もないかどうか
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * ディスク保存用にバイナリ形式で書き出します
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(utcOffsetSeconds);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(time[i]);
+            out.writeDouble(temperature[i]);
+            out.writeInt(humidity[i]);
+            out.writeInt(precipitationProbability[i]);
+            out.writeDouble(windSpeed[i]);
+            out.writeDouble(apparentTemperature[i]);
+        }
+    }
+
+    /**
+     * {@link #writeTo(DataOutputStream)} で書き出したデータを読み込みます
+     *
+     * @throws IOException 形式が異なる、またはデータが壊れている場合
+     */
+    public static HourlyColumns readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported format version: " + version);
+        }
+        int utcOffsetSeconds = in.readInt();
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("invalid size: " + size);
+        }
+
+        long[] time = new long[size];
+        double[] temperature = new double[size];
+        int[] humidity = new int[size];
+        int[] precipitation = new int[size];
+        double[] wind = new double[size];
+        double[] apparent = new double[size];
+        for (int i = 0; i < size; i++) {
+            time[i] = in.readLong();
+            temperature[i] = in.readDouble();
+            humidity[i] = in.readInt();
+            precipitation[i] = in.readInt();
+            wind[i] = in.readDouble();
+            apparent[i] = in.readDouble();
+        }
+        return new HourlyColumns(utcOffsetSeconds, time, temperature, humidity, precipitation, wind, apparent);
+    }
+}
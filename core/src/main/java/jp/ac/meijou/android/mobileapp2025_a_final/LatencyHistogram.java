@@ -0,0 +1,156 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 処理時間の分布を記録するヒストグラム
+ * 値そのものは保存せず、あらかじめ決めた区間ごとの件数だけを数えるため、記録の回数が増えてもメモリは増えません。
+ * 複数のスレッドから同時に記録できます。
+ *
+ * 区間はマイクロ秒単位で 1-2-5 の刻み (10µs〜30秒) のため、行の描画のような短い処理と通信のような長い処理を
+ * 同じクラスで記録できます。
+ * パーセンタイルは、その順位の値が入っている区間の上限として返します (区間の幅だけ大きめの値になります)。
+ */
+public final class LatencyHistogram {
+
+    // 区間の上限 (マイクロ秒)。これを超える値は最後の区間に入る
+    private static final long[] BOUNDS_MICROS = {
+            10, 20, 50, 100, 200, 500,
+            1_000, 2_000, 5_000, 10_000, 20_000, 50_000, 100_000, 200_000, 500_000,
+            1_000_000, 2_000_000, 5_000_000, 10_000_000, 20_000_000, 30_000_000
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * 処理時間 (ミリ秒) を1件記録します
+     */
+    public void record(long millis) {
+        recordMicros(millis * 1000);
+    }
+
+    /**
+     * 処理時間 (マイクロ秒) を1件記録します
+     */
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sumMicros.addAndGet(value);
+        long max;
+        while (value > (max = maxMicros.get())) {
+            if (maxMicros.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 記録した件数
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * 平均値 (ミリ秒)。記録がない場合は 0
+     */
+    public double getMeanMillis() {
+        return getMeanMicros() / 1000.0;
+    }
+
+    /**
+     * 平均値 (マイクロ秒)。記録がない場合は 0
+     */
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sumMicros.get() / n;
+    }
+
+    /**
+     * 最大値 (ミリ秒、切り上げ)
+     */
+    public long getMaxMillis() {
+        return toMillis(maxMicros.get());
+    }
+
+    /**
+     * 最大値 (マイクロ秒)
+     */
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * パーセンタイルの値 (ミリ秒、切り上げ) を返します。記録がない場合は 0
+     *
+     * @param percentile 0〜100 (例: 中央値は 50、95パーセンタイルは 95)
+     */
+    public long getPercentileMillis(double percentile) {
+        return toMillis(getPercentileMicros(percentile));
+    }
+
+    /**
+     * パーセンタイルの値 (マイクロ秒) を返します。記録がない場合は 0
+     *
+     * @param percentile 0〜100 (例: 中央値は 50、95パーセンタイルは 95)
+     */
+    public long getPercentileMicros(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        // 小さい方から数えた順位 (1始まり)
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                // 最大値より大きい上限は返さない
+                return i < BOUNDS_MICROS.length ? Math.min(BOUNDS_MICROS[i], maxMicros.get()) : maxMicros.get();
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * 件数・中央値・95パーセンタイル・最大値をまとめた文字列を返します (ログ出力用)
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "n=%d p50=%s p95=%s max=%s",
+                getCount(), formatMicros(getPercentileMicros(50)), formatMicros(getPercentileMicros(95)),
+                formatMicros(getMaxMicros()));
+    }
+
+    /**
+     * マイクロ秒の値を、大きさに合わせた単位の文字列 (例: 850µs, 12.5ms, 1.20s) に変換します
+     */
+    static String formatMicros(long micros) {
+        if (micros < 1_000) {
+            return micros + "µs";
+        }
+        if (micros < 1_000_000) {
+            return String.format(Locale.US, "%.1fms", micros / 1000.0);
+        }
+        return String.format(Locale.US, "%.2fs", micros / 1_000_000.0);
+    }
+
+    private static long toMillis(long micros) {
+        return (micros + 999) / 1000;
+    }
+
+    private static int bucketOf(long micros) {
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            if (micros <= BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS_MICROS.length;
+    }
+}
@@ -0,0 +1,282 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import okio.BufferedSource;
+
+/**
+ * Open-Meteo APIのレスポンスを逐次読み込みで {@link HourlyColumns} に変換するクラス
+ * レスポンス全体を文字列にしたりリストを作ったりせず、ストリームから直接プリミティブ配列に格納します。
+ *
+ * 時刻は timeformat=unixtime 指定時の数値 (エポック秒) と、
+ * 既定の ISO 8601 文字列 ("YYYY-MM-DDTHH:MM", 現地時刻) の両方に対応します。
+ */
+public final class MeteoHourlyParser {
+
+    private static final JsonReader.Options TOP_LEVEL_NAMES = JsonReader.Options.of(
+            "utc_offset_seconds", "hourly");
+
+    private static final JsonReader.Options HOURLY_NAMES = JsonReader.Options.of(
+            "time",
+            "temperature_2m",
+            "relativehumidity_2m",
+            "precipitation_probability",
+            "windspeed_10m",
+            "apparent_temperature");
+
+    // 配列の長さが分からない場合の初期容量 (2日分)
+    private static final int DEFAULT_CAPACITY = 48;
+
+    private MeteoHourlyParser() {
+    }
+
+    /**
+     * レスポンスのストリームから1時間ごとの予報データを読み込みます
+     *
+     * @param source レスポンスボディ
+     * @return 予報データ。hourly が含まれない場合は {@link HourlyColumns#EMPTY}
+     * @throws IOException 読み込みに失敗した場合や、JSONの形式が不正な場合
+     */
+    public static HourlyColumns parse(BufferedSource source) throws IOException {
+        try (JsonReader reader = JsonReader.of(source)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * 複数地点をまとめて指定したレスポンスから、地点ごとの予報データを読み込みます
+     * 緯度・経度をカンマ区切りで複数指定した場合、レスポンスは地点ごとのオブジェクトの配列になります。
+     * 1地点だけのレスポンス (オブジェクト) の場合は、長さ1の配列を返します。
+     *
+     * @param source レスポンスボディ
+     * @return 指定した順番に並んだ地点ごとの予報データ
+     * @throws IOException 読み込みに失敗した場合や、JSONの形式が不正な場合
+     */
+    public static HourlyColumns[] parseAll(BufferedSource source) throws IOException {
+        try (JsonReader reader = JsonReader.of(source)) {
+            if (reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                return new HourlyColumns[]{read(reader)};
+            }
+            HourlyColumns[] locations = new HourlyColumns[4];
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (count == locations.length) {
+                    locations = Arrays.copyOf(locations, count * 2);
+                }
+                locations[count++] = read(reader);
+            }
+            reader.endArray();
+            return Arrays.copyOf(locations, count);
+        }
+    }
+
+    /**
+     * 1地点分のレスポンス (JSONオブジェクト) を読み込みます
+     */
+    static HourlyColumns read(JsonReader reader) throws IOException {
+        int utcOffsetSeconds = 0;
+        RawHourly hourly = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(TOP_LEVEL_NAMES)) {
+                case 0:
+                    utcOffsetSeconds = reader.nextInt();
+                    break;
+                case 1:
+                    hourly = readHourly(reader);
+                    break;
+                default:
+                    reader.skipName();
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (hourly == null || hourly.time == null) {
+            return HourlyColumns.EMPTY;
+        }
+        return hourly.toColumns(utcOffsetSeconds);
+    }
+
+    private static RawHourly readHourly(JsonReader reader) throws IOException {
+        RawHourly hourly = new RawHourly();
+        int expected = DEFAULT_CAPACITY;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(HOURLY_NAMES)) {
+                case 0:
+                    hourly.readTime(reader, expected);
+                    expected = hourly.time.length;
+                    break;
+                case 1:
+                    hourly.temperature = readDoubles(reader, expected);
+                    break;
+                case 2:
+                    hourly.humidity = readInts(reader, expected);
+                    break;
+                case 3:
+                    hourly.precipitation = readInts(reader, expected);
+                    break;
+                case 4:
+                    hourly.wind = readDoubles(reader, expected);
+                    break;
+                case 5:
+                    hourly.apparent = readDoubles(reader, expected);
+                    break;
+                default:
+                    reader.skipName();
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return hourly;
+    }
+
+    private static double[] readDoubles(JsonReader reader, int capacity) throws IOException {
+        double[] values = new double[capacity];
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, count * 2));
+            }
+            if (reader.peek() == JsonReader.Token.NULL) {
+                reader.nextNull();
+                values[count++] = Double.NaN;
+            } else {
+                values[count++] = reader.nextDouble();
+            }
+        }
+        reader.endArray();
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    private static int[] readInts(JsonReader reader, int capacity) throws IOException {
+        int[] values = new int[capacity];
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, count * 2));
+            }
+            if (reader.peek() == JsonReader.Token.NULL) {
+                reader.nextNull();
+                values[count++] = HourlyColumns.MISSING;
+            } else {
+                values[count++] = reader.nextInt();
+            }
+        }
+        reader.endArray();
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * ISO 8601 形式の現地時刻 ("YYYY-MM-DDTHH:MM") を、UTCとみなしたエポック秒に変換します
+     * LocalDateTime を生成せずに計算します。
+     */
+    static long parseLocalDateTime(String text) {
+        if (text.length() < 16 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != 'T' || text.charAt(13) != ':') {
+            throw new JsonDataException("invalid time: " + text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        return epochDay(year, month, day) * 86400L + hour * 3600L + minute * 60L;
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new JsonDataException("invalid time: " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // グレゴリオ暦の日付から1970-01-01からの日数を求める
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * 読み込み途中の hourly の各列
+     */
+    private static class RawHourly {
+        long[] time;
+        boolean localTime;  // 時刻が現地時刻の文字列で返されたか
+        double[] temperature;
+        int[] humidity;
+        int[] precipitation;
+        double[] wind;
+        double[] apparent;
+
+        void readTime(JsonReader reader, int capacity) throws IOException {
+            long[] values = new long[capacity];
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, count * 2));
+                }
+                if (reader.peek() == JsonReader.Token.STRING) {
+                    values[count++] = parseLocalDateTime(reader.nextString());
+                    localTime = true;
+                } else {
+                    values[count++] = reader.nextLong();
+                }
+            }
+            reader.endArray();
+            time = count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        HourlyColumns toColumns(int utcOffsetSeconds) {
+            int size = time.length;
+            if (localTime) {
+                // 現地時刻をUTCのエポック秒に補正
+                for (int i = 0; i < size; i++) {
+                    time[i] -= utcOffsetSeconds;
+                }
+            }
+            return new HourlyColumns(utcOffsetSeconds, time,
+                    checkSize(temperature, size, "temperature_2m"),
+                    checkSize(humidity, size, "relativehumidity_2m"),
+                    checkSize(precipitation, size, "precipitation_probability"),
+                    checkSize(wind, size, "windspeed_10m"),
+                    checkSize(apparent, size, "apparent_temperature"));
+        }
+
+        private static double[] checkSize(double[] values, int size, String name) {
+            if (values == null || values.length != size) {
+                throw new JsonDataException("hourly." + name + " does not match time");
+            }
+            return values;
+        }
+
+        private static int[] checkSize(int[] values, int size, String name) {
+            if (values == null || values.length != size) {
+                throw new JsonDataException("hourly." + name + " does not match time");
+            }
+            return values;
+        }
+    }
+}
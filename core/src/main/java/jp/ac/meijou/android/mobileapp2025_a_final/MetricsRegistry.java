@@ -0,0 +1,285 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import com.squareup.moshi.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * 処理の段階ごとの時間と回数を、プロセス内で記録するクラス
+ * 「情報を更新」ボタンを押してからおすすめのトップ3が表示されるまでの、どこに時間がかかっているかを調べるために使います。
+ *
+ * ■ 記録する内容
+ * - ヒストグラム: 段階ごとの処理時間 ({@link #startSpan(String)} で計測した区間)
+ * - カウンター: キャッシュのヒットや行の描画など、回数だけを数えるもの
+ *
+ * 計測した区間は {@link Tracer} にも通知します。アプリでは android.os.Trace に出力するため、
+ * Perfetto などのトレースでも同じ名前の区間を確認できます (Android に依存しないよう、出力先は外から設定します)。
+ */
+public final class MetricsRegistry {
+
+    // 段階の名前 (画面やトレースに表示する)
+    public static final String STAGE_SEARCH = "ui.search_to_display";     // ボタンを押してから表示まで
+    public static final String STAGE_NETWORK = "forecast.network";        // リクエストからレスポンスヘッダーまで
+    public static final String STAGE_BODY_READ = "forecast.body_read";    // レスポンスボディの受信
+    public static final String STAGE_PARSE = "forecast.parse";            // JSONの解析
+    public static final String STAGE_ANALYZE = "analyze.total";           // 分析全体
+    public static final String STAGE_SCORE = "analyze.score";             // 全時間のスコア計算
+    public static final String STAGE_RANK = "analyze.rank";               // おすすめの時間・時間帯の選択
+    public static final String STAGE_DIFF = "adapter.diff";               // リストの差分計算
+    public static final String STAGE_FIRST_FIX = "location.first_fix";    // 位置情報の要求から最初の位置まで
+
+    /**
+     * 計測した区間の出力先 (android.os.Trace など)
+     * 同期の区間は開始したスレッドで終了し、非同期の区間は別のスレッドで終了することがあります。
+     */
+    public interface Tracer {
+        void beginSection(String name);
+
+        void endSection();
+
+        void beginAsyncSection(String name, int cookie);
+
+        void endAsyncSection(String name, int cookie);
+    }
+
+    private static final Tracer NO_TRACE = new Tracer() {
+        @Override
+        public void beginSection(String name) {
+        }
+
+        @Override
+        public void endSection() {
+        }
+
+        @Override
+        public void beginAsyncSection(String name, int cookie) {
+        }
+
+        @Override
+        public void endAsyncSection(String name, int cookie) {
+        }
+    };
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCookie = new AtomicInteger();
+    private volatile Tracer tracer = NO_TRACE;
+
+    MetricsRegistry() {
+    }
+
+    /**
+     * アプリ全体で共有する記録先を取得します
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 計測した区間の出力先を設定します (null の場合は出力しない)
+     */
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer != null ? tracer : NO_TRACE;
+    }
+
+    /**
+     * 同じスレッドで終了する区間の計測を始めます (try-finally で close を呼び出す)
+     */
+    public Span startSpan(String name) {
+        Tracer current = tracer;
+        current.beginSection(name);
+        return new Span(this, current, name, -1);
+    }
+
+    /**
+     * 別のスレッドで終了することがある区間の計測を始めます (通信の開始から結果まで など)
+     */
+    public Span startAsyncSpan(String name) {
+        Tracer current = tracer;
+        int cookie = nextCookie.incrementAndGet() & Integer.MAX_VALUE;
+        current.beginAsyncSection(name, cookie);
+        return new Span(this, current, name, cookie);
+    }
+
+    /**
+     * カウンターを1増やします
+     */
+    public void increment(String name) {
+        counter(name).incrementAndGet();
+    }
+
+    /**
+     * カウンターに指定した数を加えます (まとめて数えた回数を記録する場合)
+     */
+    public void add(String name, long delta) {
+        if (delta != 0) {
+            counter(name).addAndGet(delta);
+        }
+    }
+
+    /**
+     * カウンターの値を返します
+     */
+    public long getCount(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 指定した名前のヒストグラムを返します (なければ作成する)
+     */
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * 記録をすべて消去します (ビルド間で比較する前の計測のやり直し用)
+     */
+    public void reset() {
+        histograms.clear();
+        counters.clear();
+    }
+
+    /**
+     * 段階ごとの中央値・95パーセンタイルとカウンターを、名前順に並べた文字列を返します (デバッグ表示用)
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            summary.append(String.format(Locale.US, "%-22s n=%-4d p50=%-7s p95=%s\n", entry.getKey(), h.getCount(),
+                    LatencyHistogram.formatMicros(h.getPercentileMicros(50)),
+                    LatencyHistogram.formatMicros(h.getPercentileMicros(95))));
+        }
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            summary.append(String.format(Locale.US, "%-22s %d\n", entry.getKey(), entry.getValue().get()));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * 記録をJSONファイルに書き出します
+     * ビルドごとにファイルを分けて保存し、別のビルドの結果と比べられるようにします。
+     *
+     * @param directory       保存先のディレクトリ (なければ作成する)
+     * @param build           ビルドを識別する文字列 (例: バージョン名とバージョンコード)
+     * @param timestampMillis 書き出した時刻 (ファイル名にも使用)
+     * @return 書き出したファイル
+     */
+    public File export(File directory, String build, long timestampMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("ディレクトリを作成できません: " + directory);
+        }
+        String safeBuild = build.replaceAll("[^A-Za-z0-9._-]", "_");
+        File file = new File(directory, "metrics-" + safeBuild + "-" + timestampMillis + ".json");
+        try (BufferedSink sink = Okio.buffer(Okio.sink(file));
+             JsonWriter writer = JsonWriter.of(sink)) {
+            writer.setIndent("  ");
+            writeJson(writer, build, timestampMillis);
+        }
+        return file;
+    }
+
+    /**
+     * 記録をJSONとして書き出します (値はすべてマイクロ秒)
+     */
+    void writeJson(JsonWriter writer, String build, long timestampMillis) throws IOException {
+        writer.beginObject();
+        writer.name("build").value(build);
+        writer.name("timestamp").value(timestampMillis);
+        writer.name("histograms").beginObject();
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            writer.name(entry.getKey()).beginObject();
+            writer.name("count").value(h.getCount());
+            writer.name("mean_us").value(Math.round(h.getMeanMicros()));
+            writer.name("p50_us").value(h.getPercentileMicros(50));
+            writer.name("p95_us").value(h.getPercentileMicros(95));
+            writer.name("p99_us").value(h.getPercentileMicros(99));
+            writer.name("max_us").value(h.getMaxMicros());
+            writer.endObject();
+        }
+        writer.endObject();
+        writer.name("counters").beginObject();
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue().get());
+        }
+        writer.endObject();
+        writer.endObject();
+    }
+
+    private AtomicLong counter(String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(name, key -> new AtomicLong());
+        }
+        return counter;
+    }
+
+    /**
+     * 計測中の区間
+     * {@link #close()} で終了して時間を記録し、{@link #cancel()} で記録せずに終了します。
+     * どちらも2回目以降の呼び出しは無視されます。
+     */
+    public static final class Span implements AutoCloseable {
+        private final MetricsRegistry registry;
+        private final Tracer tracer;
+        private final String name;
+        private final int cookie;   // 非同期の区間の識別子 (同期の区間は -1)
+        private final long startNanos = System.nanoTime();
+        private boolean ended = false;
+
+        private Span(MetricsRegistry registry, Tracer tracer, String name, int cookie) {
+            this.registry = registry;
+            this.tracer = tracer;
+            this.name = name;
+            this.cookie = cookie;
+        }
+
+        /**
+         * 区間を終了し、かかった時間を記録します
+         */
+        @Override
+        public void close() {
+            if (end()) {
+                registry.histogram(name).recordMicros((System.nanoTime() - startNanos) / 1000);
+            }
+        }
+
+        /**
+         * 区間を記録せずに終了します (取り消された処理など)
+         */
+        public void cancel() {
+            end();
+        }
+
+        private synchronized boolean end() {
+            if (ended) {
+                return false;
+            }
+            ended = true;
+            if (cookie < 0) {
+                tracer.endSection();
+            } else {
+                tracer.endAsyncSection(name, cookie);
+            }
+            return true;
+        }
+    }
+}
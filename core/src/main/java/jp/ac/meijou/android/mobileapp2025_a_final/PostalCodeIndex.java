@@ -0,0 +1,220 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 端末内に持つ郵便番号の索引を検索するクラス
+ * 郵便番号 (7桁の整数) の昇順に並べた列と、緯度・経度・地名の列を1つのファイルにまとめ、
+ * メモリマップしたまま二分探索で検索します。検索時にファイル全体を読み込んだり、
+ * 郵便番号ごとのオブジェクトを作ったりしないため、約12万件でも数マイクロ秒で検索できます。
+ *
+ * ■ ファイル形式 (ビッグエンディアン)
+ * <pre>
+ * int     MAGIC ("PCIX")
+ * int     FORMAT_VERSION
+ * int     件数 n
+ * int     地名のバイト数 m
+ * int[n]   郵便番号 (昇順。同じ郵便番号に複数の町域がある場合は連続して並ぶ)
+ * float[n] 緯度
+ * float[n] 経度
+ * int[n+1] 地名の開始位置 (地名 i は [offset[i], offset[i+1]) のバイト)
+ * byte[m]  地名 (UTF-8。都道府県 + 市区町村 + 町域)
+ * </pre>
+ * ファイルは postalindex モジュールの PostalCodeIndexWriter で作成します (app のビルド時に自動で作成されます)。
+ */
+public final class PostalCodeIndex {
+
+    static final int MAGIC = 0x50434958;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    // 郵便番号の桁数
+    public static final int CODE_DIGITS = 7;
+
+    public static final PostalCodeIndex EMPTY = new PostalCodeIndex(
+            ByteBuffer.allocate(HEADER_BYTES + 4), 0, 0);
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    // 各列の開始位置 (バイト)
+    private final int codesOffset;
+    private final int latitudeOffset;
+    private final int longitudeOffset;
+    private final int nameOffsetsOffset;
+    private final int namesOffset;
+
+    private PostalCodeIndex(ByteBuffer buffer, int size, int nameBytes) {
+        this.buffer = buffer;
+        this.size = size;
+        this.codesOffset = HEADER_BYTES;
+        this.latitudeOffset = codesOffset + size * 4;
+        this.longitudeOffset = latitudeOffset + size * 4;
+        this.nameOffsetsOffset = longitudeOffset + size * 4;
+        this.namesOffset = nameOffsetsOffset + (size + 1) * 4;
+    }
+
+    /**
+     * 索引ファイルの内容 (メモリマップしたバッファなど) から索引を作成します
+     * バッファの内容はコピーせず、そのまま参照します。
+     *
+     * @throws IllegalArgumentException ファイル形式が正しくない場合
+     */
+    public static PostalCodeIndex from(ByteBuffer source) {
+        ByteBuffer buffer = source.slice();
+        if (buffer.remaining() < HEADER_BYTES
+                || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("郵便番号の索引ファイルではありません");
+        }
+        int size = buffer.getInt(8);
+        int nameBytes = buffer.getInt(12);
+        long expected = HEADER_BYTES + (long) size * 12 + (long) (size + 1) * 4 + nameBytes;
+        if (size < 0 || nameBytes < 0 || buffer.remaining() < expected) {
+            throw new IllegalArgumentException("郵便番号の索引ファイルが壊れています");
+        }
+        return new PostalCodeIndex(buffer, size, nameBytes);
+    }
+
+    /**
+     * 入力された文字列を7桁の郵便番号 (整数) に変換します
+     * ハイフンは無視します。7桁の数字でない場合は -1 を返します。
+     */
+    public static int parseCode(String postalCode) {
+        int code = 0;
+        int digits = 0;
+        for (int i = 0; i < postalCode.length(); i++) {
+            char c = postalCode.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            if (c < '0' || c > '9' || digits == CODE_DIGITS) {
+                return -1;
+            }
+            code = code * 10 + (c - '0');
+            digits++;
+        }
+        return digits == CODE_DIGITS ? code : -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 指定した郵便番号の最初の行を返します
+     *
+     * @param code 7桁の郵便番号
+     * @return 行の番号。見つからない場合は -1
+     */
+    public int indexOf(int code) {
+        int i = lowerBound(code);
+        return i < size && code(i) == code ? i : -1;
+    }
+
+    /**
+     * 入力途中の郵便番号 (先頭の1〜7桁) に一致する行を、郵便番号の昇順に最大 limit 件返します
+     * 同じ郵便番号の行は最初の1件だけを返します。
+     *
+     * @param prefix 先頭の数字 (ハイフンは無視)
+     * @param limit  返す最大件数
+     * @return 行の番号の配列。数字以外を含む場合や一致しない場合は空
+     */
+    public int[] suggest(String prefix, int limit) {
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            if (c < '0' || c > '9' || digits == CODE_DIGITS) {
+                return new int[0];
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+        }
+        if (digits == 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        // 先頭が一致する郵便番号は [value × 10^残り桁, (value + 1) × 10^残り桁) の範囲にある
+        int scale = 1;
+        for (int d = digits; d < CODE_DIGITS; d++) {
+            scale *= 10;
+        }
+        int from = lowerBound(value * scale);
+        int to = lowerBound((value + 1) * scale);
+
+        int[] found = new int[Math.min(limit, to - from)];
+        int count = 0;
+        for (int i = from; i < to && count < found.length; i++) {
+            if (i == from || code(i) != code(i - 1)) {
+                found[count++] = i;
+            }
+        }
+        if (count == found.length) {
+            return found;
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(found, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    public int code(int i) {
+        return buffer.getInt(codesOffset + i * 4);
+    }
+
+    public double latitude(int i) {
+        return buffer.getFloat(latitudeOffset + i * 4);
+    }
+
+    public double longitude(int i) {
+        return buffer.getFloat(longitudeOffset + i * 4);
+    }
+
+    /**
+     * 行の地名 (都道府県 + 市区町村 + 町域) を返します
+     * 表示するときだけ呼び出してください (呼び出すたびに文字列を作成します)。
+     */
+    public String name(int i) {
+        int start = buffer.getInt(nameOffsetsOffset + i * 4);
+        int end = buffer.getInt(nameOffsetsOffset + (i + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer names = buffer.duplicate();
+        names.position(namesOffset + start);
+        names.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 郵便番号を7桁の文字列 (例: 4688502) で返します
+     */
+    public static String formatCode(int code) {
+        StringBuilder sb = new StringBuilder(CODE_DIGITS);
+        String digits = Integer.toString(code);
+        for (int i = digits.length(); i < CODE_DIGITS; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    // code 以上の郵便番号を持つ最初の行
+    private int lowerBound(int code) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (code(mid) < code) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
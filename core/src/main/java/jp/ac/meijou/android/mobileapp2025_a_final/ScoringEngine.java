@@ -0,0 +1,24 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * 運動適性スコアを計算するエンジンのインターフェース
+ * 1時間ずつではなく、列 (プリミティブ配列) の範囲をまとめて計算します。
+ * 欠損値 (float の列の NaN、byte の列の {@link ForecastFrame#MISSING_PERCENT}) を含む時間のスコアは NaN にします。
+ */
+public interface ScoringEngine {
+
+    /**
+     * 指定した範囲 [from, to) のスコアをまとめて計算し、out に書き込みます
+     *
+     * @param temperature         気温 (℃)
+     * @param apparentTemperature 体感温度 (℃)
+     * @param precipitation       降水確率 (%)
+     * @param humidity            相対湿度 (%)
+     * @param windSpeed           風速 (km/h)
+     * @param out                 スコア (0-100、欠損値を含む時間は NaN) の書き込み先
+     * @param from                計算する最初のインデックス
+     * @param to                  計算する最後のインデックス + 1
+     */
+    void score(float[] temperature, float[] apparentTemperature, byte[] precipitation, byte[] humidity,
+               float[] windSpeed, float[] out, int from, int to);
+}
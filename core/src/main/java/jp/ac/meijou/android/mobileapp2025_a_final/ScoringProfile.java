@@ -0,0 +1,99 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * 運動の種類ごとの採点基準
+ * 100点満点からの減点方式で、各項目の「しきい値」と「減点」を組で定義します。
+ *
+ * ■ 採点基準
+ * - 降水確率: しきい値「以上」で減点。雨は大敵。確率が高いほど大きく減点。
+ * - 体感温度: しきい値「を超える」と減点 (熱中症リスク)。
+ * - 気温: しきい値「未満」で減点 (寒さ)。
+ * - 不快指数: 気温が基準を超え、かつ湿度がしきい値「を超える」と減点。
+ * - 風速: しきい値「を超える」と減点。
+ *
+ * しきい値は昇順 (寒さのみ降順) に並べ、より厳しい側の減点が優先されます。
+ */
+public enum ScoringProfile {
+
+    /**
+     * ランニング (既定)
+     * 運動に最適なのは 15℃〜25℃ 程度、25km/h (約7m/s) 程度の風から減点します。
+     */
+    RUNNING("ランニング",
+            new int[]{30, 50, 80}, new float[]{20, 50, 80},
+            new float[]{28, 31, 35}, new float[]{30, 60, 100},
+            new float[]{10, 5, 0}, new float[]{10, 20, 40},
+            25, new int[]{60, 80}, new float[]{10, 15},
+            new float[]{15, 25}, new float[]{10, 30}),
+
+    /**
+     * サイクリング
+     * 速度が出るため風と路面の濡れの影響が大きく、走行風で体が冷えるため寒さにも厳しくします。
+     */
+    CYCLING("サイクリング",
+            new int[]{20, 40, 70}, new float[]{20, 60, 90},
+            new float[]{30, 33, 36}, new float[]{20, 50, 100},
+            new float[]{12, 7, 2}, new float[]{10, 25, 45},
+            27, new int[]{70, 85}, new float[]{5, 10},
+            new float[]{10, 20, 30}, new float[]{10, 30, 60}),
+
+    /**
+     * ウォーキング
+     * 運動強度が低いため、暑さ・湿度・風の影響を小さくします。
+     */
+    WALKING("ウォーキング",
+            new int[]{40, 60, 80}, new float[]{20, 50, 80},
+            new float[]{30, 33, 36}, new float[]{20, 50, 100},
+            new float[]{5, 0, -5}, new float[]{10, 20, 40},
+            28, new int[]{70, 85}, new float[]{5, 10},
+            new float[]{25, 40}, new float[]{10, 30});
+
+    final String displayName;
+
+    final int[] precipitationAtLeast;       // 降水確率 (%) 以上で減点
+    final float[] precipitationPenalty;
+    final float[] heatAbove;                // 体感温度 (℃) を超えると減点
+    final float[] heatPenalty;
+    final float[] coldBelow;                // 気温 (℃) 未満で減点
+    final float[] coldPenalty;
+    final float humidTemperatureAbove;      // 不快指数の判定を行う気温 (℃)
+    final int[] humidityAbove;              // 湿度 (%) を超えると減点
+    final float[] humidityPenalty;
+    final float[] windAbove;                // 風速 (km/h) を超えると減点
+    final float[] windPenalty;
+
+    ScoringProfile(String displayName,
+                   int[] precipitationAtLeast, float[] precipitationPenalty,
+                   float[] heatAbove, float[] heatPenalty,
+                   float[] coldBelow, float[] coldPenalty,
+                   float humidTemperatureAbove, int[] humidityAbove, float[] humidityPenalty,
+                   float[] windAbove, float[] windPenalty) {
+        this.displayName = displayName;
+        this.precipitationAtLeast = precipitationAtLeast;
+        this.precipitationPenalty = precipitationPenalty;
+        this.heatAbove = heatAbove;
+        this.heatPenalty = heatPenalty;
+        this.coldBelow = coldBelow;
+        this.coldPenalty = coldPenalty;
+        this.humidTemperatureAbove = humidTemperatureAbove;
+        this.humidityAbove = humidityAbove;
+        this.humidityPenalty = humidityPenalty;
+        this.windAbove = windAbove;
+        this.windPenalty = windPenalty;
+    }
+
+    /**
+     * 画面表示用の名前
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 次のプロファイルを返します (切り替えボタン用)
+     */
+    public ScoringProfile next() {
+        ScoringProfile[] values = values();
+        return values[(ordinal() + 1) % values.length];
+    }
+}
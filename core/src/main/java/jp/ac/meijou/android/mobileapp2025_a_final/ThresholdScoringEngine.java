@@ -0,0 +1,104 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * {@link ScoringProfile} のしきい値に基づいてスコアを計算するエンジン
+ *
+ * ■ 高速化の工夫
+ * - 降水確率・湿度は 0〜100 の整数なので、減点をあらかじめ表にしておき配列参照だけで求めます。
+ * - 気温・体感温度・風速は、しきい値ごとの「追加の減点」を足し合わせる形にして、
+ *   if/else の連鎖をなくしています。
+ */
+public class ThresholdScoringEngine implements ScoringEngine {
+
+    private static final int PERCENT_TABLE_SIZE = 101;
+
+    private final float[] precipitationTable = new float[PERCENT_TABLE_SIZE];
+    private final float[] humidityTable = new float[PERCENT_TABLE_SIZE];
+    private final float humidTemperatureAbove;
+    private final float[] heatAbove;
+    private final float[] heatSteps;
+    private final float[] coldBelow;
+    private final float[] coldSteps;
+    private final float[] windAbove;
+    private final float[] windSteps;
+
+    public ThresholdScoringEngine(ScoringProfile profile) {
+        // 降水確率: しきい値「以上」で減点
+        for (int p = 0; p < PERCENT_TABLE_SIZE; p++) {
+            float penalty = 0;
+            for (int k = 0; k < profile.precipitationAtLeast.length; k++) {
+                if (p >= profile.precipitationAtLeast[k]) {
+                    penalty = profile.precipitationPenalty[k];
+                }
+            }
+            precipitationTable[p] = penalty;
+        }
+
+        // 湿度: しきい値「を超える」と減点 (気温の条件は計算時に判定)
+        for (int h = 0; h < PERCENT_TABLE_SIZE; h++) {
+            float penalty = 0;
+            for (int k = 0; k < profile.humidityAbove.length; k++) {
+                if (h > profile.humidityAbove[k]) {
+                    penalty = profile.humidityPenalty[k];
+                }
+            }
+            humidityTable[h] = penalty;
+        }
+
+        humidTemperatureAbove = profile.humidTemperatureAbove;
+        heatAbove = profile.heatAbove;
+        heatSteps = toSteps(profile.heatPenalty);
+        coldBelow = profile.coldBelow;
+        coldSteps = toSteps(profile.coldPenalty);
+        windAbove = profile.windAbove;
+        windSteps = toSteps(profile.windPenalty);
+    }
+
+    // 段階ごとの減点を、前の段階からの差分に変換する
+    private static float[] toSteps(float[] penalties) {
+        float[] steps = new float[penalties.length];
+        float previous = 0;
+        for (int k = 0; k < penalties.length; k++) {
+            steps[k] = penalties[k] - previous;
+            previous = penalties[k];
+        }
+        return steps;
+    }
+
+    @Override
+    public void score(float[] temperature, float[] apparentTemperature, byte[] precipitation, byte[] humidity,
+                      float[] windSpeed, float[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            float t = temperature[i];
+            // 欠損値を含む時間は採点しない (NaN の比較は false になるため、減点なしの100点になってしまう)
+            if ((precipitation[i] | humidity[i]) < 0
+                    || Float.isNaN(t + apparentTemperature[i] + windSpeed[i])) {
+                out[i] = Float.NaN;
+                continue;
+            }
+            float penalty = precipitationTable[precipitation[i]]
+                    + above(apparentTemperature[i], heatAbove, heatSteps)
+                    + below(t, coldBelow, coldSteps)
+                    + (t > humidTemperatureAbove ? humidityTable[humidity[i]] : 0f)
+                    + above(windSpeed[i], windAbove, windSteps);
+            // スコアの範囲を0〜100に収める
+            out[i] = Math.max(0f, Math.min(100f, 100f - penalty));
+        }
+    }
+
+    private static float above(float value, float[] thresholds, float[] steps) {
+        float penalty = 0f;
+        for (int k = 0; k < thresholds.length; k++) {
+            penalty += value > thresholds[k] ? steps[k] : 0f;
+        }
+        return penalty;
+    }
+
+    private static float below(float value, float[] thresholds, float[] steps) {
+        float penalty = 0f;
+        for (int k = 0; k < thresholds.length; k++) {
+            penalty += value < thresholds[k] ? steps[k] : 0f;
+        }
+        return penalty;
+    }
+}
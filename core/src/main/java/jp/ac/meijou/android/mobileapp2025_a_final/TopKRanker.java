@@ -0,0 +1,197 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * スコアの列から上位K件を選ぶクラス
+ * 全件をソートせず、大きさを制限したヒープで候補だけを残すため、
+ * 16日分 (384時間) や複数地点のデータでも O(n log K) で求められます。
+ *
+ * ■ 並び順
+ * スコアの降順。同点の場合は地点の番号が小さい順、さらに時刻が早い (インデックスが小さい) 順です。
+ * これは全件を安定ソートした場合と同じ順序です。
+ *
+ * ■ 間隔の制約
+ * minGap を指定すると、同じ地点で選ばれる時間どうしのインデックスが minGap 以上離れるようにします。
+ * 上位から順に、既に選んだ時間と近すぎるものを飛ばしていく (貪欲法) のと同じ結果になります。
+ *
+ * ■ 欠損値
+ * スコアが NaN の候補 (欠損値を含む時間) は選びません。
+ */
+public final class TopKRanker {
+
+    private TopKRanker() {
+    }
+
+    /**
+     * 1地点のスコア列から上位K件のインデックスを求めます
+     *
+     * @param scores スコアの列
+     * @param from   対象とする最初のインデックス
+     * @param to     対象とする最後のインデックス + 1
+     * @param k      求める件数
+     * @param minGap 選ぶインデックスどうしの最小間隔 (1 なら制約なし)
+     * @return スコアの高い順に並んだインデックス (対象が少ない場合は k 件未満)
+     */
+    public static int[] topK(float[] scores, int from, int to, int k, int minGap) {
+        long[] ranked = topKAcross(new float[][]{scores}, new int[]{from}, new int[]{to}, k, minGap);
+        int[] indices = new int[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            indices[i] = indexOf(ranked[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * 複数地点のスコア列をまとめて、全体の上位K件を求めます
+     *
+     * @param scores 地点ごとのスコアの列
+     * @param from   地点ごとの対象とする最初のインデックス
+     * @param to     地点ごとの対象とする最後のインデックス + 1
+     * @param k      求める件数
+     * @param minGap 同じ地点で選ぶインデックスどうしの最小間隔 (1 なら制約なし)
+     * @return スコアの高い順に並んだ候補。{@link #seriesOf(long)} と {@link #indexOf(long)} で取り出します
+     */
+    public static long[] topKAcross(float[][] scores, int[] from, int[] to, int k, int minGap) {
+        if (k <= 0) {
+            return new long[0];
+        }
+        int gap = Math.max(1, minGap);
+
+        // 間隔の制約で飛ばされる可能性のある分だけ、多めに候補を残す
+        // (選ばれた1件は前後 gap-1 件ずつ、最大 2(gap-1) 件の候補を除外する)
+        long capacityLong = k + (long) (k - 1) * 2 * (gap - 1);
+        int capacity = (int) Math.min(capacityLong, Integer.MAX_VALUE - 8);
+
+        // スコアが最も低い候補を先頭に置くヒープ
+        long[] heap = new long[Math.min(capacity, totalCount(from, to))];
+        int size = 0;
+        for (int s = 0; s < scores.length; s++) {
+            for (int i = Math.max(0, from[s]); i < to[s]; i++) {
+                if (Float.isNaN(scores[s][i])) {
+                    continue; // 欠損値を含む時間は選ばない
+                }
+                long candidate = encode(s, i);
+                if (size < heap.length) {
+                    heap[size] = candidate;
+                    siftUp(scores, heap, size);
+                    size++;
+                } else if (size > 0 && isBetter(scores, candidate, heap[0])) {
+                    heap[0] = candidate;
+                    siftDown(scores, heap, 0, size);
+                }
+            }
+        }
+
+        // ヒープを取り出して降順に並べる (末尾から最も低い候補を詰めていく)
+        for (int end = size - 1; end > 0; end--) {
+            long worst = heap[0];
+            heap[0] = heap[end];
+            heap[end] = worst;
+            siftDown(scores, heap, 0, end);
+        }
+        // この時点で heap[0..size) はスコアの高い順
+
+        if (gap == 1) {
+            return size <= k ? trim(heap, size) : trim(heap, k);
+        }
+
+        // 上位から順に、既に選んだ時間と近すぎる候補を飛ばす
+        long[] picked = new long[Math.min(k, size)];
+        int count = 0;
+        for (int c = 0; c < size && count < picked.length; c++) {
+            long candidate = heap[c];
+            boolean tooClose = false;
+            for (int p = 0; p < count; p++) {
+                if (seriesOf(picked[p]) == seriesOf(candidate)
+                        && Math.abs(indexOf(picked[p]) - indexOf(candidate)) < gap) {
+                    tooClose = true;
+                    break;
+                }
+            }
+            if (!tooClose) {
+                picked[count++] = candidate;
+            }
+        }
+        return trim(picked, count);
+    }
+
+    /**
+     * {@link #topKAcross} の結果から地点の番号を取り出します
+     */
+    public static int seriesOf(long candidate) {
+        return (int) (candidate >>> 32);
+    }
+
+    /**
+     * {@link #topKAcross} の結果から時間のインデックスを取り出します
+     */
+    public static int indexOf(long candidate) {
+        return (int) candidate;
+    }
+
+    private static long encode(int series, int index) {
+        return ((long) series << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    private static int totalCount(int[] from, int[] to) {
+        long total = 0;
+        for (int s = 0; s < from.length; s++) {
+            total += Math.max(0, to[s] - Math.max(0, from[s]));
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE - 8);
+    }
+
+    private static float scoreOf(float[][] scores, long candidate) {
+        return scores[seriesOf(candidate)][indexOf(candidate)];
+    }
+
+    // a が b より上位か (スコアの降順、同点なら地点・時刻の昇順)
+    private static boolean isBetter(float[][] scores, long a, long b) {
+        int compare = Float.compare(scoreOf(scores, a), scoreOf(scores, b));
+        if (compare != 0) {
+            return compare > 0;
+        }
+        return a < b;
+    }
+
+    private static void siftUp(float[][] scores, long[] heap, int i) {
+        long item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isBetter(scores, heap[parent], item)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    private static void siftDown(float[][] scores, long[] heap, int i, int size) {
+        long item = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            // 子のうち、より下位 (スコアが低い) 方と比べる
+            if (child + 1 < size && isBetter(scores, heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!isBetter(scores, item, heap[child])) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    private static long[] trim(long[] values, int length) {
+        if (values.length == length) {
+            return values;
+        }
+        long[] trimmed = new long[length];
+        System.arraycopy(values, 0, trimmed, 0, length);
+        return trimmed;
+    }
+}
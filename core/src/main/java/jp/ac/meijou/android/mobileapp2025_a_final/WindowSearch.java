@@ -0,0 +1,150 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * スコアの列からスライディングウィンドウで「運動に最適な連続した時間帯」を探すクラス
+ *
+ * 予報の時刻の間隔 (通常は1時間) ごとのスコアを15分刻みに線形補間し、指定した長さの時間帯ごとの平均スコアを
+ * 累積和を使って O(n) で求めます。間隔はデータの時刻から求め、一定でない場合は時間帯を選びません。上位の時間帯は {@link TopKRanker} で重ならないように選びます。
+ * スコアが NaN (欠損値を含む) の時間を含む時間帯は選びません。
+ */
+public final class WindowSearch {
+
+    private static final int SLOT_MINUTES = 15;
+    private static final int SLOT_SECONDS = SLOT_MINUTES * 60;
+    private static final int SECONDS_PER_HOUR = 3600;
+
+    private WindowSearch() {
+    }
+
+    /**
+     * 平均スコアが高い時間帯を、重ならないように上位から求めます
+     *
+     * @param frame         スコアを含む予報データ
+     * @param from          対象とする最初のインデックス
+     * @param to            対象とする最後のインデックス + 1
+     * @param windowMinutes 時間帯の長さ (分)。15分単位に切り上げます
+     * @param count         求める件数
+     * @return 平均スコアの高い順に並んだ時間帯 (対象が短い場合は count 件未満。
+     *         時刻の間隔が一定でない、または15分の倍数でない場合は空)
+     */
+    public static ExerciseWindow[] findBestWindows(ForecastFrame frame, int from, int to,
+                                                   int windowMinutes, int count) {
+        int steps = Math.max(0, to - from);
+        int step = regularStepSeconds(frame, from, to);
+        if (step == 0) {
+            // 時刻が1件だけずれていても分析全体は止めず、時間帯だけを省く
+            return new ExerciseWindow[0];
+        }
+        int slotsPerStep = step / SLOT_SECONDS;
+        int windowSlots = Math.max(1, (windowMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        float[] slots = interpolate(frame.score, from, to, slotsPerStep);
+        if (slots.length < windowSlots || count <= 0 || steps == 0) {
+            return new ExerciseWindow[0];
+        }
+
+        float[] averages = slidingAverages(slots, windowSlots);
+        // 重ならないよう、開始位置どうしを時間帯の長さ以上離す
+        int[] best = TopKRanker.topK(averages, 0, averages.length, count, windowSlots);
+
+        ExerciseWindow[] windows = new ExerciseWindow[best.length];
+        for (int i = 0; i < best.length; i++) {
+            long start = frame.time(from + best[i] / slotsPerStep) + (long) (best[i] % slotsPerStep) * SLOT_SECONDS;
+            windows[i] = new ExerciseWindow(start, start + (long) windowSlots * SLOT_SECONDS, averages[best[i]]);
+        }
+        return windows;
+    }
+
+    /**
+     * 範囲 [from, to) の時刻の間隔 (秒) を求めます (間隔を厳密に検証したい呼び出し元向け)
+     * 1件以下の場合は1時間とします。
+     *
+     * @throws IllegalArgumentException 間隔が一定でない、または15分の倍数でない場合
+     */
+    static int stepSeconds(ForecastFrame frame, int from, int to) {
+        int step = regularStepSeconds(frame, from, to);
+        if (step == 0) {
+            throw new IllegalArgumentException("予報の時刻の間隔が一定でないか、15分の倍数ではありません: "
+                    + from + "〜" + to);
+        }
+        return step;
+    }
+
+    /**
+     * 範囲 [from, to) の時刻の間隔 (秒) を求めます
+     * 1件以下の場合は1時間とします。
+     *
+     * @return 間隔 (秒)。一定でない、または15分の倍数でない場合は 0
+     */
+    private static int regularStepSeconds(ForecastFrame frame, int from, int to) {
+        if (to - from < 2) {
+            return SECONDS_PER_HOUR;
+        }
+        long step = frame.time(from + 1) - frame.time(from);
+        if (step <= 0 || step % SLOT_SECONDS != 0 || step > Integer.MAX_VALUE) {
+            return 0;
+        }
+        for (int i = from + 2; i < to; i++) {
+            if (frame.time(i) - frame.time(i - 1) != step) {
+                return 0;
+            }
+        }
+        return (int) step;
+    }
+
+    /**
+     * 一定間隔ごとのスコアを15分刻みに線形補間します
+     * 最後の1件と、次のスコアが欠損している場合は、同じスコアが続くものとします。
+     * スコアが欠損している時刻の枠は NaN のままです。
+     *
+     * @param slotsPerStep 1つの間隔に含まれる15分の枠の数 (1時間ごとなら4)
+     */
+    static float[] interpolate(float[] scores, int from, int to, int slotsPerStep) {
+        int steps = Math.max(0, to - from);
+        float[] slots = new float[steps * slotsPerStep];
+        for (int h = 0; h < steps; h++) {
+            float current = scores[from + h];
+            float next = h + 1 < steps ? scores[from + h + 1] : current;
+            if (Float.isNaN(next)) {
+                next = current;
+            }
+            for (int q = 0; q < slotsPerStep; q++) {
+                slots[h * slotsPerStep + q] = current + (next - current) * q / slotsPerStep;
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * 長さ window の区間ごとの平均を、累積和で O(n) で求めます
+     * NaN を含む区間の平均は NaN にします (NaN は和に加えず、区間内の個数を数えて判定する)。
+     *
+     * @return averages[i] が区間 [i, i + window) の平均となる配列
+     */
+    static float[] slidingAverages(float[] values, int window) {
+        float[] averages = new float[values.length - window + 1];
+        double sum = 0;
+        int missing = 0;
+        for (int i = 0; i < window; i++) {
+            if (Float.isNaN(values[i])) {
+                missing++;
+            } else {
+                sum += values[i];
+            }
+        }
+        averages[0] = missing > 0 ? Float.NaN : (float) (sum / window);
+        for (int i = window; i < values.length; i++) {
+            if (Float.isNaN(values[i])) {
+                missing++;
+            } else {
+                sum += values[i];
+            }
+            if (Float.isNaN(values[i - window])) {
+                missing--;
+            } else {
+                sum -= values[i - window];
+            }
+            averages[i - window + 1] = missing > 0 ? Float.NaN : (float) (sum / window);
+        }
+        return averages;
+    }
+}
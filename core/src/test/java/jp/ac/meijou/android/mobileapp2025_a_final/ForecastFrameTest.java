@@ -0,0 +1,103 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * ForecastFrame の作成と、日付・時刻による範囲検索を確認するテスト
+ */
+public class ForecastFrameTest {
+
+    private static final ZoneOffset TOKYO = ZoneOffset.ofHours(9);
+
+    // 気温 + 降水確率 をスコアとする検証用のエンジン
+    private static final ScoringEngine SUM_ENGINE = (t, a, p, h, w, out, from, to) -> {
+        for (int i = from; i < to; i++) {
+            out[i] = t[i] + p[i];
+        }
+    };
+
+    // スコアを計算しない検証用のエンジン
+    private static final ScoringEngine NO_OP_ENGINE = (t, a, p, h, w, out, from, to) -> {
+    };
+
+    @Test
+    public void from_convertsColumnsAndScoresEachHour() throws Exception {
+        HourlyColumns columns = MeteoHourlyParser.parse(
+                new Buffer().writeUtf8(SyntheticForecasts.response(2, true)));
+
+        ForecastFrame frame = ForecastFrame.from(columns, SUM_ENGINE);
+
+        assertEquals(columns.size, frame.size());
+        for (int i = 0; i < frame.size(); i++) {
+            assertEquals(columns.time[i], frame.time(i));
+            assertEquals((float) columns.temperature[i], frame.temperature(i), 0f);
+            assertEquals(columns.precipitationProbability[i], frame.precipitationProbability(i));
+            assertEquals(columns.humidity[i], frame.humidity(i));
+            assertEquals((float) columns.temperature[i] + columns.precipitationProbability[i], frame.score(i), 0f);
+        }
+    }
+
+    @Test
+    public void epochDayAndMinuteOfDay_useLocalTime() throws Exception {
+        HourlyColumns columns = MeteoHourlyParser.parse(
+                new Buffer().writeUtf8(SyntheticForecasts.response(2, true)));
+        ForecastFrame frame = ForecastFrame.from(columns, NO_OP_ENGINE);
+
+        for (int i = 0; i < frame.size(); i++) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(frame.time(i), 0, TOKYO);
+            assertEquals(local.toLocalDate().toEpochDay(), frame.epochDay(i));
+            assertEquals(local.getHour() * 60 + local.getMinute(), frame.minuteOfDay(i));
+        }
+    }
+
+    @Test
+    public void indexOfDay_findsLocalMidnight() throws Exception {
+        HourlyColumns columns = MeteoHourlyParser.parse(
+                new Buffer().writeUtf8(SyntheticForecasts.response(3, true)));
+        ForecastFrame frame = ForecastFrame.from(columns, NO_OP_ENGINE);
+        long firstDay = frame.epochDay(0);
+
+        assertEquals(0, frame.indexOfDay(firstDay));
+        assertEquals(24, frame.indexOfDay(firstDay + 1));
+        assertEquals(72, frame.indexOfDay(firstDay + 3));
+        assertEquals(frame.size(), frame.indexAtOrAfter(Long.MAX_VALUE));
+    }
+
+    /**
+     * 16日分のフレーム作成で、時間ごとのオブジェクトを作っていないことを割り当て量から確認します
+     */
+    @Test
+    public void from_sixteenDays_allocatesOnlyColumnArrays() throws Exception {
+        HourlyColumns columns = MeteoHourlyParser.parse(
+                new Buffer().writeUtf8(SyntheticForecasts.response(16, true)));
+        ScoringEngine scorer = new ThresholdScoringEngine(ScoringProfile.RUNNING);
+        for (int i = 0; i < 1000; i++) {
+            ForecastFrame.from(columns, scorer);
+        }
+
+        long before = allocatedBytes();
+        ForecastFrame.from(columns, scorer);
+        long allocated = allocatedBytes() - before;
+
+        // 列の配列: long 8 + float 4 * 4 + byte 1 * 2 = 26 バイト/時間 (+ 配列ヘッダ)
+        if (before > 0) {
+            assertTrue(allocated < columns.size * 26L + 1024);
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,105 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 予報の履歴の保存形式への変換と、書き込みが必要な行の判定を確認するテスト
+ */
+public class ForecastHistoryRowsTest {
+
+    private static final long START = 1_765_206_000L; // 2025-12-09 00:00 (JST)
+
+    @Test
+    public void encodeDecode_roundTripsOneDecimalValues() {
+        HourlyColumns columns = columns(START, 48, 0);
+        columns.temperature[3] = Double.NaN;
+        columns.windSpeed[5] = Double.NaN;
+
+        HourlyColumns decoded = ForecastHistoryRows.encode(columns).decode(columns.utcOffsetSeconds);
+
+        assertArrayEquals(columns.time, decoded.time);
+        assertArrayEquals(columns.temperature, decoded.temperature, 0.0);
+        assertArrayEquals(columns.apparentTemperature, decoded.apparentTemperature, 0.0);
+        assertArrayEquals(columns.windSpeed, decoded.windSpeed, 0.0);
+        assertArrayEquals(columns.humidity, decoded.humidity);
+        assertArrayEquals(columns.precipitationProbability, decoded.precipitationProbability);
+        assertTrue(Double.isNaN(decoded.temperature[3]));
+    }
+
+    @Test
+    public void encodeTenths_handlesNegativeAndMissing() {
+        assertEquals(-35, ForecastHistoryRows.encodeTenths(-3.5));
+        assertEquals(ForecastHistoryRows.MISSING, ForecastHistoryRows.encodeTenths(Double.NaN));
+        assertTrue(Double.isNaN(ForecastHistoryRows.decodeTenths(ForecastHistoryRows.MISSING)));
+        assertEquals(-3.5, ForecastHistoryRows.decodeTenths(-35), 0.0);
+    }
+
+    @Test
+    public void changedIndices_sameForecast_writesNothing() {
+        ForecastHistoryRows rows = ForecastHistoryRows.encode(columns(START, 48, 0));
+
+        assertEquals(0, rows.changedIndices(rows).length);
+    }
+
+    @Test
+    public void changedIndices_nextHourRefresh_writesOnlyNewAndChangedHours() {
+        // 1時間後に取得した予報: 先頭の1時間がなくなり、末尾に1時間増え、1か所だけ値が変わる
+        ForecastHistoryRows previous = ForecastHistoryRows.encode(columns(START, 48, 0));
+        HourlyColumns next = columns(START + 3600, 48, 1);
+        next.temperature[10] += 0.3;
+
+        int[] changed = ForecastHistoryRows.encode(next).changedIndices(previous);
+
+        assertArrayEquals(new int[]{10, 47}, changed);
+    }
+
+    @Test
+    public void changedIndices_noExistingRows_writesAll() {
+        ForecastHistoryRows rows = ForecastHistoryRows.encode(columns(START, 24, 0));
+        ForecastHistoryRows empty = ForecastHistoryRows.encode(HourlyColumns.EMPTY);
+
+        assertEquals(24, rows.changedIndices(empty).length);
+    }
+
+    /**
+     * 16日分 (384時間) の予報を1時間後に取り直した場合は、新しく加わった1時間だけを書き込みます
+     * (変換と差分の判定の時間は JMH の ForecastHistoryBenchmark で計測します)
+     */
+    @Test
+    public void changedIndices_sixteenDaysShiftedByOneHour_writesOnlyNewHour() {
+        ForecastHistoryRows previous = ForecastHistoryRows.encode(columns(START, 384, 0));
+        HourlyColumns next = columns(START + 3600, 384, 1);
+
+        assertArrayEquals(new int[]{383}, ForecastHistoryRows.encode(next).changedIndices(previous));
+    }
+
+    /**
+     * 時刻の通し番号から値が決まる擬似データを作成します
+     *
+     * @param start  先頭の時刻 (エポック秒)
+     * @param hours  時間数
+     * @param offset 先頭の時刻の通し番号 (同じ通し番号の時間は同じ値になる)
+     */
+    private static HourlyColumns columns(long start, int hours, int offset) {
+        long[] time = new long[hours];
+        double[] temperature = new double[hours];
+        int[] humidity = new int[hours];
+        int[] precipitation = new int[hours];
+        double[] wind = new double[hours];
+        double[] apparent = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            int n = i + offset;
+            time[i] = start + i * 3600L;
+            temperature[i] = (n % 24) * 1.3 - 5.1;
+            temperature[i] = Math.round(temperature[i] * 10) / 10.0;
+            humidity[i] = 40 + (n * 7) % 55;
+            precipitation[i] = (n * 13) % 100;
+            wind[i] = (n * 3) % 30 + 0.5;
+            apparent[i] = Math.round(((n % 24) * 1.4 - 7) * 10) / 10.0;
+        }
+        return new HourlyColumns(SyntheticForecasts.TOKYO_OFFSET_SECONDS, time, temperature, humidity, precipitation,
+                wind, apparent);
+    }
+}
@@ -0,0 +1,112 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 日ごとの見出しを含めたリストの位置と、ページ・予報データのインデックスの対応を確認するテスト
+ */
+public class ForecastPageListTest {
+
+    private static final ScoringEngine ENGINE = new ThresholdScoringEngine(ScoringProfile.RUNNING);
+
+    private static HourlyColumns parse(int days) throws IOException {
+        return MeteoHourlyParser.parse(new Buffer().writeUtf8(SyntheticForecasts.response(days, true)));
+    }
+
+    @Test
+    public void score_putsHeaderBeforeEachDay() throws Exception {
+        ForecastPage page = ForecastPage.score(parse(3), ENGINE);
+
+        assertEquals(3, page.getDayCount());
+        assertEquals(72 + 3, page.getItemCount());
+        assertTrue(page.isHeader(0));
+        assertFalse(page.isHeader(1));
+        assertEquals(0, page.indexAt(1));
+        assertEquals(23, page.indexAt(24));
+        assertTrue(page.isHeader(25));
+        assertEquals(24, page.indexAt(26));
+        assertEquals(71, page.indexAt(74));
+        assertTrue(page.headers[1].startsWith("12/10 (水)  最高 "));
+    }
+
+    @Test
+    public void fromResult_coversListRangeOnly() throws Exception {
+        // 今日・明日の範囲 (現在時刻より前の時間も含む) がページになる
+        ForecastResult result = new ForecastAnalyzer(ENGINE)
+                .analyze(parse(3), SyntheticForecasts.epochSecondAfter(6, 30));
+        ForecastPage page = ForecastPage.fromResult(result);
+
+        assertEquals(2, page.getDayCount());
+        assertEquals(48 + 2, page.getItemCount());
+        assertEquals(page.days[0] + 2, page.getEndEpochDay());
+    }
+
+    @Test
+    public void append_mapsPositionsAcrossPages() throws Exception {
+        ForecastPage first = ForecastPage.score(parse(2), ENGINE);
+        ForecastPage second = ForecastPage.score(parse(1), ENGINE);
+        ForecastPageList one = ForecastPageList.of(first);
+        ForecastPageList two = one.append(second);
+
+        assertEquals(50, one.size());
+        assertEquals(75, two.size());
+        assertEquals(0, two.pageAt(49));
+        assertEquals(1, two.pageAt(50));
+        assertTrue(two.isHeader(50));
+        assertEquals(0, two.indexAt(51));
+        assertEquals(23, two.indexAt(74));
+        assertTrue(two.startsWith(one));
+        assertFalse(one.startsWith(two));
+        assertFalse(two.startsWith(ForecastPageList.of(second)));
+    }
+
+    @Test
+    public void itemId_isUniqueForHeadersAndRows() throws Exception {
+        ForecastPageList list = ForecastPageList.of(ForecastPage.score(parse(2), ENGINE));
+
+        long header = list.itemId(0);
+        assertTrue(header < 0);
+        assertEquals(SyntheticForecasts.epochSecondAfter(0, 0), list.itemId(1));
+        assertNotEquals(header, list.itemId(25));
+        assertEquals(SyntheticForecasts.epochSecondAfter(24, 0), list.itemId(26));
+    }
+
+    @Test
+    public void contiguous_trimsDaysOverlappingFirstPageAfterMidnight() throws Exception {
+        // 12/9 の夜に 12/11 からのページを読み込んだ後、日付が変わって最初のページ (12/10・12/11) を作り直した場合
+        ForecastResult result = new ForecastAnalyzer(ENGINE)
+                .analyze(parse(3), SyntheticForecasts.epochSecondAfter(24 + 6, 30));
+        ForecastPage first = ForecastPage.fromResult(result);
+        long day10 = first.getStartEpochDay();
+        ForecastPage loaded = ForecastPage.score(parse(5), ENGINE).startingAt(day10 + 1);
+        assertEquals(day10 + 1, loaded.getStartEpochDay());
+
+        ForecastPageList list = ForecastPageList.contiguous(first, Arrays.asList(loaded, null));
+
+        // 重なる 12/11 は最初のページだけに残り、12/12・12/13 が続く
+        assertEquals(2, list.getPageCount());
+        assertEquals(day10 + 2, list.getPage(1).getStartEpochDay());
+        assertEquals(day10 + 4, list.getEndEpochDay());
+        assertEquals(50 + 48 + 2, list.size());
+        Set<Long> ids = new HashSet<>();
+        Set<String> headers = new HashSet<>();
+        for (int i = 0; i < list.size(); i++) {
+            assertTrue(ids.add(list.itemId(i)));
+            if (list.isHeader(i)) {
+                assertTrue(headers.add(list.headerText(i).substring(0, 5)));
+            }
+        }
+        assertEquals(4, headers.size());
+        // 最初のページに含まれる日だけのページは取り除く
+        assertNull(ForecastPage.score(parse(3), ENGINE).startingAt(day10 + 2));
+    }
+}
@@ -0,0 +1,80 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * ForecastRowTexts の表示文字列が、これまでの String.format と同じになることを確認するテスト
+ */
+public class ForecastRowTextsTest {
+
+    @Test
+    public void appendFixed_matchesStringFormat() {
+        StringBuilder sb = new StringBuilder();
+        for (int n = -6000; n <= 6000; n++) {
+            float value = n / 100f;
+
+            sb.setLength(0);
+            ForecastRowTexts.appendFixed(sb, value, 0);
+            assertEquals(String.format(Locale.JAPAN, "%.0f", value), sb.toString());
+
+            sb.setLength(0);
+            ForecastRowTexts.appendFixed(sb, value, 1);
+            assertEquals(String.format(Locale.JAPAN, "%.1f", value), sb.toString());
+        }
+    }
+
+    @Test
+    public void appendFixed_handlesNaN() {
+        StringBuilder sb = new StringBuilder();
+        ForecastRowTexts.appendFixed(sb, Float.NaN, 1);
+        assertEquals(String.format(Locale.JAPAN, "%.1f", Float.NaN), sb.toString());
+    }
+
+    @Test
+    public void build_matchesPreviousBindFormat() throws Exception {
+        HourlyColumns columns = MeteoHourlyParser.parse(
+                new Buffer().writeUtf8(SyntheticForecasts.response(2, true)));
+        ForecastFrame frame = ForecastFrame.from(columns, new ThresholdScoringEngine(ScoringProfile.RUNNING));
+
+        ForecastRowTexts texts = ForecastRowTexts.build(frame, 5, 40);
+
+        for (int i = 5; i < 40; i++) {
+            java.time.LocalDate date = java.time.LocalDate.ofEpochDay(frame.epochDay(i));
+            int minuteOfDay = frame.minuteOfDay(i);
+            assertEquals(String.format(Locale.JAPAN, "%02d/%02d %02d:%02d", date.getMonthValue(), date.getDayOfMonth(),
+                    minuteOfDay / 60, minuteOfDay % 60), texts.time(i));
+            assertEquals(String.format(Locale.JAPAN, "%.0f点", frame.score(i)), texts.score(i));
+            assertEquals(String.format(Locale.JAPAN, "%.1f℃", frame.temperature(i)), texts.temperature(i));
+            assertEquals(String.format(Locale.JAPAN, "%d%%", frame.precipitationProbability(i)), texts.precipitation(i));
+            assertEquals(String.format(Locale.JAPAN, "%d%%", frame.humidity(i)), texts.humidity(i));
+            assertEquals(String.format(Locale.JAPAN, "%.1fkm/h", frame.windSpeed(i)), texts.wind(i));
+        }
+    }
+
+    @Test
+    public void build_missingValues_showDashes() throws Exception {
+        String json = "{\"utc_offset_seconds\":0,\"hourly\":{"
+                + "\"time\":[0],"
+                + "\"temperature_2m\":[null],"
+                + "\"relativehumidity_2m\":[null],"
+                + "\"precipitation_probability\":[null],"
+                + "\"windspeed_10m\":[null],"
+                + "\"apparent_temperature\":[null]}}";
+        ForecastFrame frame = ForecastFrame.from(MeteoHourlyParser.parse(new Buffer().writeUtf8(json)),
+                new ThresholdScoringEngine(ScoringProfile.RUNNING));
+
+        ForecastRowTexts texts = ForecastRowTexts.build(frame, 0, 1);
+
+        assertEquals("--点", texts.score(0));
+        assertEquals("--℃", texts.temperature(0));
+        assertEquals("--%", texts.precipitation(0));
+        assertEquals("--%", texts.humidity(0));
+        assertEquals("--km/h", texts.wind(0));
+    }
+}
@@ -0,0 +1,120 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 解析・スコア計算・ランキングの出力が変わっていないことを、保存済みの出力 (ゴールデンファイル) と比べて確認するテスト
+ *
+ * 入力は {@link SyntheticForecasts} の擬似レスポンスで、JSONの解析から画面に表示する文字列の作成までを通して実行します。
+ * 採点基準などを意図して変えた場合は、差分を確認したうえで次のコマンドでゴールデンファイルを更新してください。
+ * ./gradlew :core:test -Pgolden.update=true --tests '*GoldenOutputTest'
+ */
+public class GoldenOutputTest {
+
+    private static final File GOLDEN_DIRECTORY = new File("src/test/resources/golden");
+    private static final boolean UPDATE = Boolean.getBoolean("golden.update");
+
+    // 予報の開始 (12/09 00:00) から6時間30分後を現在時刻とする
+    private static final long NOW = SyntheticForecasts.epochSecondAfter(6, 30);
+
+    private static final int[] DAYS = {2, 7, 16};
+    private static final int LOCATIONS = 4;
+
+    @Test
+    public void singleLocation_matchesGolden() throws Exception {
+        List<String> mismatches = new ArrayList<>();
+        for (ScoringProfile profile : ScoringProfile.values()) {
+            ForecastAnalyzer analyzer = new ForecastAnalyzer(new ThresholdScoringEngine(profile));
+            for (int days : DAYS) {
+                HourlyColumns columns = MeteoHourlyParser.parse(
+                        new Buffer().writeUtf8(SyntheticForecasts.response(days, false)));
+                String name = profile.name().toLowerCase(Locale.US) + "_" + days + "d";
+                check(name, render(analyzer.analyze(columns, NOW)), mismatches);
+            }
+        }
+        assertTrue("ゴールデンファイルと一致しません: " + mismatches, mismatches.isEmpty());
+    }
+
+    @Test
+    public void lateInDay_matchesGolden() throws Exception {
+        // 今日の残りが少ない時刻では、おすすめが明日に移る
+        ForecastAnalyzer analyzer = new ForecastAnalyzer(new ThresholdScoringEngine(ScoringProfile.RUNNING));
+        HourlyColumns columns = MeteoHourlyParser.parse(
+                new Buffer().writeUtf8(SyntheticForecasts.response(2, true)));
+        List<String> mismatches = new ArrayList<>();
+        check("running_2d_late", render(analyzer.analyze(columns, SyntheticForecasts.epochSecondAfter(23, 30))),
+                mismatches);
+        assertTrue("ゴールデンファイルと一致しません: " + mismatches, mismatches.isEmpty());
+    }
+
+    @Test
+    public void multiLocation_matchesGolden() throws Exception {
+        List<String> mismatches = new ArrayList<>();
+        String[] names = new String[LOCATIONS];
+        for (int k = 0; k < LOCATIONS; k++) {
+            names[k] = "地点" + (k + 1);
+        }
+        for (ScoringProfile profile : ScoringProfile.values()) {
+            ForecastAnalyzer analyzer = new ForecastAnalyzer(new ThresholdScoringEngine(profile));
+            HourlyColumns[] locations = MeteoHourlyParser.parseAll(
+                    new Buffer().writeUtf8(SyntheticForecasts.batchResponse(7, LOCATIONS)));
+            String name = "locations_" + profile.name().toLowerCase(Locale.US) + "_7d";
+            check(name, analyzer.analyzeLocations(locations, names, NOW), mismatches);
+        }
+        assertTrue("ゴールデンファイルと一致しません: " + mismatches, mismatches.isEmpty());
+    }
+
+    // 画面に表示する文章・リストの各行と、全時間のスコアを文字列にまとめる
+    private static String render(ForecastResult result) {
+        StringBuilder out = new StringBuilder();
+        out.append("# summary\n").append(result.summary);
+        out.append("# rows [").append(result.listStart).append(", ").append(result.listEnd).append(")\n");
+        for (int i = result.listStart; i < result.listEnd; i++) {
+            out.append(result.rowTexts.time(i)).append(" | ")
+                    .append(result.rowTexts.score(i)).append(" | ")
+                    .append(result.rowTexts.temperature(i)).append(" | ")
+                    .append(result.rowTexts.precipitation(i)).append(" | ")
+                    .append(result.rowTexts.humidity(i)).append(" | ")
+                    .append(result.rowTexts.wind(i)).append('\n');
+        }
+        out.append("# scores\n");
+        ForecastFrame frame = result.frame;
+        for (int i = 0; i < frame.size(); i++) {
+            out.append(String.format(Locale.US, "%.2f", frame.score(i)));
+            out.append(i % 24 == 23 || i == frame.size() - 1 ? '\n' : ' ');
+        }
+        return out.toString();
+    }
+
+    private static void check(String name, String actual, List<String> mismatches) throws IOException {
+        File file = new File(GOLDEN_DIRECTORY, name + ".txt");
+        if (UPDATE) {
+            if (!GOLDEN_DIRECTORY.isDirectory() && !GOLDEN_DIRECTORY.mkdirs()) {
+                throw new IOException("ディレクトリを作成できません: " + GOLDEN_DIRECTORY);
+            }
+            Files.write(file.toPath(), actual.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if (!file.isFile()) {
+            mismatches.add(name + " (ファイルがありません)");
+            return;
+        }
+        String expected = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        if (!expected.equals(actual)) {
+            mismatches.add(name);
+            System.out.println("--- " + name + " (expected)\n" + expected + "--- " + name + " (actual)\n" + actual);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * リフレクションを使わない HeartRails のアダプターが、リフレクションによる変換と同じ結果になることを確認するテスト
+ * (変換の時間の比較は JMH の HeartRailsParseBenchmark で行います)
+ */
+public class HeartRailsResponseJsonAdapterTest {
+
+    private static final String BODY = "{\"response\":{\"location\":[{\"city\":\"名古屋市天白区\",\"city_kana\":\"なごやしてんぱくく\","
+            + "\"town\":\"塩釜口\",\"town_kana\":\"しおがまぐち\",\"x\":\"136.976\",\"y\":\"35.1365\","
+            + "\"distance\":0,\"prefecture\":\"愛知県\",\"postal\":\"4688502\"},"
+            + "{\"city\":\"名古屋市天白区\",\"town\":\"植田\",\"x\":\"136.98\",\"y\":\"35.13\",\"prefecture\":\"愛知県\",\"postal\":\"4680051\"}]}}";
+
+    @Test
+    public void fromJson_matchesReflectiveAdapter() throws Exception {
+        HeartRailsResponse expected = reflectiveAdapter().fromJson(BODY);
+        HeartRailsResponse actual = HeartRailsResponseJsonAdapter.INSTANCE.fromJson(BODY);
+
+        assertEquals(expected.response.location.size(), actual.response.location.size());
+        for (int i = 0; i < expected.response.location.size(); i++) {
+            assertLocationEquals(expected.response.location.get(i), actual.response.location.get(i));
+        }
+        assertNull(actual.response.location.get(1).city_kana);
+    }
+
+    @Test
+    public void toJson_matchesReflectiveAdapter() throws Exception {
+        HeartRailsResponse response = reflectiveAdapter().fromJson(BODY);
+
+        assertEquals(reflectiveAdapter().toJson(response), HeartRailsResponseJsonAdapter.INSTANCE.toJson(response));
+    }
+
+    @Test
+    public void fromJson_errorResponse_hasNoLocation() throws Exception {
+        HeartRailsResponse response = HeartRailsResponseJsonAdapter.INSTANCE
+                .fromJson("{\"response\":{\"error\":\"Postal code does not exist.\"}}");
+
+        assertNotNull(response.response);
+        assertNull(response.response.location);
+    }
+
+    private static JsonAdapter<HeartRailsResponse> reflectiveAdapter() {
+        return new Moshi.Builder().build().adapter(HeartRailsResponse.class);
+    }
+
+    private static void assertLocationEquals(HeartRailsResponse.Location expected, HeartRailsResponse.Location actual) {
+        assertEquals(expected.city, actual.city);
+        assertEquals(expected.city_kana, actual.city_kana);
+        assertEquals(expected.town, actual.town);
+        assertEquals(expected.town_kana, actual.town_kana);
+        assertEquals(expected.x, actual.x);
+        assertEquals(expected.y, actual.y);
+        assertEquals(expected.prefecture, actual.prefecture);
+        assertEquals(expected.postal, actual.postal);
+    }
+}
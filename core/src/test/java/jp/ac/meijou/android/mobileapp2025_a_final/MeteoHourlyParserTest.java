@@ -0,0 +1,166 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 逐次読み込みパーサーの結果がリフレクションによる変換と一致することを確認するテスト
+ * あわせて、16日分のデータでのメモリ割り当て量を比較します。
+ */
+public class MeteoHourlyParserTest {
+
+    private static final int TOKYO_OFFSET_SECONDS = 9 * 3600;
+
+    @Test
+    public void parse_isoTime_matchesReflectiveAdapter() throws Exception {
+        String json = SyntheticForecasts.response(2, false);
+
+        MeteoApiResponse.Hourly expected = reflectiveAdapter().fromJson(json).hourly;
+        HourlyColumns actual = MeteoHourlyParser.parse(new Buffer().writeUtf8(json));
+
+        assertEquals(expected.time.size(), actual.size);
+        assertEquals(TOKYO_OFFSET_SECONDS, actual.utcOffsetSeconds);
+        for (int i = 0; i < actual.size; i++) {
+            long epoch = LocalDateTime.parse(expected.time.get(i)).toEpochSecond(ZoneOffset.ofHours(9));
+            assertEquals(epoch, actual.time[i]);
+            assertEquals(expected.temperature_2m.get(i), actual.temperature[i], 0.0);
+            assertEquals((int) expected.relativehumidity_2m.get(i), actual.humidity[i]);
+            assertEquals((int) expected.precipitation_probability.get(i), actual.precipitationProbability[i]);
+            assertEquals(expected.windspeed_10m.get(i), actual.windSpeed[i], 0.0);
+            assertEquals(expected.apparent_temperature.get(i), actual.apparentTemperature[i], 0.0);
+        }
+    }
+
+    @Test
+    public void parse_unixTime_matchesIsoTime() throws Exception {
+        HourlyColumns iso = MeteoHourlyParser.parse(new Buffer().writeUtf8(SyntheticForecasts.response(2, false)));
+        HourlyColumns unix = MeteoHourlyParser.parse(new Buffer().writeUtf8(SyntheticForecasts.response(2, true)));
+
+        assertArrayEquals(iso.time, unix.time);
+    }
+
+    @Test
+    public void parse_nullValues_areStoredAsMissing() throws Exception {
+        String json = "{\"utc_offset_seconds\":0,\"hourly\":{"
+                + "\"time\":[0,3600],"
+                + "\"temperature_2m\":[1.5,null],"
+                + "\"relativehumidity_2m\":[50,null],"
+                + "\"precipitation_probability\":[null,10],"
+                + "\"windspeed_10m\":[3.0,4.0],"
+                + "\"apparent_temperature\":[null,2.0]}}";
+
+        HourlyColumns columns = MeteoHourlyParser.parse(new Buffer().writeUtf8(json));
+
+        assertTrue(Double.isNaN(columns.temperature[1]));
+        assertEquals(HourlyColumns.MISSING, columns.humidity[1]);
+        assertEquals(HourlyColumns.MISSING, columns.precipitationProbability[0]);
+        assertTrue(Double.isNaN(columns.apparentTemperature[0]));
+        // 欠損していない値はそのまま
+        assertEquals(50, columns.humidity[0]);
+        assertEquals(10, columns.precipitationProbability[1]);
+    }
+
+    @Test
+    public void parse_nullValues_areNotScored() throws Exception {
+        // 1時間目は降水確率、2時間目は気温が欠損している (3時間目はすべて揃っている)
+        String json = "{\"utc_offset_seconds\":0,\"hourly\":{"
+                + "\"time\":[0,3600,7200],"
+                + "\"temperature_2m\":[20.0,null,20.0],"
+                + "\"relativehumidity_2m\":[50,50,50],"
+                + "\"precipitation_probability\":[null,0,0],"
+                + "\"windspeed_10m\":[3.0,3.0,3.0],"
+                + "\"apparent_temperature\":[20.0,20.0,20.0]}}";
+
+        ForecastFrame frame = ForecastFrame.from(MeteoHourlyParser.parse(new Buffer().writeUtf8(json)),
+                new ThresholdScoringEngine(ScoringProfile.RUNNING));
+
+        assertEquals(ForecastFrame.MISSING_PERCENT, frame.precipitationProbability(0));
+        assertFalse(frame.hasScore(0));
+        assertFalse(frame.hasScore(1));
+        assertTrue(frame.hasScore(2));
+        assertArrayEquals(new int[]{2}, TopKRanker.topK(frame.score, 0, frame.size(), 3, 1));
+    }
+
+    @Test
+    public void parse_withoutHourly_returnsEmpty() throws Exception {
+        HourlyColumns columns = MeteoHourlyParser.parse(new Buffer().writeUtf8("{\"latitude\":35.0}"));
+
+        assertTrue(columns.isEmpty());
+    }
+
+    @Test
+    public void parseAll_multiLocationArray_returnsOneColumnsPerLocation() throws Exception {
+        String json = "[" + SyntheticForecasts.response(2, true) + "," + SyntheticForecasts.response(3, true) + "]";
+
+        HourlyColumns[] locations = MeteoHourlyParser.parseAll(new Buffer().writeUtf8(json));
+
+        assertEquals(2, locations.length);
+        assertEquals(48, locations[0].size);
+        assertEquals(72, locations[1].size);
+    }
+
+    @Test
+    public void parseAll_singleObject_returnsOneLocation() throws Exception {
+        HourlyColumns[] locations = MeteoHourlyParser.parseAll(new Buffer().writeUtf8(SyntheticForecasts.response(2, true)));
+
+        assertEquals(1, locations.length);
+        assertEquals(48, locations[0].size);
+    }
+
+    @Test
+    public void parseLocalDateTime_matchesJavaTime() {
+        String[] samples = {"1970-01-01T00:00", "2024-02-29T23:00", "2025-12-31T12:30", "2026-03-01T00:00"};
+        for (String sample : samples) {
+            assertEquals(LocalDateTime.parse(sample).toEpochSecond(ZoneOffset.UTC),
+                    MeteoHourlyParser.parseLocalDateTime(sample));
+        }
+    }
+
+    /**
+     * 16日分 (384時間) のデータで、逐次読み込みの割り当て量がリフレクションによる変換より少ないことを確認します
+     * (処理時間の比較は JMH の ParserComparisonBenchmark で行います)
+     */
+    @Test
+    public void parse_sixteenDays_allocatesLessThanReflective() throws Exception {
+        String json = SyntheticForecasts.response(16, false);
+        JsonAdapter<MeteoApiResponse> adapter = reflectiveAdapter();
+        for (int i = 0; i < 200; i++) {
+            adapter.fromJson(json);
+            MeteoHourlyParser.parse(new Buffer().writeUtf8(json));
+        }
+
+        long before = allocatedBytes();
+        adapter.fromJson(json);
+        long reflectiveBytes = allocatedBytes() - before;
+        before = allocatedBytes();
+        MeteoHourlyParser.parse(new Buffer().writeUtf8(json));
+        long streamingBytes = allocatedBytes() - before;
+
+        // 割り当て量が計測できる環境でだけ確認する
+        if (reflectiveBytes > 0) {
+            assertTrue(streamingBytes < reflectiveBytes);
+        }
+    }
+
+    private static JsonAdapter<MeteoApiResponse> reflectiveAdapter() {
+        return new Moshi.Builder().build().adapter(MeteoApiResponse.class);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,135 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 処理時間の記録・トレースへの出力・ファイルへの書き出しを確認するテスト
+ */
+public class MetricsRegistryTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void span_recordsHistogramAndTraceSection() {
+        List<String> events = new ArrayList<>();
+        registry.setTracer(new RecordingTracer(events));
+
+        MetricsRegistry.Span span = registry.startSpan("stage");
+        try {
+            events.add("work");
+        } finally {
+            span.close();
+        }
+
+        assertEquals(List.of("begin stage", "work", "end"), events);
+        assertEquals(1, registry.histogram("stage").getCount());
+    }
+
+    @Test
+    public void asyncSpan_endsOnOtherThread() throws Exception {
+        List<String> events = new ArrayList<>();
+        registry.setTracer(new RecordingTracer(events));
+
+        MetricsRegistry.Span span = registry.startAsyncSpan("network");
+        Thread thread = new Thread(span::close);
+        thread.start();
+        thread.join();
+
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).startsWith("beginAsync network "));
+        // 開始と終了で同じ識別子を使う
+        assertEquals(events.get(0).substring("begin".length()), events.get(1).substring("end".length()));
+        assertEquals(1, registry.histogram("network").getCount());
+    }
+
+    @Test
+    public void cancelledSpan_notRecorded() {
+        MetricsRegistry.Span span = registry.startAsyncSpan("network");
+        span.cancel();
+        span.close();
+
+        assertEquals(0, registry.histogram("network").getCount());
+    }
+
+    @Test
+    public void counters_andSummary() {
+        registry.increment("cache_hit");
+        registry.increment("cache_hit");
+        registry.histogram("bind").recordMicros(40);
+        registry.histogram("bind").recordMicros(800);
+
+        assertEquals(2, registry.getCount("cache_hit"));
+        assertEquals(0, registry.getCount("unknown"));
+        String summary = registry.getSummary();
+        assertTrue(summary, summary.contains("bind"));
+        assertTrue(summary, summary.contains("p50=50µs"));
+        assertTrue(summary, summary.contains("p95=800µs"));
+        assertTrue(summary, summary.contains("cache_hit"));
+    }
+
+    @Test
+    public void add_accumulatesDelta() {
+        registry.add("adapter.bind_full", 12);
+        registry.add("adapter.bind_full", 3);
+        registry.add("adapter.bind_partial", 0);
+
+        assertEquals(15, registry.getCount("adapter.bind_full"));
+        assertEquals(0, registry.getCount("adapter.bind_partial"));
+    }
+
+    @Test
+    public void export_writesJsonFileNamedByBuild() throws Exception {
+        registry.histogram("forecast.parse").recordMicros(1_500);
+        registry.increment("forecast.cache_miss");
+
+        File file = registry.export(new File(tempFolder.getRoot(), "metrics"), "1.0 (1)", 1234L);
+
+        assertEquals("metrics-1.0__1_-1234.json", file.getName());
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(json, json.contains("\"build\": \"1.0 (1)\""));
+        assertTrue(json, json.contains("\"forecast.parse\": {"));
+        assertTrue(json, json.contains("\"p50_us\": 1500"));
+        assertTrue(json, json.contains("\"forecast.cache_miss\": 1"));
+    }
+
+    private static class RecordingTracer implements MetricsRegistry.Tracer {
+        private final List<String> events;
+
+        RecordingTracer(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void beginSection(String name) {
+            events.add("begin " + name);
+        }
+
+        @Override
+        public void endSection() {
+            events.add("end");
+        }
+
+        @Override
+        public synchronized void beginAsyncSection(String name, int cookie) {
+            events.add("beginAsync " + name + " " + cookie);
+        }
+
+        @Override
+        public synchronized void endAsyncSection(String name, int cookie) {
+            events.add("endAsync " + name + " " + cookie);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * ThresholdScoringEngine のテスト
+ * 既定のプロファイル (ランニング) が以前の if/else によるスコア計算と完全に一致することを確認します。
+ * ただし欠損値 (NaN・負の降水確率や湿度) を含む時間は、以前とは異なりスコアを NaN とします。
+ */
+public class ScoringEngineTest {
+
+    private static final float[] TEMPERATURE_SAMPLES = {
+            -10f, -0.1f, 0f, 0.1f, 4.9f, 5f, 5.1f, 9.9f, 10f, 10.1f, 15f, 24.9f, 25f, 25.1f, 28f, 30f, Float.NaN};
+    private static final float[] APPARENT_SAMPLES = {
+            -5f, 20f, 27.9f, 28f, 28.1f, 30.9f, 31f, 31.1f, 34.9f, 35f, 35.1f, 40f, Float.NaN};
+    private static final int[] PERCENT_SAMPLES = {0, 1, 29, 30, 31, 49, 50, 51, 60, 61, 79, 80, 81, 100};
+    private static final float[] WIND_SAMPLES = {0f, 14.9f, 15f, 15.1f, 24.9f, 25f, 25.1f, 60f, Float.NaN};
+
+    @Test
+    public void running_matchesLegacyScoreAtThresholds() {
+        ScoringEngine engine = new ThresholdScoringEngine(ScoringProfile.RUNNING);
+        float[] out = new float[1];
+        for (float t : TEMPERATURE_SAMPLES) {
+            for (float a : APPARENT_SAMPLES) {
+                for (int p : PERCENT_SAMPLES) {
+                    for (int h : PERCENT_SAMPLES) {
+                        for (float w : WIND_SAMPLES) {
+                            engine.score(new float[]{t}, new float[]{a}, new byte[]{(byte) p}, new byte[]{(byte) h},
+                                    new float[]{w}, out, 0, 1);
+                            boolean missing = Float.isNaN(t) || Float.isNaN(a) || Float.isNaN(w);
+                            assertEquals(String.format(Locale.US, "t=%s a=%s p=%d h=%d w=%s", t, a, p, h, w),
+                                    missing ? Double.NaN : LegacyScoring.score(t, a, p, w, h), out[0], 0.0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void running_matchesLegacyScoreForRandomColumns() {
+        int n = 100_000;
+        Columns c = Columns.random(n, 42);
+        float[] out = new float[n];
+
+        new ThresholdScoringEngine(ScoringProfile.RUNNING)
+                .score(c.temperature, c.apparent, c.precipitation, c.humidity, c.wind, out, 0, n);
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(LegacyScoring.score(c.temperature[i], c.apparent[i], c.precipitation[i], c.wind[i], c.humidity[i]),
+                    out[i], 0.0);
+        }
+    }
+
+    @Test
+    public void score_onlyWritesRequestedRange() {
+        Columns c = Columns.random(10, 1);
+        float[] out = new float[10];
+        java.util.Arrays.fill(out, -1f);
+
+        new ThresholdScoringEngine(ScoringProfile.RUNNING)
+                .score(c.temperature, c.apparent, c.precipitation, c.humidity, c.wind, out, 3, 7);
+
+        for (int i = 0; i < 10; i++) {
+            if (i >= 3 && i < 7) {
+                assertTrue(out[i] >= 0f && out[i] <= 100f);
+            } else {
+                assertEquals(-1f, out[i], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void score_missingValues_isNaN() {
+        float[] t = {20f, 20f, 20f, Float.NaN};
+        float[] a = {20f, 20f, 20f, 20f};
+        byte[] p = {0, ForecastFrame.MISSING_PERCENT, 0, 0};
+        byte[] h = {50, 50, ForecastFrame.MISSING_PERCENT, 50};
+        float[] w = {5f, 5f, 5f, 5f};
+        float[] out = new float[4];
+
+        new ThresholdScoringEngine(ScoringProfile.RUNNING).score(t, a, p, h, w, out, 0, 4);
+
+        // 降水確率の欠損を 0% と見なして満点にしない
+        assertEquals(100f, out[0], 0f);
+        assertTrue(Float.isNaN(out[1]));
+        assertTrue(Float.isNaN(out[2]));
+        assertTrue(Float.isNaN(out[3]));
+    }
+
+    @Test
+    public void profiles_weighWindDifferently() {
+        // 風速 22km/h (約6m/s) はランニングでは軽い減点、サイクリングでは大きな減点
+        float[] out = new float[1];
+        float[] t = {20f};
+        float[] a = {20f};
+        byte[] p = {0};
+        byte[] h = {50};
+        float[] w = {22f};
+
+        new ThresholdScoringEngine(ScoringProfile.RUNNING).score(t, a, p, h, w, out, 0, 1);
+        float running = out[0];
+        new ThresholdScoringEngine(ScoringProfile.CYCLING).score(t, a, p, h, w, out, 0, 1);
+        float cycling = out[0];
+        new ThresholdScoringEngine(ScoringProfile.WALKING).score(t, a, p, h, w, out, 0, 1);
+        float walking = out[0];
+
+        assertEquals(90f, running, 0f);
+        assertTrue(cycling < running);
+        assertTrue(walking > running);
+    }
+
+    /**
+     * テスト用の列データ
+     */
+    private static class Columns {
+        final float[] temperature;
+        final float[] apparent;
+        final byte[] precipitation;
+        final byte[] humidity;
+        final float[] wind;
+
+        private Columns(int n) {
+            temperature = new float[n];
+            apparent = new float[n];
+            precipitation = new byte[n];
+            humidity = new byte[n];
+            wind = new float[n];
+        }
+
+        // APIと同じく小数第1位までの値を生成する
+        static Columns random(int n, long seed) {
+            Random random = new Random(seed);
+            Columns c = new Columns(n);
+            for (int i = 0; i < n; i++) {
+                c.temperature[i] = (random.nextInt(500) - 100) / 10f;
+                c.apparent[i] = c.temperature[i] + (random.nextInt(100) - 30) / 10f;
+                c.precipitation[i] = (byte) random.nextInt(101);
+                c.humidity[i] = (byte) random.nextInt(101);
+                c.wind[i] = random.nextInt(400) / 10f;
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * TopKRanker の結果が「全件を安定ソートしてから上位を選ぶ」場合と一致することを確認するテスト
+ */
+public class TopKRankerTest {
+
+    @Test
+    public void topK_matchesFullSort() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            float[] scores = randomScores(random, 1 + random.nextInt(400));
+            int from = random.nextInt(scores.length);
+            int k = 1 + random.nextInt(5);
+
+            assertArrayEquals(expectedTopK(scores, from, scores.length, k, 1),
+                    TopKRanker.topK(scores, from, scores.length, k, 1));
+        }
+    }
+
+    @Test
+    public void topK_withMinGap_matchesGreedyOverFullSort() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 200; trial++) {
+            float[] scores = randomScores(random, 1 + random.nextInt(400));
+            int k = 1 + random.nextInt(5);
+            int gap = 1 + random.nextInt(4);
+
+            assertArrayEquals(expectedTopK(scores, 0, scores.length, k, gap),
+                    TopKRanker.topK(scores, 0, scores.length, k, gap));
+        }
+    }
+
+    @Test
+    public void topK_tiesKeepEarlierIndexFirst() {
+        float[] scores = {50, 80, 80, 20, 80};
+
+        assertArrayEquals(new int[]{1, 2, 4}, TopKRanker.topK(scores, 0, scores.length, 3, 1));
+        // 0番と3番はどちらも選ばれた時間と隣り合うため除外される
+        assertArrayEquals(new int[]{1, 4}, TopKRanker.topK(scores, 0, scores.length, 3, 2));
+    }
+
+    @Test
+    public void topK_fewerCandidatesThanK() {
+        float[] scores = {10, 20};
+
+        assertArrayEquals(new int[]{1, 0}, TopKRanker.topK(scores, 0, 2, 5, 1));
+        assertArrayEquals(new int[0], TopKRanker.topK(scores, 2, 2, 3, 1));
+    }
+
+    @Test
+    public void topKAcross_ranksAllSeriesTogether() {
+        float[][] scores = {
+                {10, 90, 30},
+                {95, 20, 90},
+        };
+
+        long[] ranked = TopKRanker.topKAcross(scores, new int[]{0, 1}, new int[]{3, 3}, 3, 1);
+
+        assertEquals(3, ranked.length);
+        // 地点1の0番は対象外 (from = 1) なので、90点が2件 (地点0が先) と30点が並ぶ
+        assertEquals(0, TopKRanker.seriesOf(ranked[0]));
+        assertEquals(1, TopKRanker.indexOf(ranked[0]));
+        assertEquals(1, TopKRanker.seriesOf(ranked[1]));
+        assertEquals(2, TopKRanker.indexOf(ranked[1]));
+        assertEquals(0, TopKRanker.seriesOf(ranked[2]));
+        assertEquals(2, TopKRanker.indexOf(ranked[2]));
+    }
+
+    // 実際の運動適性スコアと同様に、同点が多く出るよう5点刻みにする
+    private static float[] randomScores(Random random, int n) {
+        float[] scores = new float[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = random.nextInt(21) * 5;
+        }
+        return scores;
+    }
+
+    private static int[] expectedTopK(float[] scores, int from, int to, int k, int gap) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            indices.add(i);
+        }
+        Collections.sort(indices, (x, y) -> Float.compare(scores[y], scores[x]));
+
+        List<Integer> picked = new ArrayList<>();
+        for (int index : indices) {
+            if (picked.size() == k) {
+                break;
+            }
+            boolean tooClose = false;
+            for (int p : picked) {
+                if (Math.abs(p - index) < gap) {
+                    tooClose = true;
+                }
+            }
+            if (!tooClose) {
+                picked.add(index);
+            }
+        }
+        int[] result = new int[picked.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = picked.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * WindowSearch のスライディングウィンドウ計算と時間帯の選び方を確認するテスト
+ */
+public class WindowSearchTest {
+
+    private static final long START = 1_765_206_000L; // 2025-12-09 00:00 (JST)
+
+    @Test
+    public void interpolate_fillsQuarterHoursLinearly() {
+        float[] slots = WindowSearch.interpolate(new float[]{0, 40, 80}, 1, 3, 4);
+
+        assertEquals(8, slots.length);
+        assertEquals(40f, slots[0], 0f);
+        assertEquals(50f, slots[1], 0f);
+        assertEquals(60f, slots[2], 0f);
+        assertEquals(70f, slots[3], 0f);
+        // 最後の1時間は同じ値が続く
+        assertEquals(80f, slots[4], 0f);
+        assertEquals(80f, slots[7], 0f);
+    }
+
+    @Test
+    public void interpolate_missingHour_staysNaN() {
+        float[] slots = WindowSearch.interpolate(new float[]{40, Float.NaN, 80}, 0, 3, 4);
+
+        // 次の時間が欠損している場合は同じ値が続き、欠損した時間の枠は NaN のまま
+        assertEquals(40f, slots[3], 0f);
+        assertTrue(Float.isNaN(slots[4]));
+        assertTrue(Float.isNaN(slots[7]));
+        assertEquals(80f, slots[8], 0f);
+    }
+
+    @Test
+    public void slidingAverages_windowWithNaN_isNaN() {
+        float[] averages = WindowSearch.slidingAverages(new float[]{10, 20, Float.NaN, 30, 40, 50}, 2);
+
+        assertEquals(15f, averages[0], 0f);
+        assertTrue(Float.isNaN(averages[1]));
+        assertTrue(Float.isNaN(averages[2]));
+        assertEquals(35f, averages[3], 0f);
+        assertEquals(45f, averages[4], 0f);
+    }
+
+    @Test
+    public void findBestWindows_skipsMissingHours() {
+        // 欠損した時間 (4時) を含む時間帯は、周りのスコアが高くても選ばない
+        float[] scores = {50, 50, 50, 100, Float.NaN, 100, 50, 50};
+
+        ExerciseWindow[] windows = WindowSearch.findBestWindows(frame(scores), 0, scores.length, 60, 3);
+
+        for (ExerciseWindow window : windows) {
+            assertFalse(Float.isNaN(window.averageScore));
+            assertTrue(window.endEpochSecond <= START + 4 * 3600 || window.startEpochSecond >= START + 5 * 3600);
+        }
+    }
+
+    @Test
+    public void slidingAverages_matchesBruteForce() {
+        Random random = new Random(11);
+        float[] values = new float[200];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(101);
+        }
+
+        for (int window = 1; window <= 12; window++) {
+            float[] averages = WindowSearch.slidingAverages(values, window);
+            assertEquals(values.length - window + 1, averages.length);
+            for (int i = 0; i < averages.length; i++) {
+                double sum = 0;
+                for (int j = i; j < i + window; j++) {
+                    sum += values[j];
+                }
+                assertEquals(sum / window, averages[i], 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void findBestWindows_returnsNonOverlappingWindowsInOrder() {
+        // 2時〜3時と8時〜10時が高得点 (8時〜10時の方が長く続く)
+        float[] scores = new float[12];
+        scores[2] = 90;
+        scores[3] = 90;
+        scores[8] = 100;
+        scores[9] = 100;
+        scores[10] = 100;
+        ForecastFrame frame = frame(scores);
+
+        ExerciseWindow[] windows = WindowSearch.findBestWindows(frame, 0, scores.length, 90, 2);
+
+        assertEquals(2, windows.length);
+        assertEquals(START + 8 * 3600, windows[0].startEpochSecond);
+        assertEquals(START + 8 * 3600 + 90 * 60, windows[0].endEpochSecond);
+        assertEquals(100f, windows[0].averageScore, 0f);
+        assertTrue(windows[1].endEpochSecond <= windows[0].startEpochSecond
+                || windows[1].startEpochSecond >= windows[0].endEpochSecond);
+        assertTrue(windows[1].averageScore < windows[0].averageScore);
+    }
+
+    @Test
+    public void findBestWindows_derivesSlotsFromTimeSpacing() {
+        // 30分ごとのデータでは、1つの間隔が15分の枠2つになる
+        float[] scores = {0, 0, 100, 100, 0, 0};
+        ForecastFrame frame = frame(scores, 1800);
+
+        assertEquals(1800, WindowSearch.stepSeconds(frame, 0, scores.length));
+        ExerciseWindow[] windows = WindowSearch.findBestWindows(frame, 0, scores.length, 30, 1);
+
+        assertEquals(START + 2 * 1800, windows[0].startEpochSecond);
+        assertEquals(START + 3 * 1800, windows[0].endEpochSecond);
+        assertEquals(100f, windows[0].averageScore, 0f);
+    }
+
+    @Test
+    public void findBestWindows_irregularSpacing_returnsEmpty() {
+        float[] scores = {50, 60, 70};
+        long[] time = {START, START + 3600, START + 3 * 3600};
+
+        assertEquals(0, WindowSearch.findBestWindows(frame(scores, time), 0, scores.length, 60, 1).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stepSeconds_irregularSpacing_throws() {
+        float[] scores = {50, 60, 70};
+        long[] time = {START, START + 3600, START + 3 * 3600};
+
+        WindowSearch.stepSeconds(frame(scores, time), 0, scores.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stepSeconds_notMultipleOf15Minutes_throws() {
+        float[] scores = {50, 60, 70};
+
+        WindowSearch.stepSeconds(frame(scores, 600), 0, scores.length);
+    }
+
+    @Test
+    public void findBestWindows_tooShortRange_returnsEmpty() {
+        ForecastFrame frame = frame(new float[]{50, 60});
+
+        assertEquals(0, WindowSearch.findBestWindows(frame, 1, 2, 90, 2).length);
+        assertEquals(0, WindowSearch.findBestWindows(frame, 2, 2, 90, 2).length);
+    }
+
+    // 指定したスコアをそのまま持つ1時間ごとの予報データを作成する
+    private static ForecastFrame frame(float[] scores) {
+        return frame(scores, 3600);
+    }
+
+    private static ForecastFrame frame(float[] scores, int stepSeconds) {
+        long[] time = new long[scores.length];
+        for (int i = 0; i < time.length; i++) {
+            time[i] = START + (long) i * stepSeconds;
+        }
+        return frame(scores, time);
+    }
+
+    private static ForecastFrame frame(float[] scores, long[] time) {
+        int n = scores.length;
+        HourlyColumns columns = new HourlyColumns(9 * 3600, time, new double[n], new int[n], new int[n],
+                new double[n], new double[n]);
+        return ForecastFrame.from(columns, (t, a, p, h, w, out, from, to) -> {
+            for (int i = from; i < to; i++) {
+                out[i] = scores[i];
+            }
+        });
+    }
+}
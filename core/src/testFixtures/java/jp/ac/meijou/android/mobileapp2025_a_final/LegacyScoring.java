@@ -0,0 +1,82 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+/**
+ * 以前 MainActivity にあった1時間ずつのスコア計算 (比較用にそのまま残したもの)
+ * {@link ThresholdScoringEngine} の結果の確認 (テスト) と、処理時間の比較 (ベンチマーク) で共有します。
+ */
+public final class LegacyScoring {
+
+    private LegacyScoring() {
+    }
+
+    /**
+     * 1時間分のスコアを計算します
+     * 気温、体感温度、降水確率、風速から算出します。
+     * 
+     * ■ 採点基準 (100点満点からの減点方式)
+     * - 降水確率: 雨は大敵。確率が高いほど大きく減点。
+     * - 気温/体感温度: 暑すぎる(熱中症リスク)、寒すぎる場合は減点。
+     * - 湿度/不快指数: 気温が高く多湿な場合は減点。
+     * - 風速: 強風は減点。
+     *
+     * @param temperature 気温 (℃)
+     * @param apparentTemperature 体感温度 (℃)
+     * @param precipitationProbability 降水確率 (%)
+     * @param windspeed 風速 (km/h)
+     * @param humidity 湿度 (%)
+     * @return 0から100のスコア
+     */
+    public static double score(double temperature, double apparentTemperature,
+                               int precipitationProbability, double windspeed, int humidity) {
+        
+        double score = 100.0;
+
+        // 1. 降水確率 (最優先)
+        // 運動に雨は大敵。30%を超えると徐々に減点、60%以上は大きく減点
+        if (precipitationProbability >= 80) {
+            score -= 80;
+        } else if (precipitationProbability >= 50) {
+            score -= 50;
+        } else if (precipitationProbability >= 30) {
+            score -= 20;
+        } // 0-20%は減点なし
+
+        // 2. 気温・体感温度 (重要)
+        // 運動に最適なのは 15℃〜25℃ 程度とする
+        // 暑さ対策: 熱中症リスク
+        if (apparentTemperature > 35) {
+            score -= 100; // 運動危険
+        } else if (apparentTemperature > 31) {
+            score -= 60;  // 厳重警戒
+        } else if (apparentTemperature > 28) {
+            score -= 30;  // 警戒
+        }
+        
+        // 寒さ対策
+        if (temperature < 0) {
+            score -= 40;
+        } else if (temperature < 5) {
+            score -= 20;
+        } else if (temperature < 10) {
+            score -= 10;
+        }
+
+        // 3. 不快指数 (湿度 + 気温) 簡易判定
+        // 気温が高く湿度も高い場合はさらに減点
+        if (temperature > 25 && humidity > 80) {
+            score -= 15;
+        } else if (temperature > 25 && humidity > 60) {
+            score -= 10;
+        }
+
+        // 4. 風 (強風は不適)
+        if (windspeed > 25) { // 約90km/hとかではないので、25km/h (約7m/s) 程度を基準に
+             score -= 30;
+        } else if (windspeed > 15) {
+             score -= 10;
+        }
+
+        // スコアの範囲を0〜100に収める
+        return Math.max(0, Math.min(100, score));
+    }
+}
@@ -4,8 +4,9 @@ import com.squareup.moshi.Json;
 import java.util.List;
 
 /**
- * Open-Meteo APIからのレスポンスを格納するクラス
- * 天気予報データ（時系列）を扱います。
+ * Open-Meteo APIからのレスポンスを格納するクラス (テストとベンチマークで共有)
+ * アプリは {@link MeteoHourlyParser} で列形式に変換するため、このクラスは
+ * リフレクションによる変換との結果・性能の比較にだけ使います。
  */
 public class MeteoApiResponse {
     public Hourly hourly;
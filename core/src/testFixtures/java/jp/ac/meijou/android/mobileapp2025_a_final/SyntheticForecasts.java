@@ -0,0 +1,99 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+/**
+ * Open-Meteo APIと同じ形式の擬似レスポンスを生成するクラス (テストとベンチマークで共有)
+ * 同じ引数からは常に同じ内容を生成するため、ゴールデンテストの入力にも使えます。
+ */
+public final class SyntheticForecasts {
+
+    // 日本時間 (UTC+9)
+    public static final int TOKYO_OFFSET_SECONDS = 9 * 3600;
+
+    // 予報の開始日時 (現地時刻)
+    public static final LocalDateTime START = LocalDateTime.of(2025, 12, 9, 0, 0);
+
+    private SyntheticForecasts() {
+    }
+
+    /**
+     * 1地点の擬似レスポンスを生成します
+     *
+     * @param days     予報日数
+     * @param unixTime 時刻をエポック秒で出力するかどうか
+     */
+    public static String response(int days, boolean unixTime) {
+        return response(days, unixTime, 0);
+    }
+
+    /**
+     * 1地点の擬似レスポンスを生成します
+     *
+     * @param days     予報日数
+     * @param unixTime 時刻をエポック秒で出力するかどうか
+     * @param variant  地点ごとに値をずらすための番号 (0 は {@link #response(int, boolean)} と同じ内容)
+     */
+    public static String response(int days, boolean unixTime, int variant) {
+        int hours = days * 24;
+        // 地点ごとに値の周期をずらす
+        int shift = variant * 5;
+        StringBuilder time = new StringBuilder();
+        StringBuilder temperature = new StringBuilder();
+        StringBuilder humidity = new StringBuilder();
+        StringBuilder precipitation = new StringBuilder();
+        StringBuilder wind = new StringBuilder();
+        StringBuilder apparent = new StringBuilder();
+        for (int i = 0; i < hours; i++) {
+            String separator = i == 0 ? "" : ",";
+            LocalDateTime t = START.plusHours(i);
+            if (unixTime) {
+                time.append(separator).append(t.toEpochSecond(ZoneOffset.ofTotalSeconds(TOKYO_OFFSET_SECONDS)));
+            } else {
+                time.append(separator).append('"').append(t).append('"');
+            }
+            int v = i + shift;
+            temperature.append(separator).append(String.format(Locale.US, "%.1f", 5 + (v % 24) * 1.3));
+            humidity.append(separator).append(40 + (v * 7) % 55);
+            precipitation.append(separator).append((v * 13) % 100);
+            wind.append(separator).append(String.format(Locale.US, "%.1f", (v * 3) % 30 + 0.5));
+            apparent.append(separator).append(String.format(Locale.US, "%.1f", 3 + (v % 24) * 1.4));
+        }
+        return "{\"latitude\":35.7,\"longitude\":139.7,\"generationtime_ms\":0.1,"
+                + "\"utc_offset_seconds\":" + TOKYO_OFFSET_SECONDS + ",\"timezone\":\"Asia/Tokyo\","
+                + "\"hourly_units\":{\"time\":\"iso8601\"},"
+                + "\"hourly\":{"
+                + "\"time\":[" + time + "],"
+                + "\"temperature_2m\":[" + temperature + "],"
+                + "\"relativehumidity_2m\":[" + humidity + "],"
+                + "\"precipitation_probability\":[" + precipitation + "],"
+                + "\"windspeed_10m\":[" + wind + "],"
+                + "\"apparent_temperature\":[" + apparent + "]}}";
+    }
+
+    /**
+     * 複数地点をまとめて指定した場合の擬似レスポンス (地点ごとのオブジェクトの配列) を生成します
+     *
+     * @param days      予報日数
+     * @param locations 地点の数
+     */
+    public static String batchResponse(int days, int locations) {
+        StringBuilder json = new StringBuilder("[");
+        for (int k = 0; k < locations; k++) {
+            if (k > 0) {
+                json.append(',');
+            }
+            json.append(response(days, true, k));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * 予報の開始日時から指定した時間後の時刻 (エポック秒) を返します (分析の「現在時刻」用)
+     */
+    public static long epochSecondAfter(int hours, int minutes) {
+        return START.plusHours(hours).plusMinutes(minutes).toEpochSecond(ZoneOffset.ofTotalSeconds(TOKYO_OFFSET_SECONDS));
+    }
+}
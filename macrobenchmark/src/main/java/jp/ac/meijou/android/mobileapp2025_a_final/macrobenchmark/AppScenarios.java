@@ -0,0 +1,80 @@
+package jp.ac.meijou.android.mobileapp2025_a_final.macrobenchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.io.IOException;
+
+/**
+ * 起動時間・スクロールの計測と Baseline Profile の生成で共通して使う、アプリの操作をまとめたクラス
+ */
+final class AppScenarios {
+
+    static final String PACKAGE_NAME = "jp.ac.meijou.android.mobileapp2025_a_final";
+
+    // 画面の表示を待つ最大時間
+    private static final long WAIT_TIMEOUT_MILLIS = 10_000;
+
+    // 予報画面に渡す位置 (名城大学 天白キャンパス周辺)
+    private static final double LATITUDE = 35.1365;
+    private static final double LONGITUDE = 136.976;
+
+    private AppScenarios() {
+    }
+
+    /**
+     * 位置情報の権限を許可しておきます (権限ダイアログで計測が止まらないようにするため)
+     */
+    static void grantLocationPermission() {
+        UiDevice device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation());
+        try {
+            device.executeShellCommand("pm grant " + PACKAGE_NAME + " android.permission.ACCESS_FINE_LOCATION");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 場所変更画面 (ランチャーから起動する画面) を起動し、現在地の表示を待ちます
+     */
+    static void startLocationScreen(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        scope.getDevice().wait(Until.hasObject(By.res(PACKAGE_NAME, "textStatus").textContains("現在地")),
+                WAIT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 予報画面を位置を指定して起動し、予報の一覧の表示を待ちます
+     */
+    static void startForecastScreen(MacrobenchmarkScope scope) {
+        Intent intent = new Intent();
+        intent.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".MainActivity");
+        intent.putExtra("EXTRA_LATITUDE", LATITUDE);
+        intent.putExtra("EXTRA_LONGITUDE", LONGITUDE);
+        scope.startActivityAndWait(intent);
+        scope.getDevice().wait(Until.hasObject(By.res(PACKAGE_NAME, "textTime")), WAIT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 予報の一覧を下に3回、上に1回フリックします (3日目以降のページの読み込みと、読み込み済みの行の再表示を含む)
+     */
+    static void scrollForecastList(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 list = device.findObject(By.res(PACKAGE_NAME, "recyclerViewForecast"));
+        // 画面の端からのジェスチャーでシステムの戻る操作にならないよう、左右に余白を取る
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            list.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+}
@@ -0,0 +1,41 @@
+package jp.ac.meijou.android.mobileapp2025_a_final.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * 起動から予報の表示・一覧のスクロールまでに実行されるコードを記録し、Baseline Profile と Startup Profile を生成するクラス
+ * ./gradlew :app:generateBaselineProfile で実行すると、結果が app/src/release/generated/baselineProfiles に保存されます。
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        AppScenarios.grantLocationPermission();
+        baselineProfileRule.collect(
+                AppScenarios.PACKAGE_NAME,
+                15,     // 最大の繰り返し回数
+                3,      // 結果が安定したとみなす連続回数
+                null,   // 出力ファイル名の接頭辞
+                true,   // Startup Profile (DEXの配置の最適化) にも含める
+                false,  // 安定しなくても失敗にしない
+                className -> true,
+                scope -> {
+                    scope.pressHome();
+                    AppScenarios.startLocationScreen(scope);
+                    AppScenarios.startForecastScreen(scope);
+                    AppScenarios.scrollForecastList(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
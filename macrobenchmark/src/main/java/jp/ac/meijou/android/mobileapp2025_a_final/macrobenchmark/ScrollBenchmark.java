@@ -0,0 +1,66 @@
+package jp.ac.meijou.android.mobileapp2025_a_final.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * 予報の一覧をスクロールしたときのフレーム時間を計測するベンチマーク
+ * {@link FrameTimingMetric} で、フレームごとの CPU 時間 (frameDurationCpuMs) と、
+ * 描画の期限に対する余裕 (frameOverrunMs、正の値はコマ落ち) を計測します。
+ *
+ * 計測するのはフレーム時間だけで、バインド時の書式変換や割り当ての有無は確認しません。
+ * JIT の影響を分けて見るため、事前コンパイルなしと Baseline Profile ありのそれぞれで計測します。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Before
+    public void setUp() {
+        AppScenarios.grantLocationPermission();
+    }
+
+    @Test
+    public void forecastListNoCompilation() {
+        measureScroll(new CompilationMode.None());
+    }
+
+    @Test
+    public void forecastListBaselineProfile() {
+        measureScroll(new CompilationMode.Partial());
+    }
+
+    private void measureScroll(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                AppScenarios.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                compilationMode,
+                null,   // 起動時間は計測しない
+                ITERATIONS,
+                scope -> {
+                    // 予報の表示までは計測に含めない
+                    scope.pressHome();
+                    AppScenarios.startForecastScreen(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    AppScenarios.scrollForecastList(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,76 @@
+package jp.ac.meijou.android.mobileapp2025_a_final.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import kotlin.Unit;
+
+/**
+ * 2つの画面のコールドスタートの時間を計測するベンチマーク
+ * {@link StartupTimingMetric} で、最初の描画までの時間 (timeToInitialDisplay) と、
+ * reportFullyDrawn() が呼ばれるまでの時間 (timeToFullDisplay) を計測します。
+ *
+ * Baseline Profile の効果を確認するため、事前コンパイルなしと Baseline Profile ありの両方で計測します。
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Before
+    public void setUp() {
+        AppScenarios.grantLocationPermission();
+    }
+
+    @Test
+    public void locationScreenNoCompilation() {
+        measureColdStart(new CompilationMode.None(), AppScenarios::startLocationScreen);
+    }
+
+    @Test
+    public void locationScreenBaselineProfile() {
+        measureColdStart(new CompilationMode.Partial(), AppScenarios::startLocationScreen);
+    }
+
+    @Test
+    public void forecastScreenNoCompilation() {
+        measureColdStart(new CompilationMode.None(), AppScenarios::startForecastScreen);
+    }
+
+    @Test
+    public void forecastScreenBaselineProfile() {
+        measureColdStart(new CompilationMode.Partial(), AppScenarios::startForecastScreen);
+    }
+
+    private void measureColdStart(CompilationMode compilationMode, Consumer<MacrobenchmarkScope> start) {
+        benchmarkRule.measureRepeated(
+                AppScenarios.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    start.accept(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
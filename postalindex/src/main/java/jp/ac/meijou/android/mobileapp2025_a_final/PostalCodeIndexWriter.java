@@ -0,0 +1,173 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * {@link PostalCodeIndex} が読み込む索引ファイルを作成するクラス
+ * アプリの実行時には使わず、同梱する索引 (assets/postal_index.bin) を作るときに使います。
+ *
+ * ■ 使い方
+ * 通常は app のビルド時に :app:generatePostalIndex から実行されます。
+ * 元データは GeoNames の日本の郵便番号 (JP.zip、タブ区切り、CC BY 4.0) で、手動で作る場合は次のように実行します。
+ * <pre>
+ * ./gradlew :postalindex:run --args="JP.zip postal_index.bin"
+ * </pre>
+ */
+public final class PostalCodeIndexWriter {
+
+    private int size = 0;
+    private int[] codes = new int[1024];
+    private float[] latitudes = new float[1024];
+    private float[] longitudes = new float[1024];
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * 1件 (1町域) を追加します。追加する順番は問いません
+     */
+    public PostalCodeIndexWriter add(int code, double latitude, double longitude, String name) {
+        if (size == codes.length) {
+            int capacity = size * 2;
+            codes = Arrays.copyOf(codes, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+        }
+        codes[size] = code;
+        latitudes[size] = (float) latitude;
+        longitudes[size] = (float) longitude;
+        names.add(name);
+        size++;
+        return this;
+    }
+
+    /**
+     * 郵便番号の昇順に並べ替えて、索引ファイルを書き出します
+     * 同じ郵便番号の行は追加した順番のまま並びます。
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        // 郵便番号 (上位) と追加した順番 (下位) をまとめて並べ替える
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) codes[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        byte[][] nameBytes = new byte[size][];
+        int totalNameBytes = 0;
+        for (int i = 0; i < size; i++) {
+            nameBytes[i] = names.get((int) order[i]).getBytes(StandardCharsets.UTF_8);
+            totalNameBytes += nameBytes[i].length;
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(PostalCodeIndex.MAGIC);
+        data.writeInt(PostalCodeIndex.FORMAT_VERSION);
+        data.writeInt(size);
+        data.writeInt(totalNameBytes);
+        for (int i = 0; i < size; i++) {
+            data.writeInt(codes[(int) order[i]]);
+        }
+        for (int i = 0; i < size; i++) {
+            data.writeFloat(latitudes[(int) order[i]]);
+        }
+        for (int i = 0; i < size; i++) {
+            data.writeFloat(longitudes[(int) order[i]]);
+        }
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            data.writeInt(offset);
+            offset += nameBytes[i].length;
+        }
+        data.writeInt(offset);
+        for (int i = 0; i < size; i++) {
+            data.write(nameBytes[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * 追加した件数を返します
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * GeoNames の郵便番号データ (タブ区切り) を読み込んで追加します
+     * 列は「国, 郵便番号, 地名, 都道府県, 都道府県コード, 市区町村, 市区町村コード, ..., 緯度, 経度, 精度」です。
+     */
+    public PostalCodeIndexWriter addGeoNames(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            String[] columns = line.split("\t", -1);
+            if (columns.length < 11) {
+                continue;
+            }
+            int code = PostalCodeIndex.parseCode(columns[1].trim());
+            if (code < 0 || columns[9].isEmpty() || columns[10].isEmpty()) {
+                continue; // 不正な行・座標のない行は飛ばす
+            }
+            add(code, Double.parseDouble(columns[9]), Double.parseDouble(columns[10]),
+                    joinName(columns[3], columns[5], columns[2]));
+        }
+        return this;
+    }
+
+    // 都道府県 + 市区町村 + 町域 (空の列と、前の列と同じ名前は除く)
+    private static String joinName(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        String previous = "";
+        for (String part : parts) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty() || trimmed.equals(previous)) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(trimmed);
+            previous = trimmed;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * GeoNames の郵便番号データ (JP.zip) から索引ファイルを作成します
+     *
+     * @param args [0] 入力する JP.zip、[1] 出力する索引ファイル
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: PostalCodeIndexWriter <JP.zip> <output.bin>");
+            System.exit(2);
+        }
+        PostalCodeIndexWriter writer = new PostalCodeIndexWriter();
+        try (ZipFile zip = new ZipFile(args[0])) {
+            ZipEntry entry = zip.getEntry("JP.txt");
+            if (entry == null) {
+                throw new IOException("JP.txt が見つかりません: " + args[0]);
+            }
+            writer.addGeoNames(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8));
+        }
+        if (writer.size() == 0) {
+            throw new IOException("郵便番号が1件もありません: " + args[0]);
+        }
+        try (OutputStream out = new FileOutputStream(args[1])) {
+            writer.writeTo(out);
+        }
+        System.out.println(writer.size() + " 件の索引を作成しました: " + args[1]);
+    }
+}
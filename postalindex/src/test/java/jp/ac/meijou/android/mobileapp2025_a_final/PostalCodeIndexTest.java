@@ -0,0 +1,137 @@
+package jp.ac.meijou.android.mobileapp2025_a_final;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * PostalCodeIndex の検索結果と、PostalCodeIndexWriter が作成する索引の内容を確認するテスト
+ */
+public class PostalCodeIndexTest {
+
+    // 全国の郵便番号 (町域) とほぼ同じ件数
+    private static final int NATIONWIDE_COUNT = 120_000;
+
+    @Test
+    public void indexOf_findsCodesAddedInAnyOrder() throws Exception {
+        PostalCodeIndex index = PostalCodeIndex.from(ByteBuffer.wrap(write(new PostalCodeIndexWriter()
+                .add(4688502, 35.1365, 136.9760, "愛知県名古屋市天白区塩釜口")
+                .add(1000001, 35.6852, 139.7528, "東京都千代田区千代田")
+                .add(600000, 43.0642, 141.3469, "北海道札幌市中央区"))));
+
+        assertEquals(3, index.size());
+        int i = index.indexOf(4688502);
+        assertEquals(4688502, index.code(i));
+        assertEquals(35.1365, index.latitude(i), 1e-4);
+        assertEquals(136.9760, index.longitude(i), 1e-4);
+        assertEquals("愛知県名古屋市天白区塩釜口", index.name(i));
+        assertEquals("北海道札幌市中央区", index.name(index.indexOf(600000)));
+        assertEquals(-1, index.indexOf(4688503));
+    }
+
+    @Test
+    public void indexOf_returnsFirstTownOfSharedCode() throws Exception {
+        PostalCodeIndex index = PostalCodeIndex.from(ByteBuffer.wrap(write(new PostalCodeIndexWriter()
+                .add(4520000, 35.2, 136.8, "愛知県清須市")
+                .add(4520001, 35.2, 136.8, "愛知県清須市西枇杷島町A")
+                .add(4520001, 35.2, 136.8, "愛知県清須市西枇杷島町B"))));
+
+        assertEquals("愛知県清須市西枇杷島町A", index.name(index.indexOf(4520001)));
+    }
+
+    @Test
+    public void suggest_returnsDistinctCodesWithPrefix() throws Exception {
+        PostalCodeIndex index = PostalCodeIndex.from(ByteBuffer.wrap(write(new PostalCodeIndexWriter()
+                .add(4688502, 35.1, 136.9, "A")
+                .add(4680001, 35.1, 136.9, "B")
+                .add(4680001, 35.1, 136.9, "B2")
+                .add(4690000, 35.1, 136.9, "C")
+                .add(4670000, 35.1, 136.9, "D"))));
+
+        int[] found = index.suggest("468", 10);
+        assertEquals(2, found.length);
+        assertEquals(4680001, index.code(found[0]));
+        assertEquals(4688502, index.code(found[1]));
+
+        assertEquals(1, index.suggest("46", 1).length);
+        assertEquals(0, index.suggest("999", 10).length);
+        assertEquals(0, index.suggest("46a", 10).length);
+        assertEquals(1, index.suggest("468-85", 10).length);
+    }
+
+    @Test
+    public void parseCode_acceptsSevenDigitsWithOptionalHyphen() {
+        assertEquals(4688502, PostalCodeIndex.parseCode("4688502"));
+        assertEquals(4688502, PostalCodeIndex.parseCode("468-8502"));
+        assertEquals(600000, PostalCodeIndex.parseCode("060-0000"));
+        assertEquals(-1, PostalCodeIndex.parseCode("468850"));
+        assertEquals(-1, PostalCodeIndex.parseCode("46885020"));
+        assertEquals(-1, PostalCodeIndex.parseCode("468850a"));
+        assertEquals("0600000", PostalCodeIndex.formatCode(600000));
+    }
+
+    @Test
+    public void addGeoNames_joinsNamesAndSkipsRowsWithoutCoordinates() throws Exception {
+        String data = "JP\t468-8502\t塩釜口\t愛知県\t23\t名古屋市天白区\t23115\t\t\t35.1365\t136.976\t6\n"
+                + "JP\t100-0001\t千代田\t東京都\t13\t千代田区\t13101\t\t\t35.6852\t139.7528\t6\n"
+                + "JP\t060-0000\t\t北海道\t01\t北海道\t\t\t\t\t\t\n"
+                + "JP\tinvalid\n";
+        PostalCodeIndexWriter writer = new PostalCodeIndexWriter().addGeoNames(new StringReader(data));
+        PostalCodeIndex index = PostalCodeIndex.from(ByteBuffer.wrap(write(writer)));
+
+        assertEquals(2, writer.size());
+        int i = index.indexOf(4688502);
+        assertEquals("愛知県 名古屋市天白区 塩釜口", index.name(i));
+        assertEquals(136.976, index.longitude(i), 1e-4);
+        assertEquals("東京都 千代田区 千代田", index.name(index.indexOf(1000001)));
+        assertEquals(-1, index.indexOf(600000));
+    }
+
+    /**
+     * 約12万件の索引をファイルに書き出し、メモリマップしたまま検索できることを確認します
+     */
+    @Test
+    public void indexOf_findsCodesInNationwideMappedIndex() throws Exception {
+        Random random = new Random(11);
+        PostalCodeIndexWriter writer = new PostalCodeIndexWriter();
+        int[] codes = new int[NATIONWIDE_COUNT];
+        for (int i = 0; i < NATIONWIDE_COUNT; i++) {
+            codes[i] = random.nextInt(10_000_000);
+            writer.add(codes[i], 24 + random.nextDouble() * 22, 123 + random.nextDouble() * 23,
+                    "都道府県市区町村町域" + i);
+        }
+        File file = File.createTempFile("postal_index", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            writer.writeTo(out);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            PostalCodeIndex index = PostalCodeIndex.from(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            assertEquals(NATIONWIDE_COUNT, index.size());
+
+            for (int i = 0; i < NATIONWIDE_COUNT; i += 97) {
+                int found = index.indexOf(codes[i]);
+                assertTrue(found >= 0);
+                assertEquals(codes[i], index.code(found));
+            }
+        }
+    }
+
+    private static byte[] write(PostalCodeIndexWriter writer) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        return out.toByteArray();
+    }
+}